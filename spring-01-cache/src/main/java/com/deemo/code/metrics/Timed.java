@@ -0,0 +1,24 @@
+package com.deemo.code.metrics;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 记录方法的调用次数、异常次数与耗时分布，见 {@link MethodMetrics}。
+ * <p>
+ * 标在类上时对该类所有 public 方法生效，方法上的注解优先。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target({ElementType.METHOD, ElementType.TYPE})
+public @interface Timed {
+
+	/**
+	 * 统计名，默认为 类名#方法名；重载方法默认共用一个统计
+	 */
+	String value() default "";
+
+}
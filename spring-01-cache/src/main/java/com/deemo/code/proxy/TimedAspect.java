@@ -0,0 +1,69 @@
+package com.deemo.code.proxy;
+
+import com.deemo.code.metrics.MethodMetrics;
+import com.deemo.code.metrics.Timed;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.stereotype.Component;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 按 类名#方法名 统计 service 上 {@link Timed} 方法的耗时，结果通过 JMX 查看，见 {@link MethodMetrics}。
+ * <p>
+ * 包在 {@link AopProxy} 外层，其打印的耗时也算在内；Order 不能小于 ExposeInvocationInterceptor 的 HIGHEST_PRECEDENCE + 1，
+ * 否则绑定不到注解参数。
+ */
+@Aspect
+@Component
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class TimedAspect {
+	private final MethodMetrics metrics;
+	/**
+	 * 统计名按 Method 缓存
+	 */
+	private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+	public TimedAspect(MethodMetrics metrics) {
+		this.metrics = metrics;
+	}
+
+	@Around(value = "execution(* *(..)) && @annotation(timed)", argNames = "point,timed")
+	public Object timedMethod(ProceedingJoinPoint point, Timed timed) throws Throwable {
+		return this.time(point, timed);
+	}
+
+	@Around(value = "execution(public * *(..)) && @within(timed) && !@annotation(com.deemo.code.metrics.Timed)", argNames = "point,timed")
+	public Object timedType(ProceedingJoinPoint point, Timed timed) throws Throwable {
+		return this.time(point, timed);
+	}
+
+	private Object time(ProceedingJoinPoint point, Timed timed) throws Throwable {
+		long start = System.nanoTime();
+		boolean failed = true;
+		try {
+			Object result = point.proceed();
+			failed = false;
+			return result;
+		} finally {
+			metrics.statsFor(this.getName(point, timed)).record(System.nanoTime() - start, failed);
+		}
+	}
+
+	private String getName(ProceedingJoinPoint point, Timed timed) {
+		Method method = ((MethodSignature) point.getSignature()).getMethod();
+		String name = names.get(method);
+		if (name == null) {
+			name = names.computeIfAbsent(method, key -> timed.value().isEmpty()
+					? ClassUtils.getUserClass(point.getTarget()).getSimpleName() + "#" + key.getName() : timed.value());
+		}
+		return name;
+	}
+}
@@ -1,8 +1,10 @@
 package com.deemo.code.service.impl;
 
+import com.deemo.code.metrics.Timed;
 import com.deemo.code.service.IAopService;
 import org.springframework.stereotype.Service;
 
+@Timed
 @Service
 public class AopServiceImpl implements IAopService {
 
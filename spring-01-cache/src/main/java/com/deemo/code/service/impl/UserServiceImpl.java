@@ -1,11 +1,13 @@
 package com.deemo.code.service.impl;
 
+import com.deemo.code.metrics.Timed;
 import com.deemo.code.service.IDeptService;
 import com.deemo.code.service.IUserService;
 import org.springframework.stereotype.Service;
 
 import javax.annotation.Resource;
 
+@Timed
 @Service
 public class UserServiceImpl implements IUserService {
 
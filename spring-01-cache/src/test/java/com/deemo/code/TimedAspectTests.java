@@ -0,0 +1,39 @@
+package com.deemo.code;
+
+import com.deemo.code.metrics.MethodMetrics;
+import com.deemo.code.service.IAopService;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+@SpringBootTest
+class TimedAspectTests {
+
+	@Autowired
+	private IAopService aopService;
+
+	@Autowired
+	private MethodMetrics metrics;
+
+	@BeforeEach
+	void reset() {
+		metrics.reset();
+	}
+
+	@Test
+	void recordCallsTest() {
+		aopService.hello();
+		aopService.hello();
+
+		MethodMetrics.Snapshot hello = metrics.snapshot().stream()
+				.filter(snapshot -> snapshot.getName().equals("AopServiceImpl#hello")).findFirst()
+				.orElseThrow(() -> new AssertionError("no statistics for AopServiceImpl#hello"));
+		Assertions.assertEquals(2, hello.getCalls());
+		Assertions.assertEquals(0, hello.getErrors());
+		Assertions.assertEquals(2, hello.getLatency().getCount());
+		Assertions.assertEquals(1, metrics.getMethods().length);
+	}
+
+}
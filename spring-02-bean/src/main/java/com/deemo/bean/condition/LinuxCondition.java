@@ -11,7 +11,7 @@ public class LinuxCondition implements Condition {
         System.out.println(metadata.getClass());
 
         String osName = context.getEnvironment().getProperty("os.name", "");
-        return osName.contains("linux");
+        return osName.contains("Linux");
     }
 
 }
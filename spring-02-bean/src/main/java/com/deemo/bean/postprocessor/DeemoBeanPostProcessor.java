@@ -1,9 +1,72 @@
 package com.deemo.bean.postprocessor;
 
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.BeansException;
-import org.springframework.beans.factory.config.BeanPostProcessor;
+import org.springframework.beans.factory.config.InstantiationAwareBeanPostProcessor;
+import org.springframework.context.ApplicationListener;
+import org.springframework.context.event.ContextRefreshedEvent;
+import org.springframework.core.Ordered;
+import org.springframework.core.PriorityOrdered;
+import org.springframework.util.ClassUtils;
 
-public class DeemoBeanPostProcessor implements BeanPostProcessor {
+import java.lang.management.ManagementFactory;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+
+/**
+ * 启动耗时分析：记录每个 bean 从实例化（postProcessBeforeInstantiation）到 postProcessAfterInitialization 的
+ * 耗时与分配的内存，容器刷新完成后按自身耗时从高到低输出报告。
+ * <p>
+ * 创建 A 的过程中触发了 B 的创建（如注入依赖），则 B 记为 A 的依赖，A 的自身耗时不含 B；报告中带上依赖链。
+ * 优先级最高：初始化阶段（init-method、afterPropertiesSet、@PostConstruct）都在本类的两个 Initialization 回调之间，
+ * 但之后的 BeanPostProcessor（如创建 AOP 代理）不计入。早于本类创建的 bean（其他 BeanPostProcessor 等）不会被记录。
+ */
+@Slf4j
+public class DeemoBeanPostProcessor implements InstantiationAwareBeanPostProcessor, PriorityOrdered,
+        ApplicationListener<ContextRefreshedEvent> {
+    private static final int DEFAULT_TOP = 20;
+    /**
+     * 不支持按线程统计分配量时为 null
+     */
+    private static final com.sun.management.ThreadMXBean THREADS = threadMXBean();
+
+    /**
+     * 报告中输出的 bean 数
+     */
+    private final int top;
+    /**
+     * 当前线程上正在创建的 bean，栈顶为最内层
+     */
+    private final ThreadLocal<Deque<Frame>> creating = ThreadLocal.withInitial(ArrayDeque::new);
+    private final List<BeanCost> costs = Collections.synchronizedList(new ArrayList<>());
+    /**
+     * 容器刷新完成后不再记录，避免 prototype bean 让记录无限增长
+     */
+    private volatile boolean finished;
+
+    public DeemoBeanPostProcessor() {
+        this(DEFAULT_TOP);
+    }
+
+    public DeemoBeanPostProcessor(int top) {
+        this.top = top;
+    }
+
+    @Override
+    public Object postProcessBeforeInstantiation(Class<?> beanClass, String beanName) throws BeansException {
+        if (!finished) {
+            Deque<Frame> stack = creating.get();
+            stack.push(new Frame(beanName, stack.peek()));
+        }
+        return null;
+    }
 
     /**
      * Apply this BeanPostProcessor to the given new bean instance
@@ -11,8 +74,11 @@ public class DeemoBeanPostProcessor implements BeanPostProcessor {
      */
     @Override
     public Object postProcessBeforeInitialization(Object bean, String beanName) throws BeansException {
-        System.out.println("postProcessBeforeInitialization...");
-        return BeanPostProcessor.super.postProcessBeforeInitialization(bean, beanName);
+        Frame frame = creating.get().peek();
+        if (frame != null && frame.beanName.equals(beanName)) {
+            frame.initStart = System.nanoTime();
+        }
+        return bean;
     }
 
     /**
@@ -21,8 +87,175 @@ public class DeemoBeanPostProcessor implements BeanPostProcessor {
      */
     @Override
     public Object postProcessAfterInitialization(Object bean, String beanName) throws BeansException {
-        System.out.println("postProcessAfterInitialization...");
-        return BeanPostProcessor.super.postProcessAfterInitialization(bean, beanName);
+        Frame frame = this.pop(beanName);
+        if (frame != null) {
+            costs.add(frame.finish(ClassUtils.getUserClass(bean).getName()));
+        }
+        return bean;
+    }
+
+    @Override
+    public void onApplicationEvent(ContextRefreshedEvent event) {
+        if (finished) {
+            return;
+        }
+        finished = true;
+        creating.remove();
+        log.info("bean creation profile:{}", this.report());
+    }
+
+    /**
+     * 按自身耗时从高到低排序
+     */
+    public List<BeanCost> getCosts() {
+        List<BeanCost> sorted;
+        synchronized (costs) {
+            sorted = new ArrayList<>(costs);
+        }
+        sorted.sort(Comparator.comparingLong(BeanCost::getSelfNanos).reversed());
+        return sorted;
+    }
+
+    public String report() {
+        List<BeanCost> sorted = this.getCosts();
+        long selfNanos = 0;
+        for (BeanCost cost : sorted) {
+            selfNanos += cost.selfNanos;
+        }
+        StringBuilder report = new StringBuilder();
+        report.append(String.format("%n%d beans, %.2f ms in total, top %d by self time:", sorted.size(), selfNanos / 1e6, Math.min(top, sorted.size())));
+        report.append(String.format("%n%10s %10s %10s %10s  %s", "self ms", "total ms", "init ms", "self KB", "bean (type) / dependency chain"));
+        for (BeanCost cost : sorted.subList(0, Math.min(top, sorted.size()))) {
+            report.append(String.format("%n%10.2f %10.2f %10.2f %10s  %s (%s)", cost.selfNanos / 1e6, cost.totalNanos / 1e6,
+                    cost.initNanos / 1e6, cost.selfBytes < 0 ? "-" : String.format("%.1f", cost.selfBytes / 1024.0),
+                    cost.beanName, cost.beanType));
+            if (cost.chain.size() > 1) {
+                report.append(String.format("%n%43s  %s", "", String.join(" -> ", cost.chain)));
+            }
+        }
+        return report.toString();
+    }
+
+    @Override
+    public int getOrder() {
+        return Ordered.HIGHEST_PRECEDENCE;
+    }
+
+    /**
+     * 弹出 beanName 对应的记录；其上方的记录属于创建失败的 bean，一并丢弃。
+     * FactoryBean#getObject 的产物也会经过 postProcessAfterInitialization，但没有对应的记录，返回 null
+     */
+    private Frame pop(String beanName) {
+        Deque<Frame> stack = creating.get();
+        boolean found = false;
+        for (Frame frame : stack) {
+            if (frame.beanName.equals(beanName)) {
+                found = true;
+                break;
+            }
+        }
+        if (!found) {
+            return null;
+        }
+        Frame frame;
+        do {
+            frame = stack.pop();
+        } while (!frame.beanName.equals(beanName));
+        return frame;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS == null ? -1 : THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+
+    private static com.sun.management.ThreadMXBean threadMXBean() {
+        try {
+            java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+            if (threads instanceof com.sun.management.ThreadMXBean) {
+                com.sun.management.ThreadMXBean hotspot = (com.sun.management.ThreadMXBean) threads;
+                if (hotspot.isThreadAllocatedMemorySupported() && hotspot.isThreadAllocatedMemoryEnabled()) {
+                    return hotspot;
+                }
+            }
+        } catch (LinkageError e) {
+            log.debug("per-thread allocation is not available.", e);
+        }
+        return null;
+    }
+
+    /**
+     * 一个正在创建的 bean
+     */
+    private static final class Frame {
+        private final String beanName;
+        private final Frame parent;
+        private final long start = System.nanoTime();
+        private final long startBytes = allocatedBytes();
+        private long initStart;
+        /**
+         * 在本 bean 创建期间创建的依赖的总耗时与分配量
+         */
+        private long childNanos;
+        private long childBytes;
+
+        private Frame(String beanName, Frame parent) {
+            this.beanName = beanName;
+            this.parent = parent;
+        }
+
+        private BeanCost finish(String beanType) {
+            long end = System.nanoTime();
+            long totalNanos = end - start;
+            long totalBytes = startBytes < 0 ? -1 : allocatedBytes() - startBytes;
+            if (parent != null) {
+                parent.childNanos += totalNanos;
+                parent.childBytes += totalBytes;
+            }
+
+            LinkedList<String> chain = new LinkedList<>();
+            for (Frame frame = this; frame != null; frame = frame.parent) {
+                chain.addFirst(frame.beanName);
+            }
+            return new BeanCost(beanName, beanType, Collections.unmodifiableList(chain), totalNanos, totalNanos - childNanos,
+                    initStart == 0 ? 0 : end - initStart, totalBytes, totalBytes < 0 ? -1 : totalBytes - childBytes);
+        }
+    }
+
+    @Getter
+    @ToString
+    public static final class BeanCost {
+        private final String beanName;
+        private final String beanType;
+        /**
+         * 从最外层触发创建的 bean 到本 bean
+         */
+        private final List<String> chain;
+        private final long totalNanos;
+        /**
+         * 不含依赖的创建耗时
+         */
+        private final long selfNanos;
+        /**
+         * init-method、afterPropertiesSet、@PostConstruct 等初始化回调的耗时
+         */
+        private final long initNanos;
+        /**
+         * 不支持统计分配量时为 -1
+         */
+        private final long totalBytes;
+        private final long selfBytes;
+
+        private BeanCost(String beanName, String beanType, List<String> chain, long totalNanos, long selfNanos,
+                         long initNanos, long totalBytes, long selfBytes) {
+            this.beanName = beanName;
+            this.beanType = beanType;
+            this.chain = chain;
+            this.totalNanos = totalNanos;
+            this.selfNanos = selfNanos;
+            this.initNanos = initNanos;
+            this.totalBytes = totalBytes;
+            this.selfBytes = selfBytes;
+        }
     }
 
 }
@@ -0,0 +1,108 @@
+package com.deemo.bean;
+
+import com.deemo.bean.config.BeanLifeCycleConfiguration;
+import com.deemo.bean.entity.Car4LifeCycle;
+import com.deemo.bean.postprocessor.DeemoBeanPostProcessor;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class BeanCreationProfileTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private DeemoBeanPostProcessor profiler;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(BeanLifeCycleConfiguration.class, SlowConfig.class);
+        this.profiler = this.applicationContext.getBean(DeemoBeanPostProcessor.class);
+    }
+
+    @Test
+    public void lifeCycleTest() {
+        // init-method、afterPropertiesSet、@PostConstruct 都计入初始化阶段
+        for (String beanName : Arrays.asList("car4LifeCycle", "cat4LifeCycle", "dog4LifeCycle")) {
+            DeemoBeanPostProcessor.BeanCost cost = find(beanName);
+            Assertions.assertTrue(cost.getInitNanos() > 0);
+            Assertions.assertTrue(cost.getTotalNanos() >= cost.getInitNanos());
+            Assertions.assertEquals(cost.getTotalNanos(), cost.getSelfNanos());
+        }
+        Assertions.assertEquals(Car4LifeCycle.class.getName(), find("car4LifeCycle").getBeanType());
+    }
+
+    @Test
+    public void reportTest() {
+        String[] lines = profiler.report().trim().split("\\R");
+        Assertions.assertTrue(lines[0].startsWith(profiler.getCosts().size() + " beans, "));
+        Assertions.assertTrue(lines[1].trim().startsWith("self ms"));
+        // 最慢的 slowDependency 排在第一行，下一行是它的依赖链
+        Assertions.assertTrue(lines[2].endsWith("slowDependency (" + SlowDependency.class.getName() + ")"));
+        Assertions.assertEquals("garage -> slowDependency", lines[3].trim());
+    }
+
+    @Test
+    public void dependencyChainTest() {
+        DeemoBeanPostProcessor.BeanCost slow = find("slowDependency");
+        DeemoBeanPostProcessor.BeanCost garage = find("garage");
+        Assertions.assertEquals(Arrays.asList("garage", "slowDependency"), slow.getChain());
+        Assertions.assertTrue(slow.getSelfNanos() >= TimeUnit.MILLISECONDS.toNanos(50));
+        // 依赖的耗时计入 garage 的总耗时，但不计入自身耗时
+        Assertions.assertTrue(garage.getTotalNanos() >= slow.getTotalNanos());
+        Assertions.assertTrue(garage.getSelfNanos() < TimeUnit.MILLISECONDS.toNanos(50));
+        if (slow.getSelfBytes() >= 0) {
+            Assertions.assertTrue(slow.getSelfBytes() >= 1 << 20);
+        }
+
+        // 按自身耗时排序，最慢的在最前
+        List<DeemoBeanPostProcessor.BeanCost> costs = profiler.getCosts();
+        Assertions.assertEquals("slowDependency", costs.get(0).getBeanName());
+    }
+
+    private DeemoBeanPostProcessor.BeanCost find(String beanName) {
+        return profiler.getCosts().stream().filter(cost -> cost.getBeanName().equals(beanName)).findFirst()
+                .orElseThrow(() -> new AssertionError("no cost recorded for " + beanName));
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+    static class SlowConfig {
+        /**
+         * 参数注入：创建 garage 的过程中创建 slowDependency
+         */
+        @Bean
+        public Garage garage(SlowDependency slowDependency) {
+            return new Garage();
+        }
+
+        @Bean
+        public SlowDependency slowDependency() {
+            return new SlowDependency();
+        }
+    }
+
+    static class Garage {
+    }
+
+    static class SlowDependency {
+        private byte[] buffer;
+
+        public SlowDependency() {
+            this.buffer = new byte[2 << 20];
+            try {
+                TimeUnit.MILLISECONDS.sleep(60);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+}
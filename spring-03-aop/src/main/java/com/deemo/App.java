@@ -1,18 +1,35 @@
 package com.deemo;
 
 import com.deemo.aspect.CalculatorAspect;
+import com.deemo.aspect.CoalesceAspect;
+import com.deemo.aspect.MemoizeAspect;
 import com.deemo.calculator.DeemoCalculator;
+import com.deemo.timing.MethodMetrics;
+import com.deemo.timing.TimedAspect;
+import org.aspectj.lang.Aspects;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.EnableMBeanExport;
+import org.springframework.context.annotation.Profile;
 
 /**
  * Hello world!
+ * <p>
+ * 以 -javaagent:aspectjweaver.jar -Dspring.profiles.active=ltw 启动时，{@link CalculatorAspect} 改为加载期织入（见 META-INF/aop.xml），
+ * 其余切面仍使用代理。
  */
 @Configuration
 @EnableAspectJAutoProxy
+@EnableMBeanExport
 public class App {
 
+    /**
+     * 加载期织入模式的 profile
+     */
+    public static final String WEAVING_PROFILE = "ltw";
+
     public static void main(String[] args) {
         System.out.println("Hello World!");
     }
@@ -22,9 +39,48 @@ public class App {
         return new DeemoCalculator();
     }
 
+    /**
+     * 采样率可通过 -Dcalculator.log.sample-rate=N 调整，每 N 次调用记录一次日志
+     */
+    @Bean
+    @Profile("!" + WEAVING_PROFILE)
+    public CalculatorAspect calculatorAspect(@Value("${calculator.log.sample-rate:1}") int sampleRate) {
+        return new CalculatorAspect(sampleRate);
+    }
+
+    /**
+     * 织入的切面由 AspectJ 用无参构造创建，采样率固定为 1；Spring 识别出它已被织入，不会再为它创建代理
+     */
+    @Bean(name = "calculatorAspect")
+    @Profile(WEAVING_PROFILE)
+    public CalculatorAspect wovenCalculatorAspect() {
+        return Aspects.aspectOf(CalculatorAspect.class);
+    }
+
+    /**
+     * 耗时统计见 JMX com.deemo:type=MethodMetrics
+     */
+    @Bean
+    public MethodMetrics methodMetrics() {
+        return new MethodMetrics();
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MethodMetrics methodMetrics) {
+        return new TimedAspect(methodMetrics);
+    }
+
+    /**
+     * 命中、未命中与淘汰次数见 {@link MemoizeAspect#getCaches()}
+     */
+    @Bean
+    public MemoizeAspect memoizeAspect() {
+        return new MemoizeAspect();
+    }
+
     @Bean
-    public CalculatorAspect calculatorAspect() {
-        return new CalculatorAspect();
+    public CoalesceAspect coalesceAspect() {
+        return new CoalesceAspect();
     }
 
 }
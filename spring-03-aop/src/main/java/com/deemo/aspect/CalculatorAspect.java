@@ -1,13 +1,39 @@
 package com.deemo.aspect;
 
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
+
+import java.lang.reflect.Array;
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 // 告诉 Spring 是一个 Aspect 类
 @Aspect
 public class CalculatorAspect {
+    /**
+     * 方法全名按 Method 缓存，只在第一次记录日志时拼接
+     */
+    private final Map<Method, String> methodNames = new ConcurrentHashMap<>();
+    /**
+     * 每 sampleRate 次调用（随机）记录一次，1 表示每次都记录
+     */
+    private final int sampleRate;
+
+    public CalculatorAspect() {
+        this(1);
+    }
+
+    public CalculatorAspect(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate must be positive!");
+        }
+        this.sampleRate = sampleRate;
+    }
 
     /**
      * 抽取公共切入点
@@ -15,29 +41,74 @@ public class CalculatorAspect {
     @Pointcut("execution(public * com.deemo.calculator.DeemoCalculator.*(..))")
     public void pointCut() {}
 
-    @Before("pointCut()")
-    // @Before("public * com.deemo.calculator.DeemoCalculator.*(..)")
-    public void before(JoinPoint point) {
-        log.info("Method: {} before exec, the args are: {}.", this.getFullMethodName(point), point.getArgs());
+    /**
+     * 相当于 @Before + @After + @AfterReturning + @AfterThrowing，但每次调用只经过一个通知；
+     * INFO 未开启或未被采样时直接放行，不取签名、不复制参数数组。
+     */
+    @Around("pointCut()")
+    // @Around("public * com.deemo.calculator.DeemoCalculator.*(..)")
+    public Object around(ProceedingJoinPoint point) throws Throwable {
+        if (!log.isInfoEnabled() || !sampled()) {
+            return point.proceed();
+        }
+
+        String methodName = this.getFullMethodName(point);
+        log.info("Method: {} before exec, the args are: {}.", methodName, describeArgs(point.getArgs()));
+        Object result;
+        try {
+            result = point.proceed();
+        } catch (Throwable e) {
+            log.info("Method: {} after exec...", methodName);
+            log.info("Method: {} after throwing, the exception is: {}!", methodName, e);
+            throw e;
+        }
+        log.info("Method: {} after exec...", methodName);
+        log.info("Method: {} after returning, the return is: {}.", methodName, describe(result));
+        return result;
     }
 
-    @After("pointCut()")
-    public void after(JoinPoint point) {
-        log.info("Method: {} after exec...", this.getFullMethodName(point));
+    public int getSampleRate() {
+        return sampleRate;
     }
 
-    @AfterReturning(value = "pointCut()", returning = "result")
-    public void afterReturning(JoinPoint point, Object result) {
-        log.info("Method: {} after returning, the return is: {}.", this.getFullMethodName(point), result);
+    private boolean sampled() {
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
     }
 
-    @AfterThrowing(value = "pointCut()", throwing = "e")
-    public void afterThrowing(JoinPoint point, Exception e) {
-        log.info("Method: {} after throwing, the exception is: {}!", this.getFullMethodName(point), e);
+    /**
+     * 有数组参数时才复制一份参数数组
+     */
+    private static Object[] describeArgs(Object[] args) {
+        Object[] described = args;
+        for (int i = 0; i < args.length; i++) {
+            Object value = describe(args[i]);
+            if (value != args[i]) {
+                if (described == args) {
+                    described = args.clone();
+                }
+                described[i] = value;
+            }
+        }
+        return described;
+    }
+
+    /**
+     * 数组只记录类型与长度，批量调用时不把整个数组格式化进日志
+     */
+    private static Object describe(Object value) {
+        if (value != null && value.getClass().isArray()) {
+            return value.getClass().getComponentType().getSimpleName() + "[" + Array.getLength(value) + "]";
+        }
+        return value;
     }
 
-    private String getFullMethodName(JoinPoint point) {
-        return point.getSignature().getDeclaringTypeName() + "#" + point.getSignature().getName();
+    private String getFullMethodName(ProceedingJoinPoint point) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        String name = methodNames.get(method);
+        if (name == null) {
+            name = methodNames.computeIfAbsent(method, key -> point.getSignature().getDeclaringTypeName() + "#" + key.getName());
+        }
+        return name;
     }
 
 }
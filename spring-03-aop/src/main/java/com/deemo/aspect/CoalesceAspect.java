@@ -0,0 +1,42 @@
+package com.deemo.aspect;
+
+import com.deemo.coalesce.Coalesce;
+import com.deemo.coalesce.InFlightTable;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 合并 {@link Coalesce} 方法的并发相同调用：同一对象上、参数相同的调用。
+ * <p>
+ * 排在 {@link MemoizeAspect} 之内：缓存未命中时，同时到达的相同调用只执行一次。
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 4)
+public class CoalesceAspect {
+    private final InFlightTable inFlight;
+
+    public CoalesceAspect() {
+        this(64);
+    }
+
+    /**
+     * @param stripes 调用表的分段数，须为 2 的幂
+     */
+    public CoalesceAspect(int stripes) {
+        this.inFlight = new InFlightTable(stripes);
+    }
+
+    @Around("execution(* *(..)) && @annotation(com.deemo.coalesce.Coalesce)")
+    public Object coalesce(ProceedingJoinPoint point) throws Throwable {
+        Object[] args = point.getArgs();
+        return inFlight.execute(point.getTarget(), ((MethodSignature) point.getSignature()).getMethod(), args, () -> point.proceed(args));
+    }
+
+    public InFlightTable getInFlight() {
+        return inFlight;
+    }
+}
@@ -0,0 +1,54 @@
+package com.deemo.aspect;
+
+import com.deemo.memoize.MemoCache;
+import com.deemo.memoize.Memoize;
+import com.deemo.timing.TimedAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+import java.lang.reflect.Method;
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link Memoize} 方法的结果缓存，每个方法一个 {@link MemoCache}。
+ * <p>
+ * 排在 {@link TimedAspect} 之内、{@link CalculatorAspect} 之外：命中时仍计入耗时统计，但不再经过日志通知。
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class MemoizeAspect {
+    private final Map<Method, MemoCache> caches = new ConcurrentHashMap<>();
+
+    @Around(value = "execution(* *(..)) && @annotation(memoize)", argNames = "point,memoize")
+    public Object memoize(ProceedingJoinPoint point, Memoize memoize) throws Throwable {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        MemoCache cache = caches.get(method);
+        if (cache == null) {
+            cache = caches.computeIfAbsent(method, key -> MemoCache.forMethod(key, memoize.maxSize()));
+        }
+
+        Object[] args = point.getArgs();
+        Object result = cache.get(args);
+        if (result != MemoCache.MISS) {
+            return result;
+        }
+        // 抛出的异常不缓存，原样抛给调用方；参数没有改动，用 proceed() 避免 proceed(args) 再克隆一次调用
+        result = point.proceed();
+        cache.put(args, result);
+        return result;
+    }
+
+    public MemoCache cacheFor(Method method) {
+        return caches.get(method);
+    }
+
+    public Map<Method, MemoCache> getCaches() {
+        return Collections.unmodifiableMap(caches);
+    }
+}
@@ -1,10 +1,31 @@
 package com.deemo.calculator;
 
+import com.deemo.memoize.Memoize;
+import com.deemo.timing.Timed;
 import lombok.extern.slf4j.Slf4j;
 
+import java.util.stream.IntStream;
+
 @Slf4j
+@Timed
 public class DeemoCalculator {
+    /**
+     * 批量计算超过该元素数时分段并行
+     */
+    public static final int PARALLEL_THRESHOLD = 1 << 16;
+    /**
+     * 批量接口的耗时与单个 div 相差几个数量级，单独统计，避免混在同一个直方图里
+     */
+    public static final String DIV_BATCH = "DeemoCalculator#divBatch";
+    /**
+     * 并行时每段的元素数，段内是普通循环
+     */
+    private static final int CHUNK_SIZE = 1 << 14;
 
+    /**
+     * 纯函数，结果按 (a, b) 缓存
+     */
+    @Memoize
     public double div(int a, int b) {
         log.info("div running...");
 
@@ -15,4 +36,53 @@ public class DeemoCalculator {
         return a * 1.0 / b;
     }
 
+    /**
+     * 批量除法，结果写入新数组，见 {@link #div(int[], int[], double[])}
+     */
+    @Timed(DIV_BATCH)
+    public double[] div(int[] a, int[] b) {
+        return this.divBatch(a, b, new double[a.length]);
+    }
+
+    /**
+     * 批量除法：out[i] = a[i] / b[i]，返回 out。
+     * 切面只在整批上执行一次；除数先整体扫描一遍，有 0 时在写入 out 之前抛出异常。
+     */
+    @Timed(DIV_BATCH)
+    public double[] div(int[] a, int[] b, double[] out) {
+        return this.divBatch(a, b, out);
+    }
+
+    /**
+     * 两个公开方法共用，避免互相调用时在加载期织入模式下触发两次切面
+     */
+    private double[] divBatch(int[] a, int[] b, double[] out) {
+        int length = a.length;
+        if (b.length != length || out.length < length) {
+            throw new IllegalArgumentException("length mismatch: a " + length + ", b " + b.length + ", out " + out.length);
+        }
+        log.info("div batch running, size: {}...", length);
+
+        for (int i = 0; i < length; i++) {
+            if (b[i] == 0) {
+                throw new RuntimeException("b can not be 0! index: " + i);
+            }
+        }
+
+        if (length < PARALLEL_THRESHOLD) {
+            divRange(a, b, out, 0, length);
+        } else {
+            int chunks = (length + CHUNK_SIZE - 1) / CHUNK_SIZE;
+            IntStream.range(0, chunks).parallel()
+                    .forEach(chunk -> divRange(a, b, out, chunk * CHUNK_SIZE, Math.min(length, (chunk + 1) * CHUNK_SIZE)));
+        }
+        return out;
+    }
+
+    private static void divRange(int[] a, int[] b, double[] out, int from, int to) {
+        for (int i = from; i < to; i++) {
+            out[i] = a[i] * 1.0 / b[i];
+        }
+    }
+
 }
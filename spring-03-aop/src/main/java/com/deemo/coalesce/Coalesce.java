@@ -0,0 +1,19 @@
+package com.deemo.coalesce;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 合并并发的相同调用（single-flight）：参数相等的调用同时到达时只执行一次，
+ * 其余调用等待并拿到同一个结果或同一个异常。执行完成后不保留结果，之后的调用重新执行。
+ * <p>
+ * 参数按 equals 比较，见 {@link InFlightTable}。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Coalesce {
+}
@@ -0,0 +1,190 @@
+package com.deemo.coalesce;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 正在执行的调用表，按 key 的哈希分成若干段，每段一把锁：不同段的 key 互不竞争，
+ * 锁内只做一次 HashMap 查找或删除，执行本身在锁外。
+ */
+public class InFlightTable {
+    private final Stripe[] stripes;
+    private final int mask;
+
+    private final LongAdder executions = new LongAdder();
+    private final LongAdder coalesced = new LongAdder();
+
+    public InFlightTable(int stripes) {
+        if (stripes <= 0 || Integer.bitCount(stripes) != 1) {
+            throw new IllegalArgumentException("stripes must be a power of two: " + stripes);
+        }
+        this.stripes = new Stripe[stripes];
+        for (int i = 0; i < stripes; i++) {
+            this.stripes[i] = new Stripe();
+        }
+        this.mask = stripes - 1;
+    }
+
+    /**
+     * 同一对象、同一方法、相同参数上已有执行中的调用时等待它的结果，否则由当前线程执行
+     *
+     * @param target 被调用的对象，按引用比较，静态方法为 null
+     */
+    public Object execute(Object target, Method method, Object[] args, Invocation invocation) throws Throwable {
+        Key key = new Key(target, method, args);
+        Stripe stripe = stripes[spread(key.hash) & mask];
+        Call call;
+        boolean leader = false;
+        synchronized (stripe) {
+            call = stripe.calls.get(key);
+            if (call == null) {
+                call = new Call(Thread.currentThread());
+                stripe.calls.put(key, call);
+                leader = true;
+            }
+        }
+
+        if (!leader) {
+            // 同一线程内的递归调用不能等自己
+            if (call.leader == Thread.currentThread()) {
+                return invocation.proceed();
+            }
+            coalesced.increment();
+            return call.await();
+        }
+
+        executions.increment();
+        try {
+            Object result = invocation.proceed();
+            remove(stripe, key);
+            call.complete(result, null);
+            return result;
+        } catch (Throwable e) {
+            remove(stripe, key);
+            call.complete(null, e);
+            throw e;
+        }
+    }
+
+    /**
+     * 实际执行的次数
+     */
+    public long getExecutions() {
+        return executions.sum();
+    }
+
+    /**
+     * 等待并共用了其他线程结果的调用次数
+     */
+    public long getCoalesced() {
+        return coalesced.sum();
+    }
+
+    public int getInFlight() {
+        int total = 0;
+        for (Stripe stripe : stripes) {
+            synchronized (stripe) {
+                total += stripe.calls.size();
+            }
+        }
+        return total;
+    }
+
+    private static void remove(Stripe stripe, Key key) {
+        synchronized (stripe) {
+            stripe.calls.remove(key);
+        }
+    }
+
+    private static int spread(int hash) {
+        return hash ^ (hash >>> 16);
+    }
+
+    @FunctionalInterface
+    public interface Invocation {
+        Object proceed() throws Throwable;
+    }
+
+    private static final class Stripe {
+        private final Map<Key, Call> calls = new HashMap<>();
+    }
+
+    /**
+     * 不同实例的状态可能不同（如不同数据源的 DAO），不能共用结果，target 按引用区分
+     */
+    private static final class Key {
+        private final Object target;
+        private final Method method;
+        private final Object[] args;
+        private final int hash;
+
+        private Key(Object target, Method method, Object[] args) {
+            this.target = target;
+            this.method = method;
+            this.args = args;
+            this.hash = 31 * (31 * System.identityHashCode(target) + method.hashCode()) + Arrays.hashCode(args);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (!(o instanceof Key)) {
+                return false;
+            }
+            Key key = (Key) o;
+            return hash == key.hash && target == key.target && method.equals(key.method) && Arrays.equals(args, key.args);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
+
+    private static final class Call {
+        private final Thread leader;
+        private final CountDownLatch done = new CountDownLatch(1);
+        private Object result;
+        private Throwable failure;
+
+        private Call(Thread leader) {
+            this.leader = leader;
+        }
+
+        private void complete(Object result, Throwable failure) {
+            this.result = result;
+            this.failure = failure;
+            // countDown 之前的写入对 await 返回的线程可见
+            done.countDown();
+        }
+
+        /**
+         * 等待期间被中断不放弃等待，返回前恢复中断标记
+         */
+        private Object await() throws Throwable {
+            boolean interrupted = false;
+            while (true) {
+                try {
+                    done.await();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+            if (interrupted) {
+                Thread.currentThread().interrupt();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+            return result;
+        }
+    }
+
+}
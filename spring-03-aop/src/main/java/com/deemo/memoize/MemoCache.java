@@ -0,0 +1,256 @@
+package com.deemo.memoize;
+
+import java.lang.reflect.Method;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 单个 {@link Memoize} 方法的有界结果缓存。
+ * <ul>
+ *     <li>参数全为基本类型且总位数不超过 64（如 div(int, int)）时，参数直接拼成一个 long 作为 key，
+ *     存放在直接映射的数组中：查找时不分配 key 对象，也不加锁；冲突时新结果覆盖旧结果</li>
+ *     <li>其他方法以参数列表为 key（按 equals 比较），存放在加锁的 LRU 表中</li>
+ * </ul>
+ * 缓存本身只能省掉 key 的分配。经过 Spring AOP 代理时参数在进入通知之前就已装箱成 Object[]，
+ * {@link org.aspectj.lang.JoinPoint#getArgs()} 还会再复制一次数组，这些分配是基于代理的通知所固有的，
+ * 能否被消除取决于 JIT 的逃逸分析；要完全避免只能在调用方自己缓存。
+ */
+public abstract class MemoCache {
+    /**
+     * {@link #get} 未命中时的返回值
+     */
+    public static final Object MISS = new Object();
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    public static MemoCache forMethod(Method method, int maxSize) {
+        if (maxSize <= 0) {
+            throw new IllegalArgumentException("max size must be positive: " + maxSize);
+        }
+        int[] bits = PrimitiveKeyCache.bits(method.getParameterTypes());
+        return bits != null ? new PrimitiveKeyCache(bits, maxSize) : new ObjectKeyCache(maxSize);
+    }
+
+    /**
+     * @return 缓存的结果（可能为 null），未命中时返回 {@link #MISS}
+     */
+    public abstract Object get(Object[] args);
+
+    public abstract void put(Object[] args, Object result);
+
+    /**
+     * 参数是否被拼成 long key
+     */
+    public abstract boolean isPrimitiveKey();
+
+    public abstract int getCapacity();
+
+    public long getHits() {
+        return hits.sum();
+    }
+
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("capacity=%d, primitiveKey=%s, hits=%d, misses=%d, evictions=%d",
+                getCapacity(), isPrimitiveKey(), getHits(), getMisses(), getEvictions());
+    }
+
+    Object hit(Object result) {
+        hits.increment();
+        return result;
+    }
+
+    Object miss() {
+        misses.increment();
+        return MISS;
+    }
+
+    void evicted() {
+        evictions.increment();
+    }
+
+    /**
+     * 直接映射：槽位由 key 的哈希决定，写入时直接替换槽位里的旧条目。
+     * 条目不可变（final 字段），数组槽位的读写不需要同步。
+     */
+    private static final class PrimitiveKeyCache extends MemoCache {
+        private final int[] bits;
+        private final Entry[] entries;
+        private final int mask;
+
+        private PrimitiveKeyCache(int[] bits, int maxSize) {
+            this.bits = bits;
+            int capacity = Integer.highestOneBit(maxSize);
+            this.entries = new Entry[capacity];
+            this.mask = capacity - 1;
+        }
+
+        /**
+         * 每个参数占用的位数；有非基本类型的参数或总位数超过 64 时返回 null
+         */
+        private static int[] bits(Class<?>[] types) {
+            int[] bits = new int[types.length];
+            int total = 0;
+            for (int i = 0; i < types.length; i++) {
+                Class<?> type = types[i];
+                if (type == boolean.class) {
+                    bits[i] = 1;
+                } else if (type == byte.class) {
+                    bits[i] = Byte.SIZE;
+                } else if (type == short.class || type == char.class) {
+                    bits[i] = Short.SIZE;
+                } else if (type == int.class || type == float.class) {
+                    bits[i] = Integer.SIZE;
+                } else if (type == long.class || type == double.class) {
+                    bits[i] = Long.SIZE;
+                } else {
+                    return null;
+                }
+                total += bits[i];
+            }
+            return total <= Long.SIZE ? bits : null;
+        }
+
+        private long pack(Object[] args) {
+            long key = 0;
+            for (int i = 0; i < args.length; i++) {
+                key = (bits[i] == Long.SIZE ? 0 : key << bits[i]) | value(args[i], bits[i]);
+            }
+            return key;
+        }
+
+        private static long value(Object arg, int bits) {
+            if (arg instanceof Integer) {
+                return ((Integer) arg) & 0xFFFFFFFFL;
+            }
+            if (arg instanceof Long) {
+                return (Long) arg;
+            }
+            if (arg instanceof Double) {
+                return Double.doubleToLongBits((Double) arg);
+            }
+            if (arg instanceof Float) {
+                return Float.floatToIntBits((Float) arg) & 0xFFFFFFFFL;
+            }
+            if (arg instanceof Boolean) {
+                return (Boolean) arg ? 1 : 0;
+            }
+            if (arg instanceof Character) {
+                return (Character) arg;
+            }
+            // Byte、Short
+            return ((Number) arg).longValue() & ((1L << bits) - 1);
+        }
+
+        private int index(long key) {
+            // MurmurHash3 fmix64
+            key ^= key >>> 33;
+            key *= 0xff51afd7ed558ccdL;
+            key ^= key >>> 33;
+            key *= 0xc4ceb9fe1a85ec53L;
+            key ^= key >>> 33;
+            return (int) key & mask;
+        }
+
+        @Override
+        public Object get(Object[] args) {
+            long key = pack(args);
+            Entry entry = entries[index(key)];
+            return entry != null && entry.key == key ? hit(entry.value) : miss();
+        }
+
+        @Override
+        public void put(Object[] args, Object result) {
+            long key = pack(args);
+            int index = index(key);
+            Entry previous = entries[index];
+            if (previous != null && previous.key != key) {
+                evicted();
+            }
+            entries[index] = new Entry(key, result);
+        }
+
+        @Override
+        public boolean isPrimitiveKey() {
+            return true;
+        }
+
+        @Override
+        public int getCapacity() {
+            return entries.length;
+        }
+
+        private static final class Entry {
+            private final long key;
+            private final Object value;
+
+            private Entry(long key, Object value) {
+                this.key = key;
+                this.value = value;
+            }
+        }
+    }
+
+    private static final class ObjectKeyCache extends MemoCache {
+        private final int maxSize;
+        private final Map<List<Object>, Object> results;
+
+        private ObjectKeyCache(int maxSize) {
+            this.maxSize = maxSize;
+            this.results = new LinkedHashMap<List<Object>, Object>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<List<Object>, Object> eldest) {
+                    if (size() > ObjectKeyCache.this.maxSize) {
+                        evicted();
+                        return true;
+                    }
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public Object get(Object[] args) {
+            List<Object> key = Arrays.asList(args);
+            synchronized (results) {
+                Object result = results.get(key);
+                if (result != null || results.containsKey(key)) {
+                    return hit(result);
+                }
+            }
+            return miss();
+        }
+
+        @Override
+        public void put(Object[] args, Object result) {
+            List<Object> key = Arrays.asList(args);
+            synchronized (results) {
+                results.put(key, result);
+            }
+        }
+
+        @Override
+        public boolean isPrimitiveKey() {
+            return false;
+        }
+
+        @Override
+        public int getCapacity() {
+            return maxSize;
+        }
+    }
+
+}
@@ -0,0 +1,24 @@
+package com.deemo.memoize;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 缓存纯函数的返回值：相同参数的调用直接返回上一次的结果，抛出的异常不缓存、原样抛出。
+ * <p>
+ * 只应标在结果只取决于参数、没有副作用的方法上，见 {@link MemoCache}。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface Memoize {
+
+    /**
+     * 最多缓存的结果数，超出后按位置覆盖（参数全为基本类型时）或淘汰最久未使用的结果
+     */
+    int maxSize() default 1024;
+
+}
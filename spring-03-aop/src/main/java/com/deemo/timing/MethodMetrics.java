@@ -0,0 +1,111 @@
+package com.deemo.timing;
+
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按 {@link Timed} 的统计名记录调用次数、异常次数与耗时直方图，由 {@link TimedAspect} 写入。
+ */
+@ManagedResource(objectName = "com.deemo:type=MethodMetrics", description = "Latency of @Timed methods")
+public class MethodMetrics {
+    private final Map<String, Stats> statistics = new ConcurrentHashMap<>();
+
+    public Stats statsFor(String name) {
+        Stats stats = statistics.get(name);
+        return stats != null ? stats : statistics.computeIfAbsent(name, Stats::new);
+    }
+
+    public List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>(statistics.size());
+        for (Stats stats : statistics.values()) {
+            snapshots.add(new Snapshot(stats.name, stats.calls.sum(), stats.errors.sum(), stats.latency.snapshot()));
+        }
+        snapshots.sort(Comparator.comparing(Snapshot::getName));
+        return snapshots;
+    }
+
+    @ManagedAttribute(description = "One line per @Timed method")
+    public String[] getMethods() {
+        List<Snapshot> snapshots = snapshot();
+        String[] lines = new String[snapshots.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = snapshots.get(i).toString();
+        }
+        return lines;
+    }
+
+    @ManagedOperation(description = "Clear all method statistics")
+    public void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * 单个统计名的计数器
+     */
+    public static final class Stats {
+        private final String name;
+        private final LongAdder calls = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public void record(long nanos, boolean failed) {
+            calls.increment();
+            if (failed) {
+                errors.increment();
+            }
+            latency.record(nanos);
+        }
+    }
+
+    public static final class Snapshot {
+        private final String name;
+        private final long calls;
+        private final long errors;
+        private final LatencyHistogram.Snapshot latency;
+
+        private Snapshot(String name, long calls, long errors, LatencyHistogram.Snapshot latency) {
+            this.name = name;
+            this.calls = calls;
+            this.errors = errors;
+            this.latency = latency;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCalls() {
+            return calls;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s | calls=%d, errors=%d | %s", name, calls, errors, latency);
+        }
+    }
+
+}
@@ -0,0 +1,66 @@
+package com.deemo.timing;
+
+import com.deemo.aspect.CalculatorAspect;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 把 {@link Timed} 方法的耗时记入 {@link MethodMetrics}。方法上的注解优先于类上的注解，两个切点互斥，不会重复计时。
+ * <p>
+ * 顺序在 {@link CalculatorAspect}、{@link com.deemo.aspect.MemoizeAspect} 之外，耗时包含日志与缓存查找；
+ * 绑定注解参数依赖 ExposeInvocationInterceptor（HIGHEST_PRECEDENCE + 1），因此排在它之后。
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class TimedAspect {
+    private final MethodMetrics metrics;
+    /**
+     * 统计名按 Method 缓存
+     */
+    private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+    public TimedAspect(MethodMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    @Around(value = "execution(* *(..)) && @annotation(timed)", argNames = "point,timed")
+    public Object timedMethod(ProceedingJoinPoint point, Timed timed) throws Throwable {
+        return this.time(point, timed);
+    }
+
+    @Around(value = "execution(public * *(..)) && @within(timed) && !@annotation(com.deemo.timing.Timed)", argNames = "point,timed")
+    public Object timedType(ProceedingJoinPoint point, Timed timed) throws Throwable {
+        return this.time(point, timed);
+    }
+
+    private Object time(ProceedingJoinPoint point, Timed timed) throws Throwable {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = point.proceed();
+            failed = false;
+            return result;
+        } finally {
+            metrics.statsFor(this.getName(point, timed)).record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private String getName(ProceedingJoinPoint point, Timed timed) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        String name = names.get(method);
+        if (name == null) {
+            name = names.computeIfAbsent(method, key -> timed.value().isEmpty()
+                    ? ClassUtils.getUserClass(point.getTarget()).getSimpleName() + "#" + key.getName() : timed.value());
+        }
+        return name;
+    }
+}
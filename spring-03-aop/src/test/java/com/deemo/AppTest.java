@@ -2,6 +2,7 @@ package com.deemo;
 
 import com.deemo.calculator.DeemoCalculator;
 import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
 import org.junit.jupiter.api.BeforeEach;
 import org.junit.jupiter.api.Test;
 import org.springframework.context.annotation.AnnotationConfigApplicationContext;
@@ -22,7 +23,8 @@ public class AppTest {
     public void calculatorTest() {
         DeemoCalculator calculator = applicationContext.getBean(DeemoCalculator.class);
         System.out.println(calculator.div(2, 4));
-        System.out.println(calculator.div(2, 0));
+        // 除数为 0 时抛出异常，由 CalculatorAspect 的 @Around 通知记录后原样抛出
+        Assertions.assertThrows(RuntimeException.class, () -> calculator.div(2, 0));
     }
 
     @AfterEach
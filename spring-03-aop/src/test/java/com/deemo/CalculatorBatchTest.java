@@ -0,0 +1,79 @@
+package com.deemo;
+
+import com.deemo.calculator.DeemoCalculator;
+import com.deemo.timing.MethodMetrics;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+public class CalculatorBatchTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private DeemoCalculator calculator;
+    private MethodMetrics metrics;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(App.class);
+        this.calculator = this.applicationContext.getBean(DeemoCalculator.class);
+        this.metrics = this.applicationContext.getBean(MethodMetrics.class);
+    }
+
+    @Test
+    public void batchTest() {
+        int[] a = {84, -4, 2, 7};
+        int[] b = {2, 2, -4, 7};
+        double[] out = new double[5];
+        Assertions.assertSame(out, calculator.div(a, b, out));
+        Assertions.assertArrayEquals(new double[]{42.0, -2.0, -0.5, 1.0, 0}, out);
+        Assertions.assertArrayEquals(new double[]{42.0, -2.0, -0.5, 1.0}, calculator.div(a, b));
+
+        // 两次批量调用，切面各执行一次；与单个 div 分开统计
+        Assertions.assertEquals(2, find(DeemoCalculator.DIV_BATCH).getCalls());
+        Assertions.assertTrue(metrics.snapshot().stream().noneMatch(snapshot -> snapshot.getName().equals("DeemoCalculator#div")));
+    }
+
+    @Test
+    public void parallelTest() {
+        int length = DeemoCalculator.PARALLEL_THRESHOLD * 4 + 3;
+        int[] a = new int[length];
+        int[] b = new int[length];
+        for (int i = 0; i < length; i++) {
+            a[i] = i - length / 2;
+            b[i] = i % 7 + 1;
+        }
+        double[] out = calculator.div(a, b);
+        for (int i = 0; i < length; i++) {
+            Assertions.assertEquals(a[i] * 1.0 / b[i], out[i]);
+        }
+        Assertions.assertEquals(1, find(DeemoCalculator.DIV_BATCH).getCalls());
+    }
+
+    @Test
+    public void invalidInputTest() {
+        int[] a = {1, 2, 3};
+        double[] out = new double[3];
+        RuntimeException e = Assertions.assertThrows(RuntimeException.class, () -> calculator.div(a, new int[]{1, 1, 0}, out));
+        Assertions.assertTrue(e.getMessage().endsWith("index: 2"));
+        // 除数先整体检查，出错时 out 未被写入
+        Assertions.assertArrayEquals(new double[3], out);
+
+        Assertions.assertThrows(IllegalArgumentException.class, () -> calculator.div(a, new int[]{1, 1}));
+        Assertions.assertThrows(IllegalArgumentException.class, () -> calculator.div(a, a, new double[2]));
+        MethodMetrics.Snapshot div = find(DeemoCalculator.DIV_BATCH);
+        Assertions.assertEquals(3, div.getCalls());
+        Assertions.assertEquals(3, div.getErrors());
+    }
+
+    private MethodMetrics.Snapshot find(String name) {
+        return metrics.snapshot().stream().filter(snapshot -> snapshot.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("no statistics for " + name));
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+}
@@ -0,0 +1,202 @@
+package com.deemo;
+
+import com.deemo.aspect.CoalesceAspect;
+import com.deemo.coalesce.Coalesce;
+import com.deemo.coalesce.InFlightTable;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class CoalesceAspectTest {
+    private static final int CALLERS = 64;
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private ExecutorService executor;
+    private SlowService service;
+    private InFlightTable inFlight;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(CoalesceConfig.class);
+        this.executor = Executors.newFixedThreadPool(CALLERS);
+        this.service = this.applicationContext.getBean("slowService", SlowService.class);
+        this.inFlight = this.applicationContext.getBean(CoalesceAspect.class).getInFlight();
+    }
+
+    @Test
+    public void shareResultTest() throws Exception {
+        List<Future<Object>> results = callConcurrently("hot-key");
+
+        // 所有调用方都挂在同一次执行上之后才放行
+        awaitCoalesced(CALLERS - 1);
+        Assertions.assertEquals(1, inFlight.getInFlight());
+        service.release();
+
+        Object first = results.get(0).get(10, TimeUnit.SECONDS);
+        for (Future<Object> result : results) {
+            Assertions.assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, service.getExecutions());
+        Assertions.assertEquals(1, inFlight.getExecutions());
+        Assertions.assertEquals(0, inFlight.getInFlight());
+
+        // 执行结束后不保留结果
+        service.resetRelease();
+        service.release();
+        Assertions.assertNotSame(first, service.load("hot-key"));
+        Assertions.assertEquals(2, service.getExecutions());
+    }
+
+    @Test
+    public void shareExceptionTest() throws Exception {
+        List<Future<Object>> results = callConcurrently("broken-key");
+        awaitCoalesced(CALLERS - 1);
+        service.release();
+
+        Throwable first = null;
+        for (Future<Object> result : results) {
+            try {
+                result.get(10, TimeUnit.SECONDS);
+                Assertions.fail("the shared execution should fail");
+            } catch (ExecutionException e) {
+                Assertions.assertTrue(e.getCause() instanceof IllegalStateException);
+                first = first == null ? e.getCause() : first;
+                Assertions.assertSame(first, e.getCause());
+            }
+        }
+        Assertions.assertEquals(1, service.getExecutions());
+    }
+
+    @Test
+    public void distinctKeysTest() throws Exception {
+        service.release();
+        List<Future<Object>> results = new ArrayList<>();
+        for (int i = 0; i < CALLERS; i++) {
+            String key = "key-" + i;
+            results.add(executor.submit(() -> service.load(key)));
+        }
+        for (int i = 0; i < CALLERS; i++) {
+            Assertions.assertEquals("value-of-key-" + i, results.get(i).get(10, TimeUnit.SECONDS).toString());
+        }
+        Assertions.assertEquals(CALLERS, service.getExecutions());
+        Assertions.assertEquals(0, inFlight.getCoalesced());
+    }
+
+    @Test
+    public void distinctTargetsTest() throws Exception {
+        SlowService other = this.applicationContext.getBean("otherSlowService", SlowService.class);
+        List<Future<Object>> results = callConcurrently(service, "same-key", CALLERS / 2);
+        List<Future<Object>> otherResults = callConcurrently(other, "same-key", CALLERS / 2);
+
+        // 参数相同，但不同实例各执行一次
+        awaitCoalesced(CALLERS - 2);
+        Assertions.assertEquals(2, inFlight.getInFlight());
+        service.release();
+        other.release();
+
+        Object first = results.get(0).get(10, TimeUnit.SECONDS);
+        Object otherFirst = otherResults.get(0).get(10, TimeUnit.SECONDS);
+        Assertions.assertNotSame(first, otherFirst);
+        for (Future<Object> result : results) {
+            Assertions.assertSame(first, result.get(10, TimeUnit.SECONDS));
+        }
+        for (Future<Object> result : otherResults) {
+            Assertions.assertSame(otherFirst, result.get(10, TimeUnit.SECONDS));
+        }
+        Assertions.assertEquals(1, service.getExecutions());
+        Assertions.assertEquals(1, other.getExecutions());
+        Assertions.assertEquals(2, inFlight.getExecutions());
+    }
+
+    private List<Future<Object>> callConcurrently(String key) {
+        return callConcurrently(service, key, CALLERS);
+    }
+
+    private List<Future<Object>> callConcurrently(SlowService target, String key, int callers) {
+        List<Future<Object>> results = new ArrayList<>(callers);
+        for (int i = 0; i < callers; i++) {
+            results.add(executor.submit(() -> target.load(key)));
+        }
+        return results;
+    }
+
+    private void awaitCoalesced(long coalesced) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (inFlight.getCoalesced() < coalesced && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        Assertions.assertEquals(coalesced, inFlight.getCoalesced());
+    }
+
+    @AfterEach
+    public void after() {
+        executor.shutdownNow();
+        applicationContext.close();
+    }
+
+    public static class SlowService {
+        private final AtomicInteger executions = new AtomicInteger();
+        private volatile CountDownLatch release = new CountDownLatch(1);
+
+        /**
+         * 在 release 之前一直阻塞，模拟缓存失效后的慢查询
+         */
+        @Coalesce
+        public Object load(String key) throws InterruptedException {
+            executions.incrementAndGet();
+            release.await();
+            if (key.startsWith("broken")) {
+                throw new IllegalStateException("failed to load " + key);
+            }
+            return new StringBuilder("value-of-").append(key);
+        }
+
+        public int getExecutions() {
+            return executions.get();
+        }
+
+        /**
+         * 通过方法访问：CGLIB 代理对象上的字段未初始化
+         */
+        public void release() {
+            release.countDown();
+        }
+
+        public void resetRelease() {
+            release = new CountDownLatch(1);
+        }
+    }
+
+    @EnableAspectJAutoProxy
+    static class CoalesceConfig {
+        @Bean
+        public SlowService slowService() {
+            return new SlowService();
+        }
+
+        @Bean
+        public SlowService otherSlowService() {
+            return new SlowService();
+        }
+
+        @Bean
+        public CoalesceAspect coalesceAspect() {
+            return new CoalesceAspect(16);
+        }
+    }
+
+}
@@ -0,0 +1,117 @@
+package com.deemo;
+
+import com.deemo.aspect.MemoizeAspect;
+import com.deemo.calculator.DeemoCalculator;
+import com.deemo.memoize.MemoCache;
+import com.deemo.memoize.Memoize;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class MemoizeAspectTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private MemoizeAspect memoizeAspect;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(App.class, MemoizeConfig.class);
+        this.memoizeAspect = this.applicationContext.getBean(MemoizeAspect.class);
+    }
+
+    @Test
+    public void primitiveKeyTest() throws Exception {
+        DeemoCalculator calculator = applicationContext.getBean(DeemoCalculator.class);
+        Assertions.assertEquals(0.5, calculator.div(2, 4));
+        Assertions.assertEquals(0.5, calculator.div(2, 4));
+        Assertions.assertEquals(-2.0, calculator.div(-4, 2));
+        Assertions.assertEquals(-0.5, calculator.div(2, -4));
+
+        // 异常不缓存，每次都重新执行
+        Assertions.assertThrows(RuntimeException.class, () -> calculator.div(2, 0));
+        Assertions.assertThrows(RuntimeException.class, () -> calculator.div(2, 0));
+
+        MemoCache cache = memoizeAspect.cacheFor(DeemoCalculator.class.getMethod("div", int.class, int.class));
+        Assertions.assertTrue(cache.isPrimitiveKey());
+        Assertions.assertEquals(1, cache.getHits());
+        Assertions.assertEquals(5, cache.getMisses());
+    }
+
+    @Test
+    public void evictionTest() throws Exception {
+        Squares squares = applicationContext.getBean(Squares.class);
+        for (int round = 0; round < 2; round++) {
+            for (long i = 0; i < 4; i++) {
+                Assertions.assertEquals(i * i, squares.square(i));
+            }
+        }
+        MemoCache longCache = memoizeAspect.cacheFor(Squares.class.getMethod("square", long.class));
+        Assertions.assertEquals(4, longCache.getCapacity());
+        Assertions.assertEquals(8, longCache.getHits() + longCache.getMisses());
+        // 直接映射：冲突的 key 互相覆盖，但结果总是正确的
+        Assertions.assertEquals(longCache.getMisses(), squares.getCalls());
+
+        squares.resetCalls();
+        Assertions.assertEquals("a-b", squares.join("a", "b"));
+        Assertions.assertEquals("b-c", squares.join("b", "c"));
+        Assertions.assertEquals("a-b", squares.join("a", "b"));
+        // 超过 2 个，淘汰最久未使用的 ("b", "c")
+        Assertions.assertEquals("c-d", squares.join("c", "d"));
+        Assertions.assertEquals("b-c", squares.join("b", "c"));
+        Assertions.assertNull(squares.join(null, "e"));
+        Assertions.assertNull(squares.join(null, "e"));
+
+        MemoCache objectCache = memoizeAspect.cacheFor(Squares.class.getMethod("join", String.class, String.class));
+        Assertions.assertFalse(objectCache.isPrimitiveKey());
+        Assertions.assertEquals(2, objectCache.getHits());
+        Assertions.assertEquals(5, squares.getCalls());
+        Assertions.assertEquals(3, objectCache.getEvictions());
+        Assertions.assertEquals("capacity=2, primitiveKey=false, hits=2, misses=5, evictions=3", objectCache.toString());
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+    public static class Squares {
+        private final AtomicInteger calls = new AtomicInteger();
+
+        /**
+         * 通过方法访问：CGLIB 代理对象上的字段未初始化
+         */
+        public int getCalls() {
+            return calls.get();
+        }
+
+        public void resetCalls() {
+            calls.set(0);
+        }
+
+        @Memoize(maxSize = 4)
+        public long square(long value) {
+            calls.incrementAndGet();
+            return value * value;
+        }
+
+        @Memoize(maxSize = 2)
+        public String join(String a, String b) {
+            calls.incrementAndGet();
+            return a == null ? null : a + "-" + b;
+        }
+    }
+
+    @EnableAspectJAutoProxy
+    static class MemoizeConfig {
+        @Bean
+        public Squares squares() {
+            return new Squares();
+        }
+    }
+
+}
@@ -0,0 +1,101 @@
+package com.deemo;
+
+import com.deemo.calculator.DeemoCalculator;
+import com.deemo.timing.LatencyHistogram;
+import com.deemo.timing.MethodMetrics;
+import com.deemo.timing.Timed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+public class TimedAspectTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private MethodMetrics metrics;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(App.class, TimedConfig.class);
+        this.metrics = this.applicationContext.getBean(MethodMetrics.class);
+    }
+
+    @Test
+    public void calculatorTest() {
+        DeemoCalculator calculator = applicationContext.getBean(DeemoCalculator.class);
+        Assertions.assertEquals(0.5, calculator.div(2, 4));
+        // 命中 @Memoize 缓存的调用同样计入
+        Assertions.assertEquals(0.5, calculator.div(2, 4));
+        Assertions.assertThrows(RuntimeException.class, () -> calculator.div(2, 0));
+
+        MethodMetrics.Snapshot div = find("DeemoCalculator#div");
+        Assertions.assertEquals(3, div.getCalls());
+        Assertions.assertEquals(1, div.getErrors());
+        Assertions.assertEquals(3, div.getLatency().getCount());
+    }
+
+    @Test
+    public void methodOverridesTypeTest() {
+        Clock clock = applicationContext.getBean(Clock.class);
+        clock.tick();
+        clock.tick();
+        clock.tock();
+        clock.quiet();
+
+        // 方法上的注解优先，且只计一次；非 public 方法不在类级注解的范围内
+        Assertions.assertEquals(2, find("Clock#tick").getCalls());
+        Assertions.assertEquals(1, find("clock.tock").getCalls());
+        Assertions.assertEquals(Arrays.asList("Clock#tick", "clock.tock"),
+                metrics.snapshot().stream().map(MethodMetrics.Snapshot::getName).collect(Collectors.toList()));
+    }
+
+    @Test
+    public void histogramTest() {
+        LatencyHistogram histogram = new LatencyHistogram();
+        for (long nanos = 1; nanos <= 1000; nanos++) {
+            histogram.record(nanos * 1000);
+        }
+        LatencyHistogram.Snapshot snapshot = histogram.snapshot();
+        Assertions.assertEquals(1000, snapshot.getCount());
+        Assertions.assertEquals(1_000_000, snapshot.getMax());
+        Assertions.assertEquals(500_500, snapshot.getMean(), 1);
+        // 每个 2 的幂区间 8 个桶，相对误差不超过 1/8
+        Assertions.assertEquals(500_000, snapshot.getPercentile(50), 500_000 / 8.0);
+        Assertions.assertEquals(990_000, snapshot.getPercentile(99), 990_000 / 8.0);
+    }
+
+    private MethodMetrics.Snapshot find(String name) {
+        return metrics.snapshot().stream().filter(snapshot -> snapshot.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("no statistics for " + name));
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+    static class TimedConfig {
+        @Bean
+        public Clock clock() {
+            return new Clock();
+        }
+    }
+
+    @Timed
+    public static class Clock {
+        public void tick() {
+        }
+
+        @Timed("clock.tock")
+        public void tock() {
+        }
+
+        protected void quiet() {
+        }
+    }
+
+}
@@ -1,46 +1,80 @@
 package com.deemo;
 
-import com.deemo.aspect.LogAspect;
-import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.deemo.condition.ShardingCondition;
+import com.deemo.config.ProxyModeConfig;
+import com.deemo.config.WeavingModeConfig;
+import com.deemo.dao.InsertMode;
+import com.deemo.dao.ShardedGameDao;
+import com.deemo.datasource.InstrumentedDataSource;
+import com.deemo.datasource.InstrumentedTransactionManager;
+import com.deemo.datasource.PoolProperties;
+import com.deemo.datasource.ReadWriteRoutingDataSource;
+import com.deemo.datasource.StatementMetrics;
+import com.deemo.datasource.TimingDataSource;
+import com.deemo.datasource.TransactionMetrics;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.Conditional;
 import org.springframework.context.annotation.Configuration;
-import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.EnableMBeanExport;
+import org.springframework.context.annotation.PropertySource;
 import org.springframework.jdbc.core.JdbcTemplate;
 import org.springframework.jdbc.datasource.DataSourceTransactionManager;
 import org.springframework.transaction.PlatformTransactionManager;
-import org.springframework.transaction.annotation.EnableTransactionManagement;
 
 import javax.sql.DataSource;
-import java.beans.PropertyVetoException;
+import java.util.ArrayList;
+import java.util.List;
 
 /**
  * Hello world!
+ * <p>
+ * 切面与事务默认使用 Spring AOP 代理（{@link ProxyModeConfig}）；
+ * 以 -javaagent:aspectjweaver.jar -Dspring.profiles.active=ltw 启动时全部改为加载期织入（{@link WeavingModeConfig}）。
  */
 @Configuration
 @ComponentScan("com.deemo")
-@EnableTransactionManagement
-@EnableAspectJAutoProxy
+@EnableMBeanExport
+@PropertySource({"classpath:game.properties", "classpath:jdbc.properties"})
 public class App {
 
     public static void main(String[] args) {
         System.out.println("Hello World!");
     }
 
+    /**
+     * 连接池实现与大小见 jdbc.properties，统计信息见 {@link InstrumentedDataSource#getMetrics()}；
+     * 配置了 jdbc.replica.url 时，只读事务路由到从库；语句耗时统计见 {@link StatementMetrics}（JMX: com.deemo:type=StatementMetrics）
+     */
     @Bean
-    public LogAspect logAspect() {
-        return new LogAspect();
+    public DataSource dataSource(PoolProperties poolProperties, StatementMetrics statementMetrics,
+                                 @Value("${jdbc.statement-metrics.enabled:true}") boolean statementMetricsEnabled) {
+        DataSource dataSource = InstrumentedDataSource.create(poolProperties);
+        if (poolProperties.hasReplica()) {
+            dataSource = new ReadWriteRoutingDataSource(dataSource, InstrumentedDataSource.create(poolProperties.forReplica()));
+        }
+        return statementMetricsEnabled ? new TimingDataSource(dataSource, statementMetrics) : dataSource;
     }
 
+    /**
+     * 配置了 jdbc.shard.urls 时，按 game name 哈希分片；各分片沿用主库的连接池配置
+     */
     @Bean
-    public DataSource dataSource() throws PropertyVetoException {
-        ComboPooledDataSource dataSource = new ComboPooledDataSource();
-        dataSource.setUser("root");
-        dataSource.setPassword("tlh520..");
-        dataSource.setDriverClass("com.mysql.cj.jdbc.Driver");
-        dataSource.setJdbcUrl("jdbc:mysql://10.10.20.80:3306/my_steam?useUnicode=true&characterEncoding=utf-8&zeroDateTimeBehavior=convertToNull&allowMultiQueries=true&autoReconnect=true&autoReconnectForPools=true&tinyInt1isBit=false&useSSL=false");
-
-        return dataSource;
+    @Conditional(ShardingCondition.class)
+    public ShardedGameDao shardedGameDao(PoolProperties poolProperties,
+                                         @Value("${jdbc.shard.urls}") String[] shardUrls,
+                                         @Value("${game.batch.chunk-size:500}") int chunkSize,
+                                         @Value("${game.insert.mode:BATCH}") InsertMode insertMode,
+                                         @Value("${game.insert.multi-values.max-rows:1000}") int maxRowsPerStatement,
+                                         @Value("${game.insert.multi-values.max-bytes:1048576}") int maxBytesPerStatement,
+                                         @Value("${game.insert.deferred:false}") boolean deferred,
+                                         @Value("${game.insert.upsert:false}") boolean upsert) {
+        List<DataSource> shards = new ArrayList<>(shardUrls.length);
+        for (String shardUrl : shardUrls) {
+            shards.add(InstrumentedDataSource.create(poolProperties.forShard(shardUrl.trim())));
+        }
+        return new ShardedGameDao(shards, chunkSize, insertMode, maxRowsPerStatement, maxBytesPerStatement, deferred, upsert);
     }
 
     @Bean
@@ -48,9 +82,16 @@ public class App {
         return new JdbcTemplate(dataSource);
     }
 
+    /**
+     * 事务统计见 JMX com.deemo:type=TransactionMetrics
+     */
     @Bean
-    public PlatformTransactionManager platformTransactionManager(DataSource dataSource) {
-        return new DataSourceTransactionManager(dataSource);
+    public PlatformTransactionManager platformTransactionManager(DataSource dataSource,
+                                                                 TransactionMetrics transactionMetrics,
+                                                                 @Value("${jdbc.transaction-metrics.enabled:true}") boolean enabled,
+                                                                 @Value("${jdbc.transaction-metrics.slow-threshold-ms:1000}") long slowThresholdMillis) {
+        return enabled ? new InstrumentedTransactionManager(dataSource, transactionMetrics, slowThresholdMillis)
+                : new DataSourceTransactionManager(dataSource);
     }
 
 }
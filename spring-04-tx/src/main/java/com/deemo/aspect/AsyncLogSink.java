@@ -0,0 +1,236 @@
+package com.deemo.aspect;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 切面用的异步日志：调用线程只把 [方法 id, 时间戳, 类型, 对象引用] 写进预分配的环形缓冲区，
+ * 由后台线程交给 {@link Handler} 格式化并输出，调用线程上没有字符串拼接和 I/O。
+ * <p>
+ * 多生产者单消费者、无锁：生产者 CAS 推进 tail 领取槽位，写完字段后按序号发布该槽位；
+ * 消费者按 head 顺序读取已发布的槽位。缓冲区满时按 {@link OverflowPolicy} 丢弃或等待。
+ * <p>
+ * 关闭时把 tail 的最高位置为 {@link #CLOSED}：之后生产者的 CAS 必然失败、不再领取槽位，
+ * 消费者写完关闭前已领取的所有槽位才退出，已计入 published 的记录不会丢。
+ */
+@Slf4j
+public class AsyncLogSink implements AutoCloseable {
+    /**
+     * 缓冲区为空时消费者的休眠时间
+     */
+    private static final long IDLE_NANOS = TimeUnit.MILLISECONDS.toNanos(1);
+    /**
+     * BLOCK 策略下生产者每次等待的时间
+     */
+    private static final long BLOCK_NANOS = TimeUnit.MICROSECONDS.toNanos(50);
+    /**
+     * tail 的关闭标记，其余位仍是下一个待领取的序号
+     */
+    private static final long CLOSED = Long.MIN_VALUE;
+
+    private final int mask;
+    private final OverflowPolicy overflow;
+    private final Handler handler;
+
+    /**
+     * 槽位字段，按 index 访问；sequences[index] 等于槽位序号时表示已发布
+     */
+    private final int[] methodIds;
+    private final long[] timestamps;
+    private final Kind[] kinds;
+    private final Object[] values;
+    private final AtomicLongArray sequences;
+
+    private final AtomicLong tail = new AtomicLong();
+    private final AtomicLong head = new AtomicLong();
+    private final List<String> methodNames = new CopyOnWriteArrayList<>();
+
+    private final LongAdder published = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder blocked = new LongAdder();
+
+    private final Thread writer;
+
+    public AsyncLogSink(int capacity, OverflowPolicy overflow, Handler handler) {
+        if (capacity <= 0 || Integer.bitCount(capacity) != 1) {
+            throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+        }
+        this.mask = capacity - 1;
+        this.overflow = overflow;
+        this.handler = handler;
+        this.methodIds = new int[capacity];
+        this.timestamps = new long[capacity];
+        this.kinds = new Kind[capacity];
+        this.values = new Object[capacity];
+        this.sequences = new AtomicLongArray(capacity);
+        for (int i = 0; i < capacity; i++) {
+            sequences.set(i, -1);
+        }
+        this.writer = new Thread(this::drain, "async-log-writer");
+        this.writer.setDaemon(true);
+        this.writer.start();
+    }
+
+    /**
+     * 登记方法名，返回用于 {@link #publish} 的 id；调用方应自行缓存
+     */
+    public synchronized int register(String methodName) {
+        methodNames.add(methodName);
+        return methodNames.size() - 1;
+    }
+
+    /**
+     * 写入一条记录，value 只保存引用，由后台线程格式化
+     *
+     * @return 缓冲区满且策略为 DROP，或已关闭时返回 false
+     */
+    public boolean publish(int methodId, Kind kind, Object value) {
+        long sequence;
+        boolean waited = false;
+        while (true) {
+            sequence = tail.get();
+            if ((sequence & CLOSED) != 0) {
+                dropped.increment();
+                return false;
+            }
+            if (sequence - head.get() > mask) {
+                if (overflow == OverflowPolicy.DROP) {
+                    dropped.increment();
+                    return false;
+                }
+                if (!waited) {
+                    waited = true;
+                    blocked.increment();
+                }
+                LockSupport.parkNanos(this, BLOCK_NANOS);
+                continue;
+            }
+            if (tail.compareAndSet(sequence, sequence + 1)) {
+                break;
+            }
+        }
+        int index = (int) sequence & mask;
+        methodIds[index] = methodId;
+        timestamps[index] = System.currentTimeMillis();
+        kinds[index] = kind;
+        values[index] = value;
+        // 有序写：之前的字段写入对读到该序号的消费者可见
+        sequences.lazySet(index, sequence);
+        published.increment();
+        return true;
+    }
+
+    public int getCapacity() {
+        return mask + 1;
+    }
+
+    public long getPublished() {
+        return published.sum();
+    }
+
+    /**
+     * 因缓冲区满（DROP）或已关闭而丢弃的记录数
+     */
+    public long getDropped() {
+        return dropped.sum();
+    }
+
+    /**
+     * 因缓冲区满（BLOCK）而等待过的写入次数
+     */
+    public long getBlocked() {
+        return blocked.sum();
+    }
+
+    /**
+     * 尚未输出的记录数
+     */
+    public long getPending() {
+        return Math.max(0, (tail.get() & ~CLOSED) - head.get());
+    }
+
+    private void drain() {
+        while (true) {
+            long next = head.get();
+            int index = (int) next & mask;
+            if (sequences.get(index) != next) {
+                // 关闭后不会再有新的槽位被领取，已领取的都写完才退出
+                if (tail.get() == (next | CLOSED)) {
+                    return;
+                }
+                LockSupport.parkNanos(this, IDLE_NANOS);
+                continue;
+            }
+            int methodId = methodIds[index];
+            long timestamp = timestamps[index];
+            Kind kind = kinds[index];
+            Object value = values[index];
+            // 释放引用，避免缓冲区拖住返回值
+            values[index] = null;
+            head.lazySet(next + 1);
+            try {
+                handler.handle(methodNames.get(methodId), kind, timestamp, value);
+            } catch (RuntimeException e) {
+                log.warn("failed to write a {} record of {}.", kind, methodNames.get(methodId), e);
+            }
+        }
+    }
+
+    /**
+     * 停止接收新记录，等待已写入的记录输出完毕
+     */
+    @Override
+    public void close() throws InterruptedException {
+        long current;
+        do {
+            current = tail.get();
+        } while ((current & CLOSED) == 0 && !tail.compareAndSet(current, current | CLOSED));
+        LockSupport.unpark(writer);
+        writer.join(TimeUnit.SECONDS.toMillis(10));
+    }
+
+    public enum Kind {
+        /**
+         * value 为参数数组
+         */
+        BEFORE,
+        /**
+         * value 为返回值
+         */
+        RETURNING,
+        /**
+         * value 为抛出的异常
+         */
+        THROWING
+    }
+
+    /**
+     * 缓冲区满时的处理方式
+     */
+    public enum OverflowPolicy {
+        /**
+         * 丢弃本条记录并计数，调用线程不等待
+         */
+        DROP,
+        /**
+         * 调用线程等待消费者腾出槽位，不丢日志
+         */
+        BLOCK
+    }
+
+    /**
+     * 在后台线程上输出一条记录
+     */
+    @FunctionalInterface
+    public interface Handler {
+        void handle(String methodName, Kind kind, long timestamp, Object value);
+    }
+
+}
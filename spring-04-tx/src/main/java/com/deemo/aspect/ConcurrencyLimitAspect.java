@@ -0,0 +1,94 @@
+package com.deemo.aspect;
+
+import com.deemo.limit.AdaptiveLimiter;
+import com.deemo.limit.ConcurrencyLimit;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
+import org.springframework.util.ReflectionUtils;
+
+import java.lang.reflect.Method;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.StringJoiner;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * {@link ConcurrencyLimit} 方法的自适应限流，每个方法一个 {@link AdaptiveLimiter}，名为 类名#方法名，
+ * 有重载时带上参数类型。重载之间不共用额度：织入模式下自调用的重载也会经过本切面，共用额度会让一次调用获取两次，
+ * 额度退到 1 时内层调用总被拒绝。
+ * <p>
+ * 排在事务切面之外：被拒绝的调用不会开启事务、不占用连接；排在 {@link TimedAspect} 之内，被拒绝的调用计入错误数。
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 3)
+public class ConcurrencyLimitAspect {
+    private final Map<Method, AdaptiveLimiter> byMethod = new ConcurrentHashMap<>();
+    private final Map<String, AdaptiveLimiter> byName = new ConcurrentHashMap<>();
+
+    @Around(value = "execution(* *(..)) && @annotation(limit)", argNames = "point,limit")
+    public Object limit(ProceedingJoinPoint point, ConcurrencyLimit limit) throws Throwable {
+        AdaptiveLimiter limiter = this.getLimiter(point, limit);
+        int inFlight = limiter.acquire();
+        long start = System.nanoTime();
+        try {
+            return point.proceed();
+        } finally {
+            limiter.release(System.nanoTime() - start, inFlight);
+        }
+    }
+
+    public AdaptiveLimiter limiterFor(String name) {
+        return byName.get(name);
+    }
+
+    public List<AdaptiveLimiter> getLimiters() {
+        List<AdaptiveLimiter> limiters = new ArrayList<>(byName.values());
+        limiters.sort(Comparator.comparing(AdaptiveLimiter::getName));
+        return limiters;
+    }
+
+    /**
+     * 丢弃所有限流器，之后的调用按注解的初始额度重新开始
+     */
+    public void reset() {
+        byMethod.clear();
+        byName.clear();
+    }
+
+    private AdaptiveLimiter getLimiter(ProceedingJoinPoint point, ConcurrencyLimit limit) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        AdaptiveLimiter limiter = byMethod.get(method);
+        if (limiter == null) {
+            // 织入模式下静态方法没有 target，退回声明方法的类
+            Object target = point.getTarget();
+            String name = nameOf(target != null ? ClassUtils.getUserClass(target) : method.getDeclaringClass(), method);
+            limiter = byMethod.computeIfAbsent(method, key -> byName.computeIfAbsent(name, n -> AdaptiveLimiter.of(n, limit)));
+        }
+        return limiter;
+    }
+
+    private static String nameOf(Class<?> type, Method method) {
+        String name = type.getSimpleName() + "#" + method.getName();
+        int overloads = 0;
+        for (Method candidate : ReflectionUtils.getUniqueDeclaredMethods(type)) {
+            if (candidate.getName().equals(method.getName())) {
+                overloads++;
+            }
+        }
+        if (overloads <= 1) {
+            return name;
+        }
+        StringJoiner parameters = new StringJoiner(",", "(", ")");
+        for (Class<?> parameter : method.getParameterTypes()) {
+            parameters.add(parameter.getSimpleName());
+        }
+        return name + parameters;
+    }
+}
@@ -1,40 +1,169 @@
 package com.deemo.aspect;
 
 import lombok.extern.slf4j.Slf4j;
-import org.aspectj.lang.JoinPoint;
+import org.aspectj.lang.ProceedingJoinPoint;
 import org.aspectj.lang.annotation.*;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.beans.factory.DisposableBean;
+
+import java.lang.reflect.Method;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.time.format.DateTimeFormatter;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 @Slf4j
 // 告诉 Spring 是一个 Aspect 类
 @Aspect
-public class LogAspect {
+public class LogAspect implements DisposableBean {
+    private static final DateTimeFormatter TIME_FORMAT = DateTimeFormatter.ofPattern("HH:mm:ss.SSS").withZone(ZoneId.systemDefault());
+
+    /**
+     * 方法全名按 Method 缓存，只在第一次记录日志时拼接
+     */
+    private final Map<Method, String> methodNames = new ConcurrentHashMap<>();
+    /**
+     * 异步模式下方法在 sink 中的 id
+     */
+    private final Map<Method, Integer> methodIds = new ConcurrentHashMap<>();
+    /**
+     * 每 sampleRate 次调用（随机）记录一次，1 表示每次都记录
+     */
+    private final int sampleRate;
+    /**
+     * 不为 null 时，调用线程只写环形缓冲区，日志由后台线程输出
+     */
+    private final AsyncLogSink sink;
+
+    public LogAspect() {
+        this(1);
+    }
+
+    public LogAspect(int sampleRate) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate must be positive!");
+        }
+        this.sampleRate = sampleRate;
+        this.sink = null;
+    }
+
+    /**
+     * 异步模式，capacity 须为 2 的幂
+     */
+    public LogAspect(int sampleRate, int capacity, AsyncLogSink.OverflowPolicy overflow) {
+        if (sampleRate <= 0) {
+            throw new IllegalArgumentException("sample rate must be positive!");
+        }
+        this.sampleRate = sampleRate;
+        this.sink = new AsyncLogSink(capacity, overflow, this::write);
+    }
+
     /**
      * 抽取公共切入点
      */
     @Pointcut("execution(public * com.deemo.service.impl.GameService.*(..))")
     public void pointCut() {}
 
-    @Before("pointCut()")
-    public void before(JoinPoint point) {
-        log.info("Method: {} before exec, the args are: {}.", this.getFullMethodName(point), point.getArgs());
+    /**
+     * 原来的 @Before / @After / @AfterReturning / @AfterThrowing 合并为一个环绕通知，日志顺序不变。
+     * INFO 未开启或未被采样时直接放行，不取签名、不复制参数数组。
+     */
+    @Around("pointCut()")
+    public Object around(ProceedingJoinPoint point) throws Throwable {
+        if (!log.isInfoEnabled() || !sampled()) {
+            return point.proceed();
+        }
+        if (sink != null) {
+            return this.aroundAsync(point);
+        }
+
+        String methodName = this.getFullMethodName(point);
+        log.info("Method: {} before exec, the args are: {}.", methodName, point.getArgs());
+        Object result;
+        try {
+            result = point.proceed();
+        } catch (Throwable e) {
+            log.info("Method: {} after exec...", methodName);
+            log.info("Method: {} after throwing, the exception is: {}!", methodName, e);
+            throw e;
+        }
+        log.info("Method: {} after exec...", methodName);
+        log.info("Method: {} after returning, the return is: {}.", methodName, result);
+        return result;
+    }
+
+    private Object aroundAsync(ProceedingJoinPoint point) throws Throwable {
+        int methodId = this.getMethodId(point);
+        sink.publish(methodId, AsyncLogSink.Kind.BEFORE, point.getArgs());
+        Object result;
+        try {
+            result = point.proceed();
+        } catch (Throwable e) {
+            sink.publish(methodId, AsyncLogSink.Kind.THROWING, e);
+            throw e;
+        }
+        sink.publish(methodId, AsyncLogSink.Kind.RETURNING, result);
+        return result;
+    }
+
+    /**
+     * 异步模式在后台线程上输出，内容与同步模式相同，另外带上调用发生的时间
+     */
+    private void write(String methodName, AsyncLogSink.Kind kind, long timestamp, Object value) {
+        String time = TIME_FORMAT.format(Instant.ofEpochMilli(timestamp));
+        switch (kind) {
+            case BEFORE:
+                log.info("[{}] Method: {} before exec, the args are: {}.", time, methodName, value);
+                break;
+            case RETURNING:
+                log.info("[{}] Method: {} after exec...", time, methodName);
+                log.info("[{}] Method: {} after returning, the return is: {}.", time, methodName, value);
+                break;
+            default:
+                log.info("[{}] Method: {} after exec...", time, methodName);
+                log.info("[{}] Method: {} after throwing, the exception is: {}!", time, methodName, value);
+        }
+    }
+
+    public int getSampleRate() {
+        return sampleRate;
+    }
+
+    /**
+     * 同步模式下为 null
+     */
+    public AsyncLogSink getSink() {
+        return sink;
     }
 
-    @After("pointCut()")
-    public void after(JoinPoint point) {
-        log.info("Method: {} after exec...", this.getFullMethodName(point));
+    @Override
+    public void destroy() throws Exception {
+        if (sink != null) {
+            sink.close();
+        }
     }
 
-    @AfterReturning(value = "pointCut()", returning = "result")
-    public void afterReturning(JoinPoint point, Object result) {
-        log.info("Method: {} after returning, the return is: {}.", this.getFullMethodName(point), result);
+    private boolean sampled() {
+        return sampleRate == 1 || ThreadLocalRandom.current().nextInt(sampleRate) == 0;
     }
 
-    @AfterThrowing(value = "pointCut()", throwing = "e")
-    public void afterThrowing(JoinPoint point, Exception e) {
-        log.info("Method: {} after throwing, the exception is: {}!", this.getFullMethodName(point), e);
+    private String getFullMethodName(ProceedingJoinPoint point) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        String name = methodNames.get(method);
+        if (name == null) {
+            name = methodNames.computeIfAbsent(method, key -> point.getSignature().getDeclaringTypeName() + "#" + key.getName());
+        }
+        return name;
     }
 
-    private String getFullMethodName(JoinPoint point) {
-        return point.getSignature().getDeclaringTypeName() + "#" + point.getSignature().getName();
+    private int getMethodId(ProceedingJoinPoint point) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        Integer id = methodIds.get(method);
+        if (id == null) {
+            id = methodIds.computeIfAbsent(method, key -> sink.register(this.getFullMethodName(point)));
+        }
+        return id;
     }
 }
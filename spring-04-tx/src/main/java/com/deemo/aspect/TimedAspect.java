@@ -0,0 +1,86 @@
+package com.deemo.aspect;
+
+import com.deemo.metrics.MethodMetrics;
+import com.deemo.metrics.Timed;
+import org.aspectj.lang.ProceedingJoinPoint;
+import org.aspectj.lang.annotation.Around;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.reflect.MethodSignature;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+import org.springframework.util.ClassUtils;
+
+import java.lang.reflect.Method;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * 统计 {@link Timed} 方法的耗时。切点直接绑定注解，没有 @Timed 的方法在创建代理时就被排除，调用时没有任何开销。
+ * <p>
+ * 排在事务等其他切面之外，耗时包含事务的开启与提交；但要在 ExposeInvocationInterceptor（HIGHEST_PRECEDENCE + 1）之后，
+ * 否则拿不到绑定的注解参数。
+ */
+@Aspect
+@Order(Ordered.HIGHEST_PRECEDENCE + 2)
+public class TimedAspect {
+    private final MethodMetrics metrics;
+    /**
+     * 统计名按 Method 缓存
+     */
+    private final Map<Method, String> names = new ConcurrentHashMap<>();
+
+    /**
+     * 加载期织入时由 AspectJ 创建，统计记在自带的 {@link MethodMetrics} 上，见 {@link com.deemo.config.WeavingModeConfig}
+     */
+    public TimedAspect() {
+        this(new MethodMetrics());
+    }
+
+    public TimedAspect(MethodMetrics metrics) {
+        this.metrics = metrics;
+    }
+
+    public MethodMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Around(value = "execution(* *(..)) && @annotation(timed)", argNames = "point,timed")
+    public Object timedMethod(ProceedingJoinPoint point, Timed timed) throws Throwable {
+        return this.time(point, timed);
+    }
+
+    @Around(value = "execution(public * *(..)) && @within(timed) && !@annotation(com.deemo.metrics.Timed)", argNames = "point,timed")
+    public Object timedType(ProceedingJoinPoint point, Timed timed) throws Throwable {
+        return this.time(point, timed);
+    }
+
+    private Object time(ProceedingJoinPoint point, Timed timed) throws Throwable {
+        long start = System.nanoTime();
+        boolean failed = true;
+        try {
+            Object result = point.proceed();
+            failed = false;
+            return result;
+        } finally {
+            metrics.statsFor(this.getName(point, timed)).record(System.nanoTime() - start, failed);
+        }
+    }
+
+    private String getName(ProceedingJoinPoint point, Timed timed) {
+        Method method = ((MethodSignature) point.getSignature()).getMethod();
+        String name = names.get(method);
+        if (name == null) {
+            name = names.computeIfAbsent(method, key -> timed.value().isEmpty()
+                    ? targetClass(point).getSimpleName() + "#" + key.getName() : timed.value());
+        }
+        return name;
+    }
+
+    /**
+     * 织入模式下静态方法没有 target，退回声明方法的类
+     */
+    private static Class<?> targetClass(ProceedingJoinPoint point) {
+        Object target = point.getTarget();
+        return target != null ? ClassUtils.getUserClass(target) : point.getSignature().getDeclaringType();
+    }
+}
@@ -0,0 +1,34 @@
+package com.deemo.aspect;
+
+import com.deemo.datasource.InstrumentedTransactionManager;
+import org.aspectj.lang.annotation.AfterThrowing;
+import org.aspectj.lang.annotation.Aspect;
+import org.aspectj.lang.annotation.Pointcut;
+import org.springframework.core.Ordered;
+import org.springframework.core.annotation.Order;
+
+/**
+ * 把 @Transactional 方法抛出的异常交给 {@link InstrumentedTransactionManager}，用于按异常类型统计回滚。
+ * <p>
+ * 必须在事务拦截器内层执行（此时事务尚未回滚），因此事务 advisor 的 order 要小于本切面，见 {@link #TRANSACTION_ADVISOR_ORDER}；
+ * 加载期织入时的顺序见 META-INF/aop.xml。
+ */
+@Aspect
+@Order(Ordered.LOWEST_PRECEDENCE)
+public class TransactionMetricsAspect {
+    /**
+     * 供 @EnableTransactionManagement(order = ...) 使用
+     */
+    public static final int TRANSACTION_ADVISOR_ORDER = Ordered.LOWEST_PRECEDENCE - 1;
+
+    /**
+     * 限定 execution：加载期织入时 @within 还会匹配方法内的调用、字段访问等连接点
+     */
+    @Pointcut("execution(* *(..)) && (@within(org.springframework.transaction.annotation.Transactional) || @annotation(org.springframework.transaction.annotation.Transactional))")
+    public void transactional() {}
+
+    @AfterThrowing(value = "transactional()", throwing = "e")
+    public void afterThrowing(Throwable e) {
+        InstrumentedTransactionManager.recordFailure(e);
+    }
+}
@@ -0,0 +1,344 @@
+package com.deemo.catalog;
+
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import com.deemo.event.GameCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.DoubleBuffer;
+import java.nio.IntBuffer;
+import java.util.Collection;
+
+/**
+ * game 表的内存列式副本，用于高频的价格区间查询。
+ * <ul>
+ *     <li>price 列、name 编码列放在直接内存中，不占堆也不参与 GC 扫描</li>
+ *     <li>name 字典编码，相同名称只存一份 UTF-8 字节</li>
+ *     <li>按价格排序的行号索引 = 主段 + 增量段，增量段超过阈值后合并进主段</li>
+ * </ul>
+ * 所有只读数据都挂在一个不可变的 {@link State} 上，通过 volatile 发布：读线程不加锁、不分配对象；
+ * 写入（全量加载、提交后的增量刷新）串行执行，完成后整体替换 State。
+ * <p>
+ * 增量刷新依赖 {@link GameCreatedEvent}：只在事务提交后追加，回滚的写入不会进入目录。
+ * 数据库 insert 不回传自增主键，因此目录只以行号标识记录，不保存 id。
+ */
+@Slf4j
+@Component
+public class GameCatalog implements InitializingBean {
+    private final GameDao gameDao;
+    private final TransactionTemplate transactionTemplate;
+    private final boolean enabled;
+    private final int fetchSize;
+    private final int mergeThreshold;
+
+    private final Object writeLock = new Object();
+    private NameDictionary names = new NameDictionary();
+    private volatile State state = State.empty(names);
+
+    public GameCatalog(GameDao gameDao,
+                       PlatformTransactionManager transactionManager,
+                       @Value("${game.catalog.enabled:false}") boolean enabled,
+                       @Value("${game.catalog.fetch-size:1000}") int fetchSize,
+                       @Value("${game.catalog.merge-threshold:4096}") int mergeThreshold) {
+        this.gameDao = gameDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.enabled = enabled;
+        this.fetchSize = fetchSize;
+        this.mergeThreshold = mergeThreshold;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            reload();
+        }
+    }
+
+    /**
+     * 从数据库全量重建目录，期间读线程继续读旧的 State
+     */
+    public void reload() {
+        synchronized (writeLock) {
+            long start = System.nanoTime();
+            NameDictionary dictionary = new NameDictionary();
+            Columns[] loading = {new Columns(Math.max(16, state.size))};
+            Long rows = transactionTemplate.execute(status -> gameDao.scan(fetchSize, game -> {
+                loading[0] = loading[0].ensureCapacity(loading[0].size + 1);
+                loading[0].add(game, dictionary);
+            }));
+            Columns columns = loading[0];
+
+            int[] sorted = new int[columns.size];
+            for (int i = 0; i < sorted.length; i++) {
+                sorted[i] = i;
+            }
+            sortByPrice(sorted, sorted.length, columns.prices);
+
+            this.names = dictionary;
+            this.state = new State(columns, dictionary.view(), sorted, sorted.length, State.NO_ROWS, 0);
+            log.info("game catalog loaded {} games ({} distinct names) in {} ms.",
+                    rows == null ? 0 : rows, dictionary.size(), (System.nanoTime() - start) / 1_000_000);
+        }
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameCreated(GameCreatedEvent event) {
+        if (enabled) {
+            append(event.getGames());
+        }
+    }
+
+    /**
+     * 追加已提交的行：新行号排好序后与增量段合并，增量段过大时再并入主段
+     */
+    public void append(Collection<Game> games) {
+        if (games.isEmpty()) {
+            return;
+        }
+        synchronized (writeLock) {
+            State current = this.state;
+            Columns columns = current.columns.ensureCapacity(current.size + games.size());
+            int first = current.size;
+            // 上次追加若中途失败，丢弃 State 之外残留的行
+            columns.size = first;
+            for (Game game : games) {
+                columns.add(game, names);
+            }
+
+            int added = columns.size - first;
+            int[] rows = new int[added];
+            for (int i = 0; i < added; i++) {
+                rows[i] = first + i;
+            }
+            sortByPrice(rows, added, columns.prices);
+            int[] delta = merge(current.delta, current.deltaSize, rows, added, columns.prices);
+            int deltaSize = current.deltaSize + added;
+
+            if (deltaSize > mergeThreshold) {
+                int[] sorted = merge(current.sorted, current.sortedSize, delta, deltaSize, columns.prices);
+                this.state = new State(columns, names.view(), sorted, current.sortedSize + deltaSize, State.NO_ROWS, 0);
+            } else {
+                this.state = new State(columns, names.view(), current.sorted, current.sortedSize, delta, deltaSize);
+            }
+        }
+    }
+
+    public int size() {
+        return state.size;
+    }
+
+    /**
+     * 价格在 [min, max] 内的行数，只做四次二分查找
+     */
+    public int countByPriceBetween(double min, double max) {
+        State current = this.state;
+        DoubleBuffer prices = current.columns.prices;
+        return upperBound(current.sorted, current.sortedSize, prices, max) - lowerBound(current.sorted, current.sortedSize, prices, min)
+                + upperBound(current.delta, current.deltaSize, prices, max) - lowerBound(current.delta, current.deltaSize, prices, min);
+    }
+
+    /**
+     * 按价格升序回调 [min, max] 内的行，同价格时主段在前；遍历过程不分配对象
+     *
+     * @return 回调的行数
+     */
+    public int forEachByPriceBetween(double min, double max, RowVisitor visitor) {
+        State current = this.state;
+        DoubleBuffer prices = current.columns.prices;
+        int i = lowerBound(current.sorted, current.sortedSize, prices, min);
+        int mainEnd = upperBound(current.sorted, current.sortedSize, prices, max);
+        int j = lowerBound(current.delta, current.deltaSize, prices, min);
+        int deltaEnd = upperBound(current.delta, current.deltaSize, prices, max);
+        int visited = 0;
+        while (i < mainEnd || j < deltaEnd) {
+            int row;
+            if (j >= deltaEnd || (i < mainEnd && prices.get(current.sorted[i]) <= prices.get(current.delta[j]))) {
+                row = current.sorted[i++];
+            } else {
+                row = current.delta[j++];
+            }
+            visitor.visit(row, prices.get(row));
+            visited++;
+        }
+        return visited;
+    }
+
+    public double price(int row) {
+        State current = this.state;
+        checkRow(current, row);
+        return current.columns.prices.get(row);
+    }
+
+    public String name(int row) {
+        State current = this.state;
+        checkRow(current, row);
+        return current.names.decode(current.columns.nameCodes.get(row));
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    private static void checkRow(State state, int row) {
+        if (row < 0 || row >= state.size) {
+            throw new IndexOutOfBoundsException("row: " + row + ", size: " + state.size);
+        }
+    }
+
+    /**
+     * 第一个价格 >= min 的位置
+     */
+    private static int lowerBound(int[] index, int size, DoubleBuffer prices, double min) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices.get(index[mid]) < min) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 第一个价格 > max 的位置
+     */
+    private static int upperBound(int[] index, int size, DoubleBuffer prices, double max) {
+        int low = 0;
+        int high = size;
+        while (low < high) {
+            int mid = (low + high) >>> 1;
+            if (prices.get(index[mid]) <= max) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * 按价格稳定排序行号（自底向上归并），避免 Integer 装箱
+     */
+    private static void sortByPrice(int[] rows, int size, DoubleBuffer prices) {
+        int[] src = rows;
+        int[] dst = new int[size];
+        for (int width = 1; width < size; width <<= 1) {
+            for (int low = 0; low < size; low += width << 1) {
+                int mid = Math.min(low + width, size);
+                int high = Math.min(low + (width << 1), size);
+                mergeInto(src, low, mid, src, mid, high, dst, low, prices);
+            }
+            int[] swap = src;
+            src = dst;
+            dst = swap;
+        }
+        if (src != rows) {
+            System.arraycopy(src, 0, rows, 0, size);
+        }
+    }
+
+    private static int[] merge(int[] left, int leftSize, int[] right, int rightSize, DoubleBuffer prices) {
+        int[] merged = new int[leftSize + rightSize];
+        mergeInto(left, 0, leftSize, right, 0, rightSize, merged, 0, prices);
+        return merged;
+    }
+
+    private static void mergeInto(int[] left, int i, int leftEnd, int[] right, int j, int rightEnd,
+                                  int[] target, int k, DoubleBuffer prices) {
+        while (i < leftEnd && j < rightEnd) {
+            target[k++] = prices.get(right[j]) < prices.get(left[i]) ? right[j++] : left[i++];
+        }
+        while (i < leftEnd) {
+            target[k++] = left[i++];
+        }
+        while (j < rightEnd) {
+            target[k++] = right[j++];
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowVisitor {
+        void visit(int row, double price);
+    }
+
+    /**
+     * 直接内存中的列。只有写线程追加，读线程只访问 State.size 以内的行；
+     * 容量不够时复制到新的、更大的列上，旧列留给仍在读的线程。
+     * <p>
+     * 读线程只用 {@link DoubleBuffer#get(int)} 绝对读取，不会修改 position，因此可以共享同一个实例。
+     */
+    private static final class Columns {
+        private final DoubleBuffer prices;
+        private final IntBuffer nameCodes;
+        private int size;
+
+        private Columns(int capacity) {
+            this.prices = ByteBuffer.allocateDirect(capacity * Double.BYTES).order(ByteOrder.nativeOrder()).asDoubleBuffer();
+            this.nameCodes = ByteBuffer.allocateDirect(capacity * Integer.BYTES).order(ByteOrder.nativeOrder()).asIntBuffer();
+        }
+
+        private Columns ensureCapacity(int required) {
+            if (required <= prices.capacity()) {
+                return this;
+            }
+            Columns grown = new Columns(Math.max(required, prices.capacity() * 2));
+            DoubleBuffer oldPrices = prices.duplicate();
+            oldPrices.limit(size);
+            grown.prices.put(oldPrices);
+            IntBuffer oldNameCodes = nameCodes.duplicate();
+            oldNameCodes.limit(size);
+            grown.nameCodes.put(oldNameCodes);
+            grown.size = size;
+            return grown;
+        }
+
+        private void add(Game game, NameDictionary dictionary) {
+            prices.put(size, game.getPrice());
+            nameCodes.put(size, dictionary.encode(game.getName()));
+            size++;
+        }
+    }
+
+    private static final class State {
+        private static final int[] NO_ROWS = new int[0];
+
+        private final Columns columns;
+        private final int size;
+        private final NameDictionary.View names;
+        private final int[] sorted;
+        private final int sortedSize;
+        private final int[] delta;
+        private final int deltaSize;
+
+        private State(Columns columns, NameDictionary.View names, int[] sorted, int sortedSize, int[] delta, int deltaSize) {
+            this.columns = columns;
+            this.size = columns.size;
+            this.names = names;
+            this.sorted = sorted;
+            this.sortedSize = sortedSize;
+            this.delta = delta;
+            this.deltaSize = deltaSize;
+        }
+
+        /**
+         * 每个目录各自分配：append 会原地写入容量足够的 Columns，不能在实例之间共享
+         */
+        private static State empty(NameDictionary names) {
+            return new State(new Columns(16), names.view(), NO_ROWS, 0, NO_ROWS, 0);
+        }
+    }
+
+}
@@ -0,0 +1,128 @@
+package com.deemo.catalog;
+
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+
+/**
+ * 字典编码的 name 列：相同的 name 只存一份 UTF-8 字节，行上只记录 int 编码。
+ * <p>
+ * 只有一个写线程（持有 {@link GameCatalog} 的写锁）；读线程通过 {@link #view()} 拿到的快照访问，
+ * 写线程只在快照可见范围之外追加，扩容时换成新数组，所以读无需加锁。
+ */
+class NameDictionary {
+    private byte[] data = new byte[4096];
+    private int dataLength;
+    /**
+     * offsets[code] ~ offsets[code + 1] 为该编码的字节区间
+     */
+    private int[] offsets = new int[257];
+    private int count;
+    /**
+     * 开放寻址哈希表，存 code + 1，0 表示空槽
+     */
+    private int[] table = new int[512];
+
+    int encode(String name) {
+        byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+        int hash = hash(bytes);
+        int mask = table.length - 1;
+        for (int slot = hash & mask; ; slot = (slot + 1) & mask) {
+            int entry = table[slot];
+            if (entry == 0) {
+                int code = append(bytes);
+                table[slot] = code + 1;
+                if (count * 2 > table.length) {
+                    rehash();
+                }
+                return code;
+            }
+            if (matches(entry - 1, bytes)) {
+                return entry - 1;
+            }
+        }
+    }
+
+    View view() {
+        return new View(data, offsets, count);
+    }
+
+    int size() {
+        return count;
+    }
+
+    private int append(byte[] bytes) {
+        if (dataLength + bytes.length > data.length) {
+            data = Arrays.copyOf(data, Math.max(data.length * 2, dataLength + bytes.length));
+        }
+        if (count + 2 > offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        System.arraycopy(bytes, 0, data, dataLength, bytes.length);
+        offsets[count] = dataLength;
+        dataLength += bytes.length;
+        offsets[count + 1] = dataLength;
+        return count++;
+    }
+
+    private boolean matches(int code, byte[] bytes) {
+        int start = offsets[code];
+        int length = offsets[code + 1] - start;
+        if (length != bytes.length) {
+            return false;
+        }
+        for (int i = 0; i < length; i++) {
+            if (data[start + i] != bytes[i]) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private void rehash() {
+        int[] rehashed = new int[table.length * 2];
+        int mask = rehashed.length - 1;
+        for (int code = 0; code < count; code++) {
+            int slot = hash(data, offsets[code], offsets[code + 1]) & mask;
+            while (rehashed[slot] != 0) {
+                slot = (slot + 1) & mask;
+            }
+            rehashed[slot] = code + 1;
+        }
+        table = rehashed;
+    }
+
+    private static int hash(byte[] bytes) {
+        return hash(bytes, 0, bytes.length);
+    }
+
+    private static int hash(byte[] bytes, int from, int to) {
+        int h = 1;
+        for (int i = from; i < to; i++) {
+            h = 31 * h + bytes[i];
+        }
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * 读线程使用的只读快照
+     */
+    static final class View {
+        private final byte[] data;
+        private final int[] offsets;
+        private final int count;
+
+        private View(byte[] data, int[] offsets, int count) {
+            this.data = data;
+            this.offsets = offsets;
+            this.count = count;
+        }
+
+        String decode(int code) {
+            if (code >= count) {
+                throw new IndexOutOfBoundsException("code: " + code + ", size: " + count);
+            }
+            return new String(data, offsets[code], offsets[code + 1] - offsets[code], StandardCharsets.UTF_8);
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.deemo.condition;
+
+import org.springframework.context.annotation.Condition;
+import org.springframework.context.annotation.ConditionContext;
+import org.springframework.core.type.AnnotatedTypeMetadata;
+import org.springframework.util.StringUtils;
+
+/**
+ * 配置了 jdbc.shard.urls 才开启分片
+ */
+public class ShardingCondition implements Condition {
+
+    @Override
+    public boolean matches(ConditionContext context, AnnotatedTypeMetadata metadata) {
+        return StringUtils.hasText(context.getEnvironment().getProperty("jdbc.shard.urls"));
+    }
+
+}
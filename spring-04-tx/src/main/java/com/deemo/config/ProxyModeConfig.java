@@ -0,0 +1,63 @@
+package com.deemo.config;
+
+import com.deemo.aspect.AsyncLogSink;
+import com.deemo.aspect.ConcurrencyLimitAspect;
+import com.deemo.aspect.LogAspect;
+import com.deemo.aspect.TimedAspect;
+import com.deemo.aspect.TransactionMetricsAspect;
+import com.deemo.metrics.MethodMetrics;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * 代理模式（默认）：切面与事务拦截器都由代理调用，自调用不经过它们。
+ * 顺序由 @Order 决定：TimedAspect、ConcurrencyLimitAspect、事务、TransactionMetricsAspect、LogAspect，由外到内。
+ */
+@Configuration
+@Profile("!" + WeavingModeConfig.PROFILE)
+@EnableAspectJAutoProxy
+@EnableTransactionManagement(order = TransactionMetricsAspect.TRANSACTION_ADVISOR_ORDER)
+public class ProxyModeConfig {
+
+    /**
+     * {@link com.deemo.metrics.Timed} 方法的耗时统计见 JMX com.deemo:type=MethodMetrics
+     */
+    @Bean
+    public MethodMetrics methodMetrics() {
+        return new MethodMetrics();
+    }
+
+    @Bean
+    public TimedAspect timedAspect(MethodMetrics methodMetrics) {
+        return new TimedAspect(methodMetrics);
+    }
+
+    /**
+     * {@link com.deemo.limit.ConcurrencyLimit} 方法的当前上限与拒绝次数见 {@link ConcurrencyLimitAspect#getLimiters()}
+     */
+    @Bean
+    public ConcurrencyLimitAspect concurrencyLimitAspect() {
+        return new ConcurrencyLimitAspect();
+    }
+
+    /**
+     * log.aspect.async.enabled=true 时日志由后台线程输出，丢弃计数见 {@link LogAspect#getSink()}
+     */
+    @Bean
+    public LogAspect logAspect(@Value("${log.aspect.sample-rate:1}") int sampleRate,
+                               @Value("${log.aspect.async.enabled:false}") boolean async,
+                               @Value("${log.aspect.async.capacity:8192}") int capacity,
+                               @Value("${log.aspect.async.overflow:DROP}") AsyncLogSink.OverflowPolicy overflow) {
+        return async ? new LogAspect(sampleRate, capacity, overflow) : new LogAspect(sampleRate);
+    }
+
+    @Bean
+    public TransactionMetricsAspect transactionMetricsAspect() {
+        return new TransactionMetricsAspect();
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.deemo.config;
+
+import com.deemo.aspect.ConcurrencyLimitAspect;
+import com.deemo.aspect.LogAspect;
+import com.deemo.aspect.TimedAspect;
+import com.deemo.metrics.MethodMetrics;
+import org.aspectj.lang.Aspects;
+import org.springframework.context.annotation.AdviceMode;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.context.annotation.Profile;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+/**
+ * 加载期织入模式：所有切面与 @Transactional 都直接织入字节码（见 META-INF/aop.xml），容器中没有 AOP 代理，
+ * 自调用（如 insert(game, price) 调用 insert(game, price, false)）同样会经过切面。
+ * <p>
+ * 切面实例由 AspectJ 用无参构造创建，这里注册的 bean 就是这些实例；log.aspect.* 的采样与异步配置不生效。
+ * 织入顺序与代理模式相同，在 aop.xml 中声明。
+ * 未加 -javaagent 时 {@link Aspects#aspectOf} 抛出 NoAspectBoundException，启动失败。
+ */
+@Configuration
+@Profile(WeavingModeConfig.PROFILE)
+@EnableTransactionManagement(mode = AdviceMode.ASPECTJ)
+public class WeavingModeConfig {
+
+    /**
+     * 以 -javaagent:aspectjweaver.jar -Dspring.profiles.active=ltw 启动
+     */
+    public static final String PROFILE = "ltw";
+
+    @Bean
+    public TimedAspect timedAspect() {
+        return Aspects.aspectOf(TimedAspect.class);
+    }
+
+    /**
+     * 织入的 TimedAspect 自带统计，同样导出到 JMX com.deemo:type=MethodMetrics
+     */
+    @Bean
+    public MethodMetrics methodMetrics(TimedAspect timedAspect) {
+        return timedAspect.getMetrics();
+    }
+
+    @Bean
+    public ConcurrencyLimitAspect concurrencyLimitAspect() {
+        return Aspects.aspectOf(ConcurrencyLimitAspect.class);
+    }
+
+    @Bean
+    public LogAspect logAspect() {
+        return Aspects.aspectOf(LogAspect.class);
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.deemo.dao;
+
+import com.deemo.entity.Game;
+import org.springframework.transaction.support.TransactionSynchronizationAdapter;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * 绑定在当前事务上的待写入行：提交前（beforeCommit）作为一个 JDBC batch 发送，
+ * 回滚时直接丢弃，不访问数据库。
+ */
+class DeferredGameWrites extends TransactionSynchronizationAdapter {
+    private final GameDao gameDao;
+    private final List<Game> games = new ArrayList<>();
+
+    private DeferredGameWrites(GameDao gameDao) {
+        this.gameDao = gameDao;
+    }
+
+    /**
+     * 获取当前事务的缓冲，没有则创建并注册事务同步回调
+     */
+    static DeferredGameWrites current(GameDao gameDao) {
+        DeferredGameWrites writes = (DeferredGameWrites) TransactionSynchronizationManager.getResource(gameDao);
+        if (writes == null) {
+            writes = new DeferredGameWrites(gameDao);
+            TransactionSynchronizationManager.bindResource(gameDao, writes);
+            TransactionSynchronizationManager.registerSynchronization(writes);
+        }
+        return writes;
+    }
+
+    /**
+     * 当前事务中已缓冲的写入，没有则返回 null
+     */
+    static DeferredGameWrites peek(GameDao gameDao) {
+        return (DeferredGameWrites) TransactionSynchronizationManager.getResource(gameDao);
+    }
+
+    void add(Game game) {
+        games.add(game);
+    }
+
+    /**
+     * 发送已缓冲的数据；除 beforeCommit 外，TransactionStatus#flush 与 insertBatch 前也会调用，以保持写入顺序
+     */
+    @Override
+    public void flush() {
+        if (!games.isEmpty()) {
+            List<Game> pending = new ArrayList<>(games);
+            games.clear();
+            gameDao.flushDeferred(pending);
+        }
+    }
+
+    @Override
+    public void suspend() {
+        TransactionSynchronizationManager.unbindResource(gameDao);
+    }
+
+    @Override
+    public void resume() {
+        TransactionSynchronizationManager.bindResource(gameDao, this);
+    }
+
+    /**
+     * 这里抛出的异常会让事务管理器改为回滚
+     */
+    @Override
+    public void beforeCommit(boolean readOnly) {
+        flush();
+    }
+
+    @Override
+    public void afterCompletion(int status) {
+        games.clear();
+        TransactionSynchronizationManager.unbindResourceIfPossible(gameDao);
+    }
+
+}
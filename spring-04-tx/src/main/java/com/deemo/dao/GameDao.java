@@ -1,20 +1,331 @@
 package com.deemo.dao;
 
-import org.springframework.beans.factory.annotation.Autowired;
+import com.deemo.entity.Game;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.jdbc.JdbcConnection;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.IncorrectResultSizeDataAccessException;
+import org.springframework.jdbc.core.ConnectionCallback;
 import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.jdbc.core.RowMapper;
 import org.springframework.stereotype.Component;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.function.Consumer;
 
 @Component
 public class GameDao {
+    private static final String INSERT_SQL = "INSERT INTO `game` (`name`, `price`, `description`) VALUES (?, ?, ?)";
+    /**
+     * upsert 模式追加在 INSERT 之后，依赖 `name` 上的唯一索引；H2 的 MySQL 模式同样支持该语法
+     */
+    private static final String UPSERT_SUFFIX = " ON DUPLICATE KEY UPDATE `price` = VALUES(`price`), `description` = VALUES(`description`)";
+    private static final String SELECT_BY_PRICE_SQL = "SELECT `id`, `name`, `price`, `description` FROM `game` WHERE `price` BETWEEN ? AND ? ORDER BY `price`, `id`";
+    private static final String SCAN_SQL = "SELECT `id`, `name`, `price`, `description` FROM `game` ORDER BY `id`";
+    private static final RowMapper<Game> GAME_ROW_MAPPER = (rs, rowNum) -> {
+        Game game = new Game(rs.getString("name"), rs.getDouble("price"));
+        game.setId(rs.getLong("id"));
+        game.setDescription(rs.getString("description"));
+        return game;
+    };
+    private static final String MULTI_VALUES_PREFIX = "INSERT INTO `game` (`name`, `price`, `description`) VALUES ";
+    private static final String MULTI_VALUES_ROW = "(?, ?, ?)";
+    /**
+     * 估算单行参数展开后的固定开销：price、引号、逗号、括号
+     */
+    private static final int ROW_OVERHEAD_BYTES = 32;
+
     private final JdbcTemplate jdbcTemplate;
+    /**
+     * 每个 JDBC batch 携带的行数，可通过 -Dgame.batch.chunk-size 调整
+     */
+    private final int chunkSize;
+    private final InsertMode insertMode;
+    private final int maxRowsPerStatement;
+    /**
+     * 单条多行语句的字节上限，需小于 MySQL 的 max_allowed_packet
+     */
+    private final int maxBytesPerStatement;
+    /**
+     * 按行数缓存的多行 INSERT 语句，下标即行数；并发下重复构建也只是得到相同的字符串
+     */
+    private final String[] multiValuesStatements;
+    /**
+     * 开启后，事务内的 {@link #insert} 先缓存在事务上，提交前一次性 batch 发送
+     */
+    private final boolean deferred;
+    /**
+     * 开启后所有写入都按 name 幂等：重复的 name 只更新 price、description，重试不会产生重复行；
+     * 此时写入结果只在真正新插入一行时为 true，更新或值未变化时为 false
+     */
+    private final boolean upsert;
+    private final String insertSql;
 
-    public GameDao(JdbcTemplate jdbcTemplate) {
+    public GameDao(JdbcTemplate jdbcTemplate,
+                   @Value("${game.batch.chunk-size:500}") int chunkSize,
+                   @Value("${game.insert.mode:BATCH}") InsertMode insertMode,
+                   @Value("${game.insert.multi-values.max-rows:1000}") int maxRowsPerStatement,
+                   @Value("${game.insert.multi-values.max-bytes:1048576}") int maxBytesPerStatement,
+                   @Value("${game.insert.deferred:false}") boolean deferred,
+                   @Value("${game.insert.upsert:false}") boolean upsert) {
+        if (chunkSize <= 0 || maxRowsPerStatement <= 0 || maxBytesPerStatement <= 0) {
+            throw new IllegalArgumentException("chunk size, max rows and max bytes must be positive!");
+        }
+        // 延迟写入在提交前就返回 true，upsert 时无法区分插入与更新，新增事件会发给已存在的行
+        if (deferred && upsert) {
+            throw new IllegalArgumentException("deferred insert can not be combined with upsert!");
+        }
         this.jdbcTemplate = jdbcTemplate;
+        this.chunkSize = chunkSize;
+        this.insertMode = insertMode;
+        this.maxRowsPerStatement = maxRowsPerStatement;
+        this.maxBytesPerStatement = maxBytesPerStatement;
+        this.multiValuesStatements = new String[maxRowsPerStatement + 1];
+        this.deferred = deferred;
+        this.upsert = upsert;
+        this.insertSql = upsert ? INSERT_SQL + UPSERT_SUFFIX : INSERT_SQL;
+        if (upsert) {
+            requireAffectedRows(jdbcTemplate);
+        }
     }
 
+    /**
+     * Connector/J 默认开启 CLIENT_FOUND_ROWS：值未变化的 ON DUPLICATE KEY UPDATE 也返回 1，与新插入无法区分，
+     * 重试会被当成新行而重复发布 GameCreatedEvent。upsert 要求连接配置 useAffectedRows=true，否则启动失败
+     */
+    static void requireAffectedRows(JdbcTemplate jdbcTemplate) {
+        Boolean affectedRows = jdbcTemplate.execute((ConnectionCallback<Boolean>) con -> {
+            if (!con.isWrapperFor(JdbcConnection.class)) {
+                return true;
+            }
+            return con.unwrap(JdbcConnection.class).getPropertySet().getBooleanProperty(PropertyKey.useAffectedRows).getValue();
+        });
+        if (!Boolean.TRUE.equals(affectedRows)) {
+            throw new IllegalStateException("game.insert.upsert requires useAffectedRows=true in the MySQL jdbc url!");
+        }
+    }
+
+    /**
+     * deferred 模式下若处于事务中，只登记到事务缓冲并返回 true，真正的写入失败会在提交时抛出并回滚
+     *
+     * @return 是否新插入了一行
+     */
     public boolean insert(String game, double price) {
-        String sql = "INSERT INTO `game` (`name`, `price`, `description`) VALUE (?, ?, ?)";
-        return jdbcTemplate.update(sql, game, price, game + " ￥" + price) > 0;
+        if (deferred && TransactionSynchronizationManager.isActualTransactionActive()
+                && TransactionSynchronizationManager.isSynchronizationActive()) {
+            DeferredGameWrites.current(this).add(new Game(game, price));
+            return true;
+        }
+        return inserted(jdbcTemplate.update(insertSql, game, price, description(game, price)));
+    }
+
+    /**
+     * 按配置的 {@link InsertMode} 批量写入
+     *
+     * @return 与入参顺序一致的每行插入结果，true 表示新插入了一行
+     */
+    public boolean[] insertBatch(Collection<Game> games) {
+        if (games.isEmpty()) {
+            return new boolean[0];
+        }
+        // 先发送事务中延迟的单行写入，保证写入顺序
+        this.flushBuffered();
+
+        switch (insertMode) {
+            case ROW:
+                return insertRows(games);
+            case MULTI_VALUES:
+                // upsert 时多行语句只返回插入、更新的混合计数，分不出哪些行是新插入的，改走 JDBC batch
+                if (upsert) {
+                    return insertJdbcBatch(games);
+                }
+                return insertMultiValues(games instanceof List && games instanceof RandomAccess
+                        ? (List<Game>) games : new ArrayList<>(games));
+            default:
+                return insertJdbcBatch(games);
+        }
+    }
+
+    public List<Game> findByPriceBetween(double min, double max) {
+        this.flushBuffered();
+        return jdbcTemplate.query(SELECT_BY_PRICE_SQL, GAME_ROW_MAPPER, min, max);
+    }
+
+    /**
+     * 逐行回调整张表，不把结果集放进 List；回调拿到的是同一个被复用的 {@link Game}，需要保留时请自行复制。
+     * <p>
+     * MySQL 需要在 URL 中加 useCursorFetch=true，fetchSize 才会按批拉取，否则驱动会一次读完整个结果集。
+     *
+     * @return 回调的行数
+     */
+    public long scan(int fetchSize, Consumer<Game> callback) {
+        this.flushBuffered();
+        Game game = new Game();
+        long[] rows = new long[1];
+        jdbcTemplate.query(con -> {
+            PreparedStatement ps = con.prepareStatement(SCAN_SQL, ResultSet.TYPE_FORWARD_ONLY, ResultSet.CONCUR_READ_ONLY);
+            ps.setFetchSize(fetchSize);
+            return ps;
+        }, (RowCallbackHandler) rs -> {
+            game.setId(rs.getLong(1));
+            game.setName(rs.getString(2));
+            game.setPrice(rs.getDouble(3));
+            game.setDescription(rs.getString(4));
+            callback.accept(game);
+            rows[0]++;
+        });
+        return rows[0];
+    }
+
+    public int getChunkSize() {
+        return chunkSize;
+    }
+
+    public InsertMode getInsertMode() {
+        return insertMode;
+    }
+
+    public boolean isDeferred() {
+        return deferred;
+    }
+
+    public boolean isUpsert() {
+        return upsert;
+    }
+
+    /**
+     * 由 {@link DeferredGameWrites} 在提交前调用
+     */
+    void flushDeferred(List<Game> games) {
+        boolean[] results = insertJdbcBatch(games);
+        for (int i = 0; i < results.length; i++) {
+            if (!results[i]) {
+                throw new IncorrectResultSizeDataAccessException("deferred insert of " + games.get(i).getName() + " affected no rows", 1, 0);
+            }
+        }
+    }
+
+    /**
+     * 事务中延迟的写入先发送出去，后续的写入保持顺序，同一事务内的查询也能读到它们
+     */
+    private void flushBuffered() {
+        DeferredGameWrites writes = DeferredGameWrites.peek(this);
+        if (writes != null) {
+            writes.flush();
+        }
+    }
+
+    private boolean[] insertRows(Collection<Game> games) {
+        boolean[] results = new boolean[games.size()];
+        int i = 0;
+        for (Game game : games) {
+            results[i++] = insert(game.getName(), game.getPrice());
+        }
+        return results;
+    }
+
+    /**
+     * 按 chunkSize 分批走 JDBC batch，每一批只有一次网络往返
+     */
+    private boolean[] insertJdbcBatch(Collection<Game> games) {
+        boolean[] results = new boolean[games.size()];
+        int[][] counts = jdbcTemplate.batchUpdate(insertSql, games, chunkSize, (ps, game) -> {
+            ps.setString(1, game.getName());
+            ps.setDouble(2, game.getPrice());
+            ps.setString(3, description(game.getName(), game.getPrice()));
+        });
+
+        int i = 0;
+        for (int[] chunk : counts) {
+            for (int count : chunk) {
+                // MySQL 驱动在 rewriteBatchedStatements 下只返回 SUCCESS_NO_INFO；upsert 时据此无法判断是否新插入，按未插入处理
+                results[i++] = count == Statement.SUCCESS_NO_INFO ? !upsert : inserted(count);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * 每条语句尽量多带几行，直到达到行数或字节数上限；一条语句要么全部成功要么整体失败
+     */
+    private boolean[] insertMultiValues(List<Game> games) {
+        int size = games.size();
+        boolean[] results = new boolean[size];
+
+        int from = 0;
+        while (from < size) {
+            int to = from;
+            long bytes = MULTI_VALUES_PREFIX.length();
+            while (to < size && to - from < maxRowsPerStatement) {
+                int rowBytes = estimateBytes(games.get(to));
+                // 单行超限时也至少带上一行
+                if (to > from && bytes + rowBytes > maxBytesPerStatement) {
+                    break;
+                }
+                bytes += rowBytes;
+                to++;
+            }
+
+            int rows = to - from;
+            Object[] args = new Object[rows * 3];
+            for (int i = 0; i < rows; i++) {
+                Game game = games.get(from + i);
+                args[i * 3] = game.getName();
+                args[i * 3 + 1] = game.getPrice();
+                args[i * 3 + 2] = description(game.getName(), game.getPrice());
+            }
+            int updated = jdbcTemplate.update(multiValuesStatement(rows), args);
+            Arrays.fill(results, from, to, updated >= rows);
+            from = to;
+        }
+        return results;
+    }
+
+    private String multiValuesStatement(int rows) {
+        String sql = multiValuesStatements[rows];
+        if (sql == null) {
+            StringBuilder builder = new StringBuilder(MULTI_VALUES_PREFIX.length() + rows * (MULTI_VALUES_ROW.length() + 1));
+            builder.append(MULTI_VALUES_PREFIX).append(MULTI_VALUES_ROW);
+            for (int i = 1; i < rows; i++) {
+                builder.append(',').append(MULTI_VALUES_ROW);
+            }
+            sql = builder.toString();
+            multiValuesStatements[rows] = sql;
+        }
+        return sql;
+    }
+
+    /**
+     * ON DUPLICATE KEY UPDATE 的影响行数（useAffectedRows=true，见 {@link #requireAffectedRows}）：
+     * 1 插入，2 更新，0 值未变化（重试同一行）；只有 1 算新插入
+     */
+    private boolean inserted(int updated) {
+        return upsert ? updated == 1 : updated > 0;
+    }
+
+    private static int estimateBytes(Game game) {
+        String name = game.getName();
+        int nameBytes = 0;
+        // 按 UTF-8 估算，不为每行分配 byte[]
+        for (int i = 0; i < name.length(); i++) {
+            char c = name.charAt(i);
+            nameBytes += c < 0x80 ? 1 : c < 0x800 ? 2 : 3;
+        }
+        // name 会出现两次（name 与 description）
+        return nameBytes * 2 + ROW_OVERHEAD_BYTES + MULTI_VALUES_ROW.length();
+    }
+
+    private static String description(String game, double price) {
+        return game + " ￥" + price;
     }
 
 }
@@ -0,0 +1,19 @@
+package com.deemo.dao;
+
+/**
+ * {@link GameDao#insertBatch} 的写入方式
+ */
+public enum InsertMode {
+    /**
+     * 逐行 update，每行一次网络往返
+     */
+    ROW,
+    /**
+     * JDBC batch，每个 chunk 一次网络往返
+     */
+    BATCH,
+    /**
+     * 改写为一条 INSERT ... VALUES (...),(...)，受行数与字节数上限约束
+     */
+    MULTI_VALUES
+}
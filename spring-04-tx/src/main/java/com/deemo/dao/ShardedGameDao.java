@@ -0,0 +1,208 @@
+package com.deemo.dao;
+
+import com.deemo.entity.Game;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 按 game name 的哈希把 game 表分到 N 个库上。
+ * <p>
+ * 单行写入只访问一个分片；批量写入按分片分组后并行执行，每个分片一个本地事务，
+ * 分片之间不保证原子性，失败的分片随结果一起返回；跨分片查询并行扇出后按 price 合并。
+ */
+@Slf4j
+public class ShardedGameDao implements AutoCloseable {
+    private final List<DataSource> dataSources;
+    private final GameDao[] shards;
+    private final TransactionTemplate[] transactionTemplates;
+    private final ExecutorService executor;
+
+    /**
+     * 除数据源外的参数与 {@link GameDao} 相同，每个分片使用同样的配置
+     *
+     * @param upsert 按 name 幂等写入；分片同样按 name 计算，同名的行总会落在同一个分片的唯一索引上
+     */
+    public ShardedGameDao(List<DataSource> dataSources, int chunkSize, InsertMode insertMode,
+                          int maxRowsPerStatement, int maxBytesPerStatement, boolean deferred, boolean upsert) {
+        if (dataSources.isEmpty()) {
+            throw new IllegalArgumentException("at least one shard is required!");
+        }
+        this.dataSources = new ArrayList<>(dataSources);
+        this.shards = new GameDao[dataSources.size()];
+        this.transactionTemplates = new TransactionTemplate[dataSources.size()];
+        for (int i = 0; i < shards.length; i++) {
+            DataSource dataSource = dataSources.get(i);
+            shards[i] = new GameDao(new JdbcTemplate(dataSource), chunkSize, insertMode, maxRowsPerStatement, maxBytesPerStatement, deferred, upsert);
+            transactionTemplates[i] = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        }
+
+        AtomicInteger sequence = new AtomicInteger();
+        this.executor = Executors.newFixedThreadPool(shards.length, runnable -> {
+            Thread thread = new Thread(runnable, "game-shard-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    public int getShardCount() {
+        return shards.length;
+    }
+
+    public DataSource getShardDataSource(int shard) {
+        return dataSources.get(shard);
+    }
+
+    /**
+     * String#hashCode 的低位分布较差，先做一次 murmur3 fmix32 再取模
+     */
+    public int shardOf(String game) {
+        int h = game.hashCode();
+        h ^= h >>> 16;
+        h *= 0x85ebca6b;
+        h ^= h >>> 13;
+        h *= 0xc2b2ae35;
+        h ^= h >>> 16;
+        return Math.floorMod(h, shards.length);
+    }
+
+    public boolean insert(String game, double price) {
+        return shards[shardOf(game)].insert(game, price);
+    }
+
+    /**
+     * 某个分片失败不影响其他分片已提交的写入，失败的分片与其对应的行记录在 {@link BatchResult#getFailures()} 中
+     */
+    public BatchResult insertBatch(Collection<Game> games) {
+        boolean[] results = new boolean[games.size()];
+        if (games.isEmpty()) {
+            return new BatchResult(results, Collections.emptyList());
+        }
+
+        // 记录每行在入参中的位置，便于把分片结果写回
+        List<List<Game>> groups = new ArrayList<>(shards.length);
+        List<List<Integer>> positions = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            groups.add(new ArrayList<>());
+            positions.add(new ArrayList<>());
+        }
+        int index = 0;
+        for (Game game : games) {
+            int shard = shardOf(game.getName());
+            groups.get(shard).add(game);
+            positions.get(shard).add(index++);
+        }
+
+        List<CompletableFuture<boolean[]>> futures = new ArrayList<>(shards.length);
+        for (int i = 0; i < shards.length; i++) {
+            List<Game> group = groups.get(i);
+            int shard = i;
+            futures.add(group.isEmpty() ? CompletableFuture.completedFuture(new boolean[0])
+                    : CompletableFuture.supplyAsync(() -> transactionTemplates[shard].execute(status -> shards[shard].insertBatch(group)), executor));
+        }
+
+        List<ShardFailure> failures = new ArrayList<>();
+        for (int i = 0; i < shards.length; i++) {
+            List<Integer> shardPositions = positions.get(i);
+            try {
+                boolean[] shardResults = futures.get(i).join();
+                for (int j = 0; j < shardResults.length; j++) {
+                    results[shardPositions.get(j)] = shardResults[j];
+                }
+            } catch (CompletionException e) {
+                if (!(e.getCause() instanceof RuntimeException)) {
+                    throw e;
+                }
+                log.warn("insert batch of {} games into shard {} failed!", shardPositions.size(), i, e.getCause());
+                failures.add(new ShardFailure(i, Collections.unmodifiableList(shardPositions), (RuntimeException) e.getCause()));
+            }
+        }
+        return new BatchResult(results, Collections.unmodifiableList(failures));
+    }
+
+    /**
+     * 各分片结果已按 price、id 有序，拼接后的排序基本是归并的代价。
+     * <p>
+     * price 相同的行按分片下标、再按分片内的 id 排列：结果按分片顺序拼接，List#sort 是稳定排序。
+     * 各分片的 id 互相独立，不能跨分片比较，所以不直接按 id 排。
+     */
+    public List<Game> findByPriceBetween(double min, double max) {
+        List<CompletableFuture<List<Game>>> futures = new ArrayList<>(shards.length);
+        for (GameDao shard : shards) {
+            futures.add(CompletableFuture.supplyAsync(() -> shard.findByPriceBetween(min, max), executor));
+        }
+
+        List<Game> games = new ArrayList<>();
+        for (CompletableFuture<List<Game>> future : futures) {
+            games.addAll(future.join());
+        }
+        // 稳定排序：相同 price 保留拼接时的分片顺序
+        games.sort(Comparator.comparingDouble(Game::getPrice));
+        return games;
+    }
+
+    /**
+     * 关闭分片线程池与各分片连接池
+     */
+    @Override
+    public void close() throws Exception {
+        executor.shutdown();
+        for (DataSource dataSource : dataSources) {
+            if (dataSource instanceof AutoCloseable) {
+                ((AutoCloseable) dataSource).close();
+            }
+        }
+    }
+
+    @Getter
+    @ToString
+    public static final class ShardFailure {
+        private final int shard;
+        /**
+         * 该分片的行在入参中的下标，可据此取出失败的行重新提交
+         */
+        private final List<Integer> positions;
+        private final RuntimeException failure;
+
+        private ShardFailure(int shard, List<Integer> positions, RuntimeException failure) {
+            this.shard = shard;
+            this.positions = positions;
+            this.failure = failure;
+        }
+    }
+
+    @Getter
+    @ToString
+    public static final class BatchResult {
+        /**
+         * 与入参顺序一致的每行插入结果，失败分片上的行为 false
+         */
+        private final boolean[] results;
+        private final List<ShardFailure> failures;
+
+        private BatchResult(boolean[] results, List<ShardFailure> failures) {
+            this.results = results;
+            this.failures = failures;
+        }
+
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+    }
+
+}
@@ -0,0 +1,55 @@
+package com.deemo.datasource;
+
+import com.mchange.v2.c3p0.AbstractConnectionCustomizer;
+
+import java.sql.Connection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.Map;
+
+/**
+ * c3p0 在建立与销毁物理连接时回调，据此统计物理连接的存活时长。
+ * <p>
+ * c3p0 按类名创建并在所有连接池间共用一个实例，{@link PoolMetrics} 通过连接池的 extensions 按 identity token 查找。
+ */
+public class C3p0LifetimeCustomizer extends AbstractConnectionCustomizer {
+    static final String METRICS = PoolMetrics.class.getName();
+
+    /**
+     * 建立连接时就记下对应的 {@link PoolMetrics}，销毁时不必再按 token 查找（连接池关闭过程中也能记录）
+     */
+    private final Map<Connection, Opened> opened = Collections.synchronizedMap(new IdentityHashMap<>());
+
+    @Override
+    public void onAcquire(Connection connection, String parentDataSourceIdentityToken) {
+        PoolMetrics metrics = metricsFor(parentDataSourceIdentityToken);
+        if (metrics != null) {
+            opened.put(connection, new Opened(metrics, System.nanoTime()));
+            metrics.connectionOpened();
+        }
+    }
+
+    @Override
+    public void onDestroy(Connection connection, String parentDataSourceIdentityToken) {
+        Opened connectionOpened = opened.remove(connection);
+        if (connectionOpened != null) {
+            connectionOpened.metrics.connectionClosed(System.nanoTime() - connectionOpened.nanos);
+        }
+    }
+
+    private PoolMetrics metricsFor(String token) {
+        Map<?, ?> extensions = extensionsForToken(token);
+        return extensions == null ? null : (PoolMetrics) extensions.get(METRICS);
+    }
+
+    private static class Opened {
+        private final PoolMetrics metrics;
+        private final long nanos;
+
+        private Opened(PoolMetrics metrics, long nanos) {
+            this.metrics = metrics;
+            this.nanos = nanos;
+        }
+    }
+
+}
@@ -0,0 +1,154 @@
+package com.deemo.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 包装连接池：统计获取连接的等待时间与超时，并通过连接代理统计借出时长；物理连接的存活时长由连接池侧记录，见 {@link PoolMetrics}。
+ * <p>
+ * 连接池实现由 {@link PoolType} 决定，close 时一并关闭底层连接池。
+ */
+public class InstrumentedDataSource extends DelegatingDataSource implements AutoCloseable {
+    private final PoolType poolType;
+    private final PoolMetrics metrics;
+
+    /**
+     * 包装外部创建的连接池，不统计物理连接的存活时长
+     */
+    public InstrumentedDataSource(PoolType poolType, DataSource pool) {
+        this(poolType, pool, new PoolMetrics());
+    }
+
+    private InstrumentedDataSource(PoolType poolType, DataSource pool, PoolMetrics metrics) {
+        super(pool);
+        this.poolType = poolType;
+        this.metrics = metrics;
+    }
+
+    public static InstrumentedDataSource create(PoolProperties properties) {
+        PoolMetrics metrics = new PoolMetrics();
+        return new InstrumentedDataSource(properties.getType(), properties.getType().create(properties, metrics), metrics);
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return lease(obtainTargetDataSource().getConnection(), start);
+        } catch (SQLException e) {
+            metrics.acquireFailed(System.nanoTime() - start, poolType.isTimeout(e));
+            throw e;
+        }
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        long start = System.nanoTime();
+        try {
+            return lease(obtainTargetDataSource().getConnection(username, password), start);
+        } catch (SQLException e) {
+            metrics.acquireFailed(System.nanoTime() - start, poolType.isTimeout(e));
+            throw e;
+        }
+    }
+
+    public PoolType getPoolType() {
+        return poolType;
+    }
+
+    public PoolMetrics getMetrics() {
+        return metrics;
+    }
+
+    public int getIdleConnections() {
+        return poolType.idleConnections(obtainTargetDataSource());
+    }
+
+    public int getTotalConnections() {
+        return poolType.totalConnections(obtainTargetDataSource());
+    }
+
+    @Override
+    public void close() {
+        poolType.close(obtainTargetDataSource());
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s pool: active=%d, idle=%d, total=%d, opened=%d, timeouts=%d, failures=%d%n  acquire: %s%n  lease: %s%n  lifetime: %s",
+                poolType, metrics.getActive(), getIdleConnections(), getTotalConnections(), metrics.getOpened(), metrics.getTimeouts(),
+                metrics.getFailures(), metrics.getAcquireTime(), metrics.getLeaseTime(), metrics.getLifetime());
+    }
+
+    private Connection lease(Connection connection, long start) {
+        long acquired = System.nanoTime();
+        metrics.acquired(acquired - start);
+        return (Connection) Proxy.newProxyInstance(InstrumentedDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new LeasedConnection(connection, acquired));
+    }
+
+    /**
+     * 只拦截 close，其余方法原样转发
+     */
+    private class LeasedConnection implements InvocationHandler {
+        private final Connection target;
+        private final long acquired;
+        private boolean closed;
+
+        private LeasedConnection(Connection target, long acquired) {
+            this.target = target;
+            this.acquired = acquired;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        metrics.released(System.nanoTime() - acquired);
+                    }
+                    break;
+                case "isClosed":
+                    if (closed) {
+                        return true;
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Leased connection of " + target;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    if (closed) {
+                        throw new SQLException("Connection has already been returned to the pool");
+                    }
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,158 @@
+package com.deemo.datasource;
+
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.DefaultTransactionStatus;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 在 {@link DataSourceTransactionManager} 的生命周期回调上计时，结果写入 {@link TransactionMetrics}。
+ * <p>
+ * 每个新事务在 doBegin 时绑定一个 {@link Timer} 到当前线程，REQUIRES_NEW 挂起外层事务时一并挂起；
+ * 回滚的异常类型由 {@link com.deemo.aspect.TransactionMetricsAspect} 通过 {@link #recordFailure(Throwable)} 标记。
+ * 开启读写分离时连接是延迟获取的，这里统计的是事务持有（可能尚未真正取出的）连接的时长。
+ */
+@Slf4j
+public class InstrumentedTransactionManager extends DataSourceTransactionManager {
+    private final TransactionMetrics metrics;
+    private final long slowThresholdNanos;
+
+    public InstrumentedTransactionManager(DataSource dataSource, TransactionMetrics metrics, long slowThresholdMillis) {
+        super(dataSource);
+        this.metrics = metrics;
+        this.slowThresholdNanos = TimeUnit.MILLISECONDS.toNanos(slowThresholdMillis);
+    }
+
+    /**
+     * 标记当前线程上所有计时中的事务：若随后回滚，按该异常类型计数
+     */
+    public static void recordFailure(Throwable failure) {
+        if (!TransactionSynchronizationManager.isActualTransactionActive()) {
+            return;
+        }
+        for (Object resource : TransactionSynchronizationManager.getResourceMap().values()) {
+            if (resource instanceof Timer) {
+                ((Timer) resource).failure = failure.getClass().getName();
+            }
+        }
+    }
+
+    @Override
+    protected void doBegin(Object transaction, TransactionDefinition definition) {
+        long begin = System.nanoTime();
+        super.doBegin(transaction, definition);
+        TransactionSynchronizationManager.bindResource(this, new Timer(metrics.statsFor(definition.getName()), begin, System.nanoTime()));
+    }
+
+    @Override
+    protected Object doSuspend(Object transaction) {
+        Object connectionHolder = super.doSuspend(transaction);
+        return new SuspendedResources(connectionHolder, TransactionSynchronizationManager.unbindResourceIfPossible(this));
+    }
+
+    @Override
+    protected void doResume(Object transaction, Object suspendedResources) {
+        SuspendedResources suspended = (SuspendedResources) suspendedResources;
+        super.doResume(transaction, suspended.connectionHolder);
+        if (suspended.timer != null) {
+            TransactionSynchronizationManager.bindResource(this, suspended.timer);
+        }
+    }
+
+    @Override
+    protected void doCommit(DefaultTransactionStatus status) {
+        Timer timer = (Timer) TransactionSynchronizationManager.getResource(this);
+        try {
+            super.doCommit(status);
+            if (timer != null) {
+                timer.completed(true, null);
+            }
+        } catch (RuntimeException e) {
+            if (timer != null) {
+                // 随后的 doRollback 也按提交失败的异常计数
+                timer.failure = e.getClass().getName();
+                timer.completed(false, timer.failure);
+            }
+            throw e;
+        }
+    }
+
+    @Override
+    protected void doRollback(DefaultTransactionStatus status) {
+        Timer timer = (Timer) TransactionSynchronizationManager.getResource(this);
+        try {
+            super.doRollback(status);
+        } finally {
+            if (timer != null) {
+                timer.completed(false, timer.failure != null ? timer.failure : TransactionMetrics.ROLLBACK_ONLY);
+            }
+        }
+    }
+
+    @Override
+    protected void doCleanupAfterCompletion(Object transaction) {
+        try {
+            super.doCleanupAfterCompletion(transaction);
+        } finally {
+            Timer timer = (Timer) TransactionSynchronizationManager.unbindResourceIfPossible(this);
+            if (timer != null) {
+                record(timer, System.nanoTime());
+            }
+        }
+    }
+
+    private void record(Timer timer, long released) {
+        // 提交本身抛出异常且未进入 doRollback 时，completed 仍为 0
+        long completed = timer.completed != 0 ? timer.completed : released;
+        long duration = completed - timer.begin;
+        long hold = released - timer.connected;
+        boolean slow = duration > slowThresholdNanos;
+        String rollbackCause = timer.rollbackCause != null ? timer.rollbackCause : TransactionMetrics.ROLLBACK_ONLY;
+        timer.stats.record(timer.committed, rollbackCause, duration, hold, slow);
+        if (slow) {
+            log.warn("slow transaction {}: {} ms, connection held {} ms, {}.", timer.stats.getName(),
+                    TimeUnit.NANOSECONDS.toMillis(duration), TimeUnit.NANOSECONDS.toMillis(hold),
+                    timer.committed ? "committed" : "rolled back by " + rollbackCause);
+        }
+    }
+
+    /**
+     * 单个事务的计时状态，只在所属线程上访问
+     */
+    private static final class Timer {
+        private final TransactionMetrics.Stats stats;
+        private final long begin;
+        private final long connected;
+        private String failure;
+        private long completed;
+        private boolean committed;
+        private String rollbackCause;
+
+        private Timer(TransactionMetrics.Stats stats, long begin, long connected) {
+            this.stats = stats;
+            this.begin = begin;
+            this.connected = connected;
+        }
+
+        private void completed(boolean committed, String rollbackCause) {
+            this.completed = System.nanoTime();
+            this.committed = committed;
+            this.rollbackCause = rollbackCause;
+        }
+    }
+
+    private static final class SuspendedResources {
+        private final Object connectionHolder;
+        private final Object timer;
+
+        private SuspendedResources(Object connectionHolder, Object timer) {
+            this.connectionHolder = connectionHolder;
+            this.timer = timer;
+        }
+    }
+
+}
@@ -0,0 +1,82 @@
+package com.deemo.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.Connection;
+import java.sql.SQLException;
+
+/**
+ * 交给连接池用来建立物理连接的数据源，物理连接被连接池关闭时记录存活时长。
+ * <p>
+ * HikariCP 的 MetricsTracker 没有连接销毁的回调，所以在连接池之下包一层；
+ * 每次 JDBC 调用多一次反射转发，相比网络往返可以忽略。
+ */
+class LifetimeDataSource extends DelegatingDataSource {
+    private final PoolMetrics metrics;
+
+    LifetimeDataSource(DataSource driver, PoolMetrics metrics) {
+        super(driver);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return track(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return track(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    private Connection track(Connection connection) {
+        metrics.connectionOpened();
+        return (Connection) Proxy.newProxyInstance(LifetimeDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new PhysicalConnection(connection, System.nanoTime()));
+    }
+
+    /**
+     * 只拦截 close，其余方法原样转发
+     */
+    private class PhysicalConnection implements InvocationHandler {
+        private final Connection target;
+        private final long opened;
+        private boolean closed;
+
+        private PhysicalConnection(Connection target, long opened) {
+            this.target = target;
+            this.opened = opened;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "close":
+                    if (!closed) {
+                        closed = true;
+                        metrics.connectionClosed(System.nanoTime() - opened);
+                    }
+                    break;
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Physical connection " + target;
+                default:
+            }
+
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+}
@@ -0,0 +1,90 @@
+package com.deemo.datasource;
+
+import com.deemo.metrics.LatencyHistogram;
+
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 连接池统计：获取等待时间、超时次数、连接借出时长与当前借出数，以及物理连接的建立次数与存活时长。
+ * <p>
+ * 借出时长（lease）是应用从 getConnection 到 close 的时间；存活时长（lifetime）是物理连接从建立到被连接池关闭的时间，
+ * 由 {@link PoolType} 通过各连接池自己的扩展点记录。
+ */
+public class PoolMetrics {
+    private final LatencyHistogram acquireTime = new LatencyHistogram();
+    private final LatencyHistogram leaseTime = new LatencyHistogram();
+    private final LatencyHistogram lifetime = new LatencyHistogram();
+    private final LongAdder opened = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder failures = new LongAdder();
+    private final AtomicInteger active = new AtomicInteger();
+
+    void acquired(long waitNanos) {
+        acquireTime.record(waitNanos);
+        active.incrementAndGet();
+    }
+
+    void acquireFailed(long waitNanos, boolean timeout) {
+        acquireTime.record(waitNanos);
+        if (timeout) {
+            timeouts.increment();
+        } else {
+            failures.increment();
+        }
+    }
+
+    void released(long leaseNanos) {
+        active.decrementAndGet();
+        leaseTime.record(leaseNanos);
+    }
+
+    void connectionOpened() {
+        opened.increment();
+    }
+
+    void connectionClosed(long lifetimeNanos) {
+        lifetime.record(lifetimeNanos);
+    }
+
+    public int getActive() {
+        return active.get();
+    }
+
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    public long getFailures() {
+        return failures.sum();
+    }
+
+    /**
+     * 连接池建立过的物理连接数
+     */
+    public long getOpened() {
+        return opened.sum();
+    }
+
+    /**
+     * 获取连接的等待时间，包括失败的获取
+     */
+    public LatencyHistogram.Snapshot getAcquireTime() {
+        return acquireTime.snapshot();
+    }
+
+    /**
+     * 连接从借出到归还（close）的时长
+     */
+    public LatencyHistogram.Snapshot getLeaseTime() {
+        return leaseTime.snapshot();
+    }
+
+    /**
+     * 物理连接从建立到被连接池关闭（到期回收、校验失败或连接池关闭）的时长，只包含已关闭的连接
+     */
+    public LatencyHistogram.Snapshot getLifetime() {
+        return lifetime.snapshot();
+    }
+
+}
@@ -0,0 +1,81 @@
+package com.deemo.datasource;
+
+import lombok.Data;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.util.StringUtils;
+
+/**
+ * 连接池配置，见 jdbc.properties
+ */
+@Data
+@Component
+public class PoolProperties {
+    @Value("${jdbc.pool.type:C3P0}")
+    private PoolType type = PoolType.C3P0;
+    @Value("${jdbc.driver-class}")
+    private String driverClass;
+    @Value("${jdbc.url}")
+    private String url;
+    @Value("${jdbc.username}")
+    private String username;
+    @Value("${jdbc.password}")
+    private String password;
+    @Value("${jdbc.pool.min-size:3}")
+    private int minSize = 3;
+    @Value("${jdbc.pool.max-size:15}")
+    private int maxSize = 15;
+    /**
+     * 从池中获取连接的最长等待时间
+     */
+    @Value("${jdbc.pool.acquire-timeout-ms:30000}")
+    private long acquireTimeoutMillis = 30_000;
+    /**
+     * 物理连接的最长存活时间，到期后由连接池回收重建
+     */
+    @Value("${jdbc.pool.max-lifetime-ms:1800000}")
+    private long maxLifetimeMillis = 1_800_000;
+
+    /**
+     * 从库地址，为空则不开启读写分离；从库账号未配置时沿用主库账号
+     */
+    @Value("${jdbc.replica.url:}")
+    private String replicaUrl;
+    @Value("${jdbc.replica.username:}")
+    private String replicaUsername;
+    @Value("${jdbc.replica.password:}")
+    private String replicaPassword;
+
+    public boolean hasReplica() {
+        return StringUtils.hasText(replicaUrl);
+    }
+
+    /**
+     * 从库沿用主库的连接池配置，只替换地址与账号
+     */
+    public PoolProperties forReplica() {
+        boolean ownAccount = StringUtils.hasText(replicaUsername);
+        return copy(replicaUrl, ownAccount ? replicaUsername : username, ownAccount ? replicaPassword : password);
+    }
+
+    /**
+     * 分片沿用主库的连接池配置与账号，只替换地址
+     */
+    public PoolProperties forShard(String shardUrl) {
+        return copy(shardUrl, username, password);
+    }
+
+    private PoolProperties copy(String url, String username, String password) {
+        PoolProperties copy = new PoolProperties();
+        copy.setType(type);
+        copy.setDriverClass(driverClass);
+        copy.setUrl(url);
+        copy.setUsername(username);
+        copy.setPassword(password);
+        copy.setMinSize(minSize);
+        copy.setMaxSize(maxSize);
+        copy.setAcquireTimeoutMillis(acquireTimeoutMillis);
+        copy.setMaxLifetimeMillis(maxLifetimeMillis);
+        return copy;
+    }
+}
@@ -0,0 +1,138 @@
+package com.deemo.datasource;
+
+import com.mchange.v2.c3p0.ComboPooledDataSource;
+import com.mchange.v2.resourcepool.TimeoutException;
+import com.zaxxer.hikari.HikariConfig;
+import com.zaxxer.hikari.HikariDataSource;
+import com.zaxxer.hikari.HikariPoolMXBean;
+import com.zaxxer.hikari.util.DriverDataSource;
+import org.springframework.beans.factory.BeanCreationException;
+
+import javax.sql.DataSource;
+import java.beans.PropertyVetoException;
+import java.sql.SQLException;
+import java.sql.SQLTransientException;
+import java.util.Collections;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 支持的连接池实现，屏蔽各自的配置方式与统计接口
+ */
+public enum PoolType {
+    C3P0 {
+        @Override
+        DataSource create(PoolProperties properties, PoolMetrics metrics) {
+            ComboPooledDataSource dataSource = new ComboPooledDataSource();
+            try {
+                dataSource.setDriverClass(properties.getDriverClass());
+            } catch (PropertyVetoException e) {
+                throw new BeanCreationException("dataSource", "Invalid driver class: " + properties.getDriverClass(), e);
+            }
+            dataSource.setJdbcUrl(properties.getUrl());
+            dataSource.setUser(properties.getUsername());
+            dataSource.setPassword(properties.getPassword());
+            dataSource.setInitialPoolSize(properties.getMinSize());
+            dataSource.setMinPoolSize(properties.getMinSize());
+            dataSource.setMaxPoolSize(properties.getMaxSize());
+            dataSource.setCheckoutTimeout((int) properties.getAcquireTimeoutMillis());
+            dataSource.setMaxConnectionAge((int) TimeUnit.MILLISECONDS.toSeconds(properties.getMaxLifetimeMillis()));
+            dataSource.setConnectionCustomizerClassName(C3p0LifetimeCustomizer.class.getName());
+            dataSource.setExtensions(Collections.singletonMap(C3p0LifetimeCustomizer.METRICS, metrics));
+            return dataSource;
+        }
+
+        @Override
+        int idleConnections(DataSource dataSource) {
+            try {
+                return ((ComboPooledDataSource) dataSource).getNumIdleConnectionsDefaultUser();
+            } catch (SQLException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        int totalConnections(DataSource dataSource) {
+            try {
+                return ((ComboPooledDataSource) dataSource).getNumConnectionsDefaultUser();
+            } catch (SQLException e) {
+                return -1;
+            }
+        }
+
+        @Override
+        boolean isTimeout(SQLException e) {
+            return e.getCause() instanceof TimeoutException;
+        }
+
+        @Override
+        void close(DataSource dataSource) {
+            // PooledDataSource 没有实现 AutoCloseable
+            ((ComboPooledDataSource) dataSource).close();
+        }
+    },
+
+    HIKARI {
+        @Override
+        DataSource create(PoolProperties properties, PoolMetrics metrics) {
+            HikariConfig config = new HikariConfig();
+            // 自己建立物理连接，以便记录存活时长；与 HikariCP 按 jdbcUrl 建立连接的方式相同
+            DataSource driver = new DriverDataSource(properties.getUrl(), properties.getDriverClass(), new Properties(),
+                    properties.getUsername(), properties.getPassword());
+            config.setDataSource(new LifetimeDataSource(driver, metrics));
+            config.setMinimumIdle(properties.getMinSize());
+            config.setMaximumPoolSize(properties.getMaxSize());
+            config.setConnectionTimeout(properties.getAcquireTimeoutMillis());
+            config.setMaxLifetime(properties.getMaxLifetimeMillis());
+            return new HikariDataSource(config);
+        }
+
+        @Override
+        int idleConnections(DataSource dataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            return pool == null ? -1 : pool.getIdleConnections();
+        }
+
+        @Override
+        int totalConnections(DataSource dataSource) {
+            HikariPoolMXBean pool = ((HikariDataSource) dataSource).getHikariPoolMXBean();
+            return pool == null ? -1 : pool.getTotalConnections();
+        }
+
+        @Override
+        boolean isTimeout(SQLException e) {
+            // SQLTransientConnectionException
+            return e instanceof SQLTransientException;
+        }
+
+        @Override
+        void close(DataSource dataSource) {
+            ((HikariDataSource) dataSource).close();
+        }
+    };
+
+    /**
+     * 创建连接池，物理连接的建立与关闭记录到 metrics
+     */
+    abstract DataSource create(PoolProperties properties, PoolMetrics metrics);
+
+    /**
+     * 池中空闲的物理连接数，未知时返回 -1
+     */
+    abstract int idleConnections(DataSource dataSource);
+
+    /**
+     * 池中全部物理连接数，未知时返回 -1
+     */
+    abstract int totalConnections(DataSource dataSource);
+
+    /**
+     * 获取连接失败的原因是否为等待超时
+     */
+    abstract boolean isTimeout(SQLException e);
+
+    /**
+     * 关闭连接池及其中的物理连接
+     */
+    abstract void close(DataSource dataSource);
+}
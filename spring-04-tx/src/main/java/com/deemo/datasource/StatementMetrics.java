@@ -0,0 +1,284 @@
+package com.deemo.datasource;
+
+import com.deemo.metrics.LatencyHistogram;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按归一化后的 SQL 统计执行次数、失败次数与延迟分布，由 {@link TimingDataSource} 记录。
+ * <p>
+ * 计数全部是 LongAdder 与无锁直方图；SQL 归一化在 prepare 时做一次并缓存，不在每次执行时做。
+ */
+@Component
+@ManagedResource(objectName = "com.deemo:type=StatementMetrics", description = "JDBC statement timings")
+public class StatementMetrics {
+    private static final int MAX_CACHED_SQL = 10_000;
+    /**
+     * 归一化后仍然千变万化的 SQL（例如长度不一的 IN 列表）超出上限后合并统计
+     */
+    private static final int MAX_STATEMENTS = 1_000;
+    private static final String OTHER_KEY = "<other statements>";
+
+    private final Map<String, Stats> statistics = new ConcurrentHashMap<>();
+    private final Map<String, String> normalized = new ConcurrentHashMap<>();
+
+    /**
+     * 获取归一化 SQL 对应的计数器，供语句代理在 prepare 时缓存
+     */
+    public Stats statsFor(String sql) {
+        String key = normalize(sql);
+        Stats stats = statistics.get(key);
+        if (stats != null) {
+            return stats;
+        }
+        return statistics.computeIfAbsent(statistics.size() < MAX_STATEMENTS ? key : OTHER_KEY, Stats::new);
+    }
+
+    /**
+     * 语句代理缓存的计数器在 {@link #reset()} 之后作废，按原始 SQL 换成当前的计数器；未作废时直接返回，只多读一次 volatile 字段
+     */
+    public Stats live(Stats stats, String sql) {
+        return stats.retired ? statsFor(sql) : stats;
+    }
+
+    public String normalize(String sql) {
+        String key = normalized.get(sql);
+        if (key == null) {
+            key = doNormalize(sql);
+            if (normalized.size() < MAX_CACHED_SQL) {
+                normalized.put(sql, key);
+            }
+        }
+        return key;
+    }
+
+    public List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>(statistics.size());
+        for (Stats stats : statistics.values()) {
+            snapshots.add(new Snapshot(stats.sql, stats.count.sum(), stats.errors.sum(), stats.latency.snapshot()));
+        }
+        snapshots.sort(Comparator.comparingDouble((Snapshot snapshot) -> snapshot.getTotalNanos()).reversed());
+        return snapshots;
+    }
+
+    @ManagedAttribute(description = "One line per statement, sorted by total time")
+    public String[] getStatements() {
+        List<Snapshot> snapshots = snapshot();
+        String[] lines = new String[snapshots.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = snapshots.get(i).toString();
+        }
+        return lines;
+    }
+
+    @ManagedOperation(description = "Clear all statement statistics")
+    public void reset() {
+        // 逐个移除并作废，仍在使用旧计数器的语句代理在下次记录时换成新的
+        for (String sql : statistics.keySet()) {
+            Stats removed = statistics.remove(sql);
+            if (removed != null) {
+                removed.retired = true;
+            }
+        }
+    }
+
+    /**
+     * 去掉字面量与多余空白：'abc' 与数字替换为 ?，空白折叠为一个空格，多行 VALUES 折叠为一组
+     */
+    static String doNormalize(String sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            char c = sql.charAt(i);
+            if (Character.isWhitespace(c)) {
+                while (i < length && Character.isWhitespace(sql.charAt(i))) {
+                    i++;
+                }
+                if (builder.length() > 0) {
+                    builder.append(' ');
+                }
+                continue;
+            }
+            if (c == '\'') {
+                i++;
+                while (i < length) {
+                    if (sql.charAt(i) == '\'') {
+                        if (i + 1 < length && sql.charAt(i + 1) == '\'') {
+                            i += 2;
+                            continue;
+                        }
+                        break;
+                    }
+                    i++;
+                }
+                builder.append('?');
+                i++;
+                continue;
+            }
+            if (Character.isDigit(c) && !partOfIdentifier(builder)) {
+                while (i < length && (Character.isDigit(sql.charAt(i)) || sql.charAt(i) == '.')) {
+                    i++;
+                }
+                builder.append('?');
+                continue;
+            }
+            builder.append(c);
+            i++;
+        }
+        int end = builder.length();
+        while (end > 0 && builder.charAt(end - 1) == ' ') {
+            end--;
+        }
+        builder.setLength(end);
+        return collapseGroups(builder);
+    }
+
+    /**
+     * 多行 VALUES 的每个括号组折叠成一个，行数不同的语句归为同一个 key。
+     * 手工扫描而不用正则：java.util.regex 的分组重复是递归匹配的，上千行的语句会栈溢出
+     */
+    private static String collapseGroups(CharSequence sql) {
+        StringBuilder builder = new StringBuilder(sql.length());
+        int length = sql.length();
+        int i = 0;
+        while (i < length) {
+            int end = groupEnd(sql, i);
+            if (end < 0) {
+                builder.append(sql.charAt(i++));
+                continue;
+            }
+            builder.append(sql, i, end);
+            int next = end;
+            boolean repeated = false;
+            for (int following = followingGroupEnd(sql, next); following > 0; following = followingGroupEnd(sql, next)) {
+                next = following;
+                repeated = true;
+            }
+            if (repeated) {
+                builder.append(", ...");
+            }
+            i = next;
+        }
+        return builder.toString();
+    }
+
+    /**
+     * 从 i 开始是逗号（可带一个空格）加括号组时返回括号组的结束位置，否则返回 -1
+     */
+    private static int followingGroupEnd(CharSequence sql, int i) {
+        if (i >= sql.length() || sql.charAt(i) != ',') {
+            return -1;
+        }
+        i++;
+        if (i < sql.length() && sql.charAt(i) == ' ') {
+            i++;
+        }
+        return groupEnd(sql, i);
+    }
+
+    /**
+     * 从 i 开始是形如 (?, ?, ?) 的括号组时返回其结束位置，否则返回 -1
+     */
+    private static int groupEnd(CharSequence sql, int i) {
+        int length = sql.length();
+        if (i >= length || sql.charAt(i) != '(') {
+            return -1;
+        }
+        i++;
+        while (i < length && sql.charAt(i) == '?') {
+            i++;
+            if (i < length && sql.charAt(i) == ')') {
+                return i + 1;
+            }
+            if (i >= length || sql.charAt(i) != ',') {
+                return -1;
+            }
+            i++;
+            if (i < length && sql.charAt(i) == ' ') {
+                i++;
+            }
+        }
+        return -1;
+    }
+
+    private static boolean partOfIdentifier(StringBuilder builder) {
+        if (builder.length() == 0) {
+            return false;
+        }
+        char previous = builder.charAt(builder.length() - 1);
+        return Character.isLetterOrDigit(previous) || previous == '_' || previous == '`' || previous == '$';
+    }
+
+    /**
+     * 单条归一化 SQL 的计数器
+     */
+    public static final class Stats {
+        private final String sql;
+        private final LongAdder count = new LongAdder();
+        private final LongAdder errors = new LongAdder();
+        private final LatencyHistogram latency = new LatencyHistogram();
+        private volatile boolean retired;
+
+        private Stats(String sql) {
+            this.sql = sql;
+        }
+
+        void record(long nanos, boolean error) {
+            count.increment();
+            if (error) {
+                errors.increment();
+            }
+            latency.record(nanos);
+        }
+    }
+
+    public static final class Snapshot {
+        private final String sql;
+        private final long count;
+        private final long errors;
+        private final LatencyHistogram.Snapshot latency;
+
+        private Snapshot(String sql, long count, long errors, LatencyHistogram.Snapshot latency) {
+            this.sql = sql;
+            this.count = count;
+            this.errors = errors;
+            this.latency = latency;
+        }
+
+        public String getSql() {
+            return sql;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getErrors() {
+            return errors;
+        }
+
+        public LatencyHistogram.Snapshot getLatency() {
+            return latency;
+        }
+
+        public double getTotalNanos() {
+            return latency.getMean() * latency.getCount();
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s | errors=%d, %s", sql, errors, latency);
+        }
+    }
+
+}
@@ -0,0 +1,208 @@
+package com.deemo.datasource;
+
+import org.springframework.jdbc.datasource.DelegatingDataSource;
+
+import javax.sql.DataSource;
+import java.lang.reflect.InvocationHandler;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.sql.CallableStatement;
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Statement;
+
+/**
+ * 为每次语句执行计时，按归一化 SQL 记录到 {@link StatementMetrics}。
+ * <p>
+ * PreparedStatement 在 prepare 时就确定计数器，执行时只多两次 nanoTime 与几次原子自增；
+ * executeQuery 只统计到拿到 ResultSet 为止，不包含逐行读取。
+ * <p>
+ * 连接与语句都是 JDK 动态代理，每次 JDBC 调用多一次反射转发，开销见 spring-06-benchmark 的 StatementMetricsBenchmark；
+ * 语句的 getConnection 返回代理后的连接，不会绕过计时。
+ */
+public class TimingDataSource extends DelegatingDataSource implements AutoCloseable {
+    private static final String BATCH_KEY = "<statement batch>";
+
+    private final StatementMetrics metrics;
+
+    public TimingDataSource(DataSource target, StatementMetrics metrics) {
+        super(target);
+        this.metrics = metrics;
+    }
+
+    @Override
+    public Connection getConnection() throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection());
+    }
+
+    @Override
+    public Connection getConnection(String username, String password) throws SQLException {
+        return wrap(obtainTargetDataSource().getConnection(username, password));
+    }
+
+    public StatementMetrics getMetrics() {
+        return metrics;
+    }
+
+    @Override
+    public void close() throws Exception {
+        DataSource target = obtainTargetDataSource();
+        if (target instanceof AutoCloseable) {
+            ((AutoCloseable) target).close();
+        }
+    }
+
+    private Connection wrap(Connection connection) {
+        return (Connection) Proxy.newProxyInstance(TimingDataSource.class.getClassLoader(),
+                new Class<?>[]{Connection.class}, new ConnectionHandler(connection));
+    }
+
+    private static boolean isExecute(String name) {
+        return name.startsWith("execute");
+    }
+
+    /**
+     * 代理自己处理 Object 与 {@link java.sql.Wrapper} 的方法：equals/hashCode 按代理对象的身份，
+     * unwrap/isWrapperFor 先看代理本身，再交给被包装的对象
+     */
+    private abstract static class Handler implements InvocationHandler {
+        final Object target;
+
+        Handler(Object target) {
+            this.target = target;
+        }
+
+        @Override
+        public Object invoke(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "equals":
+                    return proxy == args[0];
+                case "hashCode":
+                    return System.identityHashCode(proxy);
+                case "toString":
+                    return "Timed " + target;
+                case "unwrap":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return proxy;
+                    }
+                    break;
+                case "isWrapperFor":
+                    if (((Class<?>) args[0]).isInstance(proxy)) {
+                        return true;
+                    }
+                    break;
+                default:
+                    return handle(proxy, method, args);
+            }
+            return forward(method, args);
+        }
+
+        abstract Object handle(Object proxy, Method method, Object[] args) throws Throwable;
+
+        Object forward(Method method, Object[] args) throws Throwable {
+            try {
+                return method.invoke(target, args);
+            } catch (InvocationTargetException e) {
+                throw e.getTargetException();
+            }
+        }
+    }
+
+    private class ConnectionHandler extends Handler {
+
+        private ConnectionHandler(Connection target) {
+            super(target);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            switch (method.getName()) {
+                case "prepareStatement":
+                case "prepareCall":
+                    Object statement = forward(method, args);
+                    Class<?> type = "prepareCall".equals(method.getName()) ? CallableStatement.class : PreparedStatement.class;
+                    return Proxy.newProxyInstance(TimingDataSource.class.getClassLoader(), new Class<?>[]{type},
+                            new PreparedHandler(statement, (Connection) proxy, (String) args[0]));
+                case "createStatement":
+                    return Proxy.newProxyInstance(TimingDataSource.class.getClassLoader(), new Class<?>[]{Statement.class},
+                            new StatementHandler(forward(method, args), (Connection) proxy));
+                default:
+                    return forward(method, args);
+            }
+        }
+    }
+
+    /**
+     * 语句在 prepare 时已绑定计数器；{@link StatementMetrics#reset()} 之后在下次执行时换成新的计数器
+     */
+    private class PreparedHandler extends Handler {
+        private final Connection connection;
+        private final String sql;
+        private StatementMetrics.Stats stats;
+
+        private PreparedHandler(Object target, Connection connection, String sql) {
+            super(target);
+            this.connection = connection;
+            this.sql = sql;
+            this.stats = metrics.statsFor(sql);
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return connection;
+            }
+            if (!isExecute(name)) {
+                return forward(method, args);
+            }
+            long start = System.nanoTime();
+            boolean error = true;
+            try {
+                Object result = forward(method, args);
+                error = false;
+                return result;
+            } finally {
+                stats = metrics.live(stats, sql);
+                stats.record(System.nanoTime() - start, error);
+            }
+        }
+    }
+
+    /**
+     * 普通 Statement 每次执行的 SQL 可能不同，按参数中的 SQL 归类（归一化结果有缓存）
+     */
+    private class StatementHandler extends Handler {
+        private final Connection connection;
+
+        private StatementHandler(Object target, Connection connection) {
+            super(target);
+            this.connection = connection;
+        }
+
+        @Override
+        Object handle(Object proxy, Method method, Object[] args) throws Throwable {
+            String name = method.getName();
+            if ("getConnection".equals(name)) {
+                return connection;
+            }
+            if (!isExecute(name)) {
+                return forward(method, args);
+            }
+            StatementMetrics.Stats stats = metrics.statsFor(args != null && args.length > 0 && args[0] instanceof String
+                    ? (String) args[0] : BATCH_KEY);
+            long start = System.nanoTime();
+            boolean error = true;
+            try {
+                Object result = forward(method, args);
+                error = false;
+                return result;
+            } finally {
+                stats.record(System.nanoTime() - start, error);
+            }
+        }
+    }
+
+}
@@ -0,0 +1,169 @@
+package com.deemo.datasource;
+
+import com.deemo.metrics.LatencyHistogram;
+import org.springframework.jmx.export.annotation.ManagedAttribute;
+import org.springframework.jmx.export.annotation.ManagedOperation;
+import org.springframework.jmx.export.annotation.ManagedResource;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 按事务名（@Transactional 方法的全限定名）统计提交、回滚次数与耗时，由 {@link InstrumentedTransactionManager} 记录。
+ * <ul>
+ *     <li>duration：从开启事务到提交 / 回滚完成</li>
+ *     <li>connectionHold：从拿到连接到事务清理后归还连接</li>
+ *     <li>rollbacks：按触发回滚的异常类型分别计数</li>
+ * </ul>
+ */
+@Component
+@ManagedResource(objectName = "com.deemo:type=TransactionMetrics", description = "Transaction timings and outcomes")
+public class TransactionMetrics {
+    /**
+     * TransactionTemplate 等编程式事务没有名字
+     */
+    public static final String UNNAMED = "<unnamed>";
+    /**
+     * 没有异常、由 setRollbackOnly 触发的回滚
+     */
+    public static final String ROLLBACK_ONLY = "<rollback-only>";
+
+    private final Map<String, Stats> statistics = new ConcurrentHashMap<>();
+
+    public Stats statsFor(String name) {
+        String key = name == null ? UNNAMED : name;
+        Stats stats = statistics.get(key);
+        return stats != null ? stats : statistics.computeIfAbsent(key, Stats::new);
+    }
+
+    public List<Snapshot> snapshot() {
+        List<Snapshot> snapshots = new ArrayList<>(statistics.size());
+        for (Stats stats : statistics.values()) {
+            Map<String, Long> rollbacks = new TreeMap<>();
+            stats.rollbacks.forEach((cause, count) -> rollbacks.put(cause, count.sum()));
+            snapshots.add(new Snapshot(stats.name, stats.commits.sum(), rollbacks, stats.slow.sum(),
+                    stats.duration.snapshot(), stats.connectionHold.snapshot()));
+        }
+        snapshots.sort(Comparator.comparing(Snapshot::getName));
+        return snapshots;
+    }
+
+    @ManagedAttribute(description = "One line per transaction name")
+    public String[] getTransactions() {
+        List<Snapshot> snapshots = snapshot();
+        String[] lines = new String[snapshots.size()];
+        for (int i = 0; i < lines.length; i++) {
+            lines[i] = snapshots.get(i).toString();
+        }
+        return lines;
+    }
+
+    @ManagedOperation(description = "Clear all transaction statistics")
+    public void reset() {
+        statistics.clear();
+    }
+
+    /**
+     * 单个事务名的计数器
+     */
+    public static final class Stats {
+        private final String name;
+        private final LongAdder commits = new LongAdder();
+        private final Map<String, LongAdder> rollbacks = new ConcurrentHashMap<>();
+        private final LongAdder slow = new LongAdder();
+        private final LatencyHistogram duration = new LatencyHistogram();
+        private final LatencyHistogram connectionHold = new LatencyHistogram();
+
+        private Stats(String name) {
+            this.name = name;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        void record(boolean committed, String rollbackCause, long durationNanos, long holdNanos, boolean isSlow) {
+            if (committed) {
+                commits.increment();
+            } else {
+                LongAdder counter = rollbacks.get(rollbackCause);
+                if (counter == null) {
+                    counter = rollbacks.computeIfAbsent(rollbackCause, cause -> new LongAdder());
+                }
+                counter.increment();
+            }
+            if (isSlow) {
+                slow.increment();
+            }
+            duration.record(durationNanos);
+            connectionHold.record(holdNanos);
+        }
+    }
+
+    public static final class Snapshot {
+        private final String name;
+        private final long commits;
+        private final Map<String, Long> rollbacks;
+        private final long slow;
+        private final LatencyHistogram.Snapshot duration;
+        private final LatencyHistogram.Snapshot connectionHold;
+
+        private Snapshot(String name, long commits, Map<String, Long> rollbacks, long slow,
+                         LatencyHistogram.Snapshot duration, LatencyHistogram.Snapshot connectionHold) {
+            this.name = name;
+            this.commits = commits;
+            this.rollbacks = rollbacks;
+            this.slow = slow;
+            this.duration = duration;
+            this.connectionHold = connectionHold;
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public long getCommits() {
+            return commits;
+        }
+
+        /**
+         * 异常类名 -> 回滚次数，按类名排序
+         */
+        public Map<String, Long> getRollbacks() {
+            return rollbacks;
+        }
+
+        public long getRollbackCount() {
+            long total = 0;
+            for (long count : rollbacks.values()) {
+                total += count;
+            }
+            return total;
+        }
+
+        public long getSlow() {
+            return slow;
+        }
+
+        public LatencyHistogram.Snapshot getDuration() {
+            return duration;
+        }
+
+        public LatencyHistogram.Snapshot getConnectionHold() {
+            return connectionHold;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%s | commits=%d, rollbacks=%s, slow=%d | duration: %s | connection: %s",
+                    name, commits, rollbacks, slow, duration, connectionHold);
+        }
+    }
+
+}
@@ -0,0 +1,18 @@
+package com.deemo.entity;
+
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+public class Game {
+    private Long id;
+    private String name;
+    private double price;
+    private String description;
+
+    public Game(String name, double price) {
+        this.name = name;
+        this.price = price;
+    }
+}
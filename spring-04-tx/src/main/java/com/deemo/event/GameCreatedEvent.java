@@ -0,0 +1,43 @@
+package com.deemo.event;
+
+import com.deemo.entity.Game;
+import lombok.Getter;
+import lombok.ToString;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * 新增 game 后发布；监听方通常使用 @TransactionalEventListener，在事务提交后才处理
+ */
+@Getter
+@ToString
+public class GameCreatedEvent {
+    private final List<Game> games;
+
+    public GameCreatedEvent(List<Game> games) {
+        this.games = Collections.unmodifiableList(games);
+    }
+
+    public static GameCreatedEvent of(Game game) {
+        return new GameCreatedEvent(Collections.singletonList(game));
+    }
+
+    /**
+     * 只保留写入成功的行
+     *
+     * @param results 与 games 顺序一致的每行插入结果
+     */
+    public static GameCreatedEvent of(Collection<Game> games, boolean[] results) {
+        List<Game> inserted = new ArrayList<>(games.size());
+        int i = 0;
+        for (Game game : games) {
+            if (results[i++]) {
+                inserted.add(game);
+            }
+        }
+        return new GameCreatedEvent(inserted);
+    }
+}
@@ -0,0 +1,194 @@
+package com.deemo.event.outbox;
+
+import com.deemo.entity.Game;
+import com.deemo.event.GameCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.ObjectProvider;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.event.TransactionPhase;
+import org.springframework.transaction.event.TransactionalEventListener;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 事务提交后的发件箱：{@link GameCreatedEvent} 在 AFTER_COMMIT 回调中编码后追加到 {@link OutboxJournal}，
+ * 提交线程只付出一次内存拷贝；后台 relay 线程按批读取并转发给所有 {@link GameOutboxListener}，
+ * 整批成功后才推进 checkpoint，失败则整批重试，因此是至少一次投递。读取、解码或投递失败都只记录日志和计数，relay 线程不会退出。
+ * <p>
+ * relay 空闲时按 poll-interval-ms 轮询，不在追加路径上唤醒它，避免提交线程多一次系统调用。
+ */
+@Slf4j
+@Component
+public class GameOutbox implements InitializingBean, DisposableBean {
+    private final ObjectProvider<GameOutboxListener> listeners;
+    private final boolean enabled;
+    private final Path directory;
+    private final int segmentSize;
+    private final int maxBatch;
+    private final long pollIntervalNanos;
+    private final long retryBackoffNanos;
+
+    private final LongAdder appended = new LongAdder();
+    private final LongAdder delivered = new LongAdder();
+    private final LongAdder failedDeliveries = new LongAdder();
+    private final LongAdder failedReads = new LongAdder();
+
+    private OutboxJournal journal;
+    private Thread relay;
+    private volatile boolean running;
+
+    public GameOutbox(ObjectProvider<GameOutboxListener> listeners,
+                      @Value("${game.outbox.enabled:false}") boolean enabled,
+                      @Value("${game.outbox.directory:${java.io.tmpdir}/game-outbox}") String directory,
+                      @Value("${game.outbox.segment-size:16777216}") int segmentSize,
+                      @Value("${game.outbox.max-batch:500}") int maxBatch,
+                      @Value("${game.outbox.poll-interval-ms:20}") long pollIntervalMillis,
+                      @Value("${game.outbox.retry-backoff-ms:1000}") long retryBackoffMillis) {
+        this.listeners = listeners;
+        this.enabled = enabled;
+        this.directory = Paths.get(directory);
+        this.segmentSize = segmentSize;
+        this.maxBatch = maxBatch;
+        this.pollIntervalNanos = TimeUnit.MILLISECONDS.toNanos(pollIntervalMillis);
+        this.retryBackoffNanos = TimeUnit.MILLISECONDS.toNanos(retryBackoffMillis);
+    }
+
+    @Override
+    public void afterPropertiesSet() throws IOException {
+        if (!enabled) {
+            return;
+        }
+        this.journal = OutboxJournal.open(directory, segmentSize);
+        this.running = true;
+        this.relay = new Thread(this::relay, "game-outbox-relay");
+        this.relay.setDaemon(true);
+        this.relay.start();
+    }
+
+    @TransactionalEventListener(phase = TransactionPhase.AFTER_COMMIT, fallbackExecution = true)
+    public void onGameCreated(GameCreatedEvent event) {
+        if (journal == null || event.getGames().isEmpty()) {
+            return;
+        }
+        // 事务已提交，这里抛出异常也无法回滚，只记录日志
+        try {
+            journal.append(encode(event));
+            appended.increment();
+        } catch (RuntimeException e) {
+            log.error("failed to append {} to the outbox!", event, e);
+        }
+    }
+
+    public long getAppended() {
+        return appended.sum();
+    }
+
+    public long getDelivered() {
+        return delivered.sum();
+    }
+
+    public long getFailedDeliveries() {
+        return failedDeliveries.sum();
+    }
+
+    public long getFailedReads() {
+        return failedReads.sum();
+    }
+
+    /**
+     * 是否所有已追加的事件都已投递并 checkpoint
+     */
+    public boolean isDrained() {
+        return journal == null || journal.getCheckpoint() == journal.getPublished();
+    }
+
+    private void relay() {
+        long position = journal.getCheckpoint();
+        List<GameCreatedEvent> batch = new ArrayList<>(maxBatch);
+        while (running) {
+            batch.clear();
+            long next;
+            try {
+                next = journal.read(position, maxBatch, payload -> batch.add(decode(payload)));
+            } catch (RuntimeException e) {
+                // 读取或解码失败同样停在原位置重试，不能让 relay 线程退出
+                failedReads.increment();
+                log.error("failed to read outbox events at {}, retrying.", position, e);
+                LockSupport.parkNanos(this, retryBackoffNanos);
+                continue;
+            }
+            if (batch.isEmpty()) {
+                // 可能只跨过了段结束标记
+                position = next;
+                LockSupport.parkNanos(this, pollIntervalNanos);
+                continue;
+            }
+            try {
+                listeners.orderedStream().forEach(listener -> listener.onEvents(batch));
+                journal.checkpoint(next);
+                position = next;
+                delivered.add(batch.size());
+            } catch (RuntimeException | Error e) {
+                // 监听器抛出的 Error（如 AssertionError、NoClassDefFoundError）也按投递失败处理
+                failedDeliveries.increment();
+                log.warn("failed to deliver {} outbox events, retrying from the last checkpoint.", batch.size(), e);
+                LockSupport.parkNanos(this, retryBackoffNanos);
+            }
+        }
+    }
+
+    @Override
+    public void destroy() throws Exception {
+        if (journal == null) {
+            return;
+        }
+        running = false;
+        LockSupport.unpark(relay);
+        relay.join(TimeUnit.NANOSECONDS.toMillis(retryBackoffNanos) + 5_000);
+        // 未投递的事件保留在日志中，下次启动时从 checkpoint 继续
+        journal.close();
+    }
+
+    /**
+     * [int count] 之后每行 [int nameLength][name UTF-8][double price]
+     */
+    static byte[] encode(GameCreatedEvent event) {
+        List<Game> games = event.getGames();
+        byte[][] names = new byte[games.size()][];
+        int size = Integer.BYTES;
+        for (int i = 0; i < names.length; i++) {
+            names[i] = games.get(i).getName().getBytes(StandardCharsets.UTF_8);
+            size += Integer.BYTES + names[i].length + Double.BYTES;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(size);
+        buffer.putInt(names.length);
+        for (int i = 0; i < names.length; i++) {
+            buffer.putInt(names[i].length).put(names[i]).putDouble(games.get(i).getPrice());
+        }
+        return buffer.array();
+    }
+
+    static GameCreatedEvent decode(ByteBuffer payload) {
+        int count = payload.getInt();
+        List<Game> games = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            byte[] name = new byte[payload.getInt()];
+            payload.get(name);
+            games.add(new Game(new String(name, StandardCharsets.UTF_8), payload.getDouble()));
+        }
+        return new GameCreatedEvent(games);
+    }
+
+}
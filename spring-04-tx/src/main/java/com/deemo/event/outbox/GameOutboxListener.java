@@ -0,0 +1,17 @@
+package com.deemo.event.outbox;
+
+import com.deemo.event.GameCreatedEvent;
+
+import java.util.List;
+
+/**
+ * 接收 {@link GameOutbox} 转发的事件。投递至少一次：失败或进程重启后会从上次的 checkpoint 重新投递，实现需要幂等。
+ */
+@FunctionalInterface
+public interface GameOutboxListener {
+
+    /**
+     * 抛出异常表示整批投递失败，稍后整批重试
+     */
+    void onEvents(List<GameCreatedEvent> events);
+}
@@ -0,0 +1,257 @@
+package com.deemo.event.outbox;
+
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.Consumer;
+
+/**
+ * 基于 mmap 的追加写日志，单写多读：写入只是往映射内存里拷贝字节，不做系统调用。
+ * <p>
+ * 文件按固定大小分段（journal-{id}.seg），每条记录为 [int length][payload]：先写 payload 再写 length，
+ * length 为 0 表示尚未写完（崩溃后从这里继续写，并清零其后的残留字节），-1 表示本段结束、跳到下一段。
+ * 位置统一编码为 segmentId << 32 | offset。读方的进度单独保存在 checkpoint 文件中，之前的段会被删除。
+ * <p>
+ * 数据写进页缓存即对进程崩溃可靠；掉电可靠需要对段调用 force，这里只在写 checkpoint 时刷盘。
+ */
+@Slf4j
+public class OutboxJournal implements Closeable {
+    private static final String SEGMENT_PREFIX = "journal-";
+    private static final String SEGMENT_SUFFIX = ".seg";
+    private static final String CHECKPOINT_FILE = "checkpoint";
+    private static final int HEADER = Integer.BYTES;
+    private static final int END_OF_SEGMENT = -1;
+
+    private final Path directory;
+    private final int segmentSize;
+    private final Map<Long, MappedByteBuffer> segments = new ConcurrentHashMap<>();
+    private final FileChannel checkpointChannel;
+    private final ByteBuffer checkpointBuffer = ByteBuffer.allocate(Long.BYTES);
+
+    /**
+     * 只由写线程（持有 this 锁）修改
+     */
+    private MappedByteBuffer writeSegment;
+    private long writeSegmentId;
+    private int writeOffset;
+    /**
+     * 已完整写入的位置，读方只读到这里
+     */
+    private volatile long published;
+    private volatile long checkpoint;
+
+    private OutboxJournal(Path directory, int segmentSize) throws IOException {
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        this.checkpointChannel = FileChannel.open(directory.resolve(CHECKPOINT_FILE),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+    }
+
+    public static OutboxJournal open(Path directory, int segmentSize) throws IOException {
+        if (segmentSize <= HEADER * 2) {
+            throw new IllegalArgumentException("segment size is too small: " + segmentSize);
+        }
+        Files.createDirectories(directory);
+        OutboxJournal journal = new OutboxJournal(directory, segmentSize);
+        journal.recover();
+        return journal;
+    }
+
+    /**
+     * 追加一条记录，返回写入后的位置
+     */
+    public synchronized long append(byte[] payload) {
+        if (payload.length == 0) {
+            throw new IllegalArgumentException("empty record");
+        }
+        int required = HEADER + payload.length;
+        if (required + HEADER > segmentSize) {
+            throw new IllegalArgumentException("record of " + payload.length + " bytes does not fit in a segment of " + segmentSize);
+        }
+        // 预留结束标记的位置
+        if (writeOffset + required + HEADER > segmentSize) {
+            writeSegment.putInt(writeOffset, END_OF_SEGMENT);
+            openWriteSegment(writeSegmentId + 1);
+        }
+        ByteBuffer target = writeSegment.duplicate();
+        target.position(writeOffset + HEADER);
+        target.put(payload);
+        writeSegment.putInt(writeOffset, payload.length);
+        writeOffset += required;
+        published = position(writeSegmentId, writeOffset);
+        return published;
+    }
+
+    /**
+     * 从 position 开始最多读取 maxRecords 条已发布的记录
+     *
+     * @return 读完后的位置，可作为下一次读取或 checkpoint 的位置
+     */
+    public long read(long position, int maxRecords, Consumer<ByteBuffer> consumer) {
+        long end = published;
+        int records = 0;
+        while (records < maxRecords && position != end) {
+            long segmentId = position >>> 32;
+            int offset = (int) position;
+            MappedByteBuffer segment = segments.get(segmentId);
+            if (segment == null) {
+                throw new IllegalStateException("segment " + segmentId + " is missing");
+            }
+            int length = segment.getInt(offset);
+            if (length == END_OF_SEGMENT) {
+                position = position(segmentId + 1, 0);
+                continue;
+            }
+            ByteBuffer payload = segment.duplicate();
+            payload.position(offset + HEADER).limit(offset + HEADER + length);
+            consumer.accept(payload.slice());
+            position = position(segmentId, offset + HEADER + length);
+            records++;
+        }
+        return position;
+    }
+
+    /**
+     * 记录读方进度并刷盘，早于该位置的段随后删除
+     */
+    public void checkpoint(long position) {
+        try {
+            checkpointBuffer.clear();
+            checkpointBuffer.putLong(position).flip();
+            checkpointChannel.write(checkpointBuffer, 0);
+            checkpointChannel.force(false);
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        checkpoint = position;
+        long segmentId = position >>> 32;
+        for (Long id : segments.keySet()) {
+            if (id < segmentId) {
+                segments.remove(id);
+                try {
+                    Files.deleteIfExists(segmentPath(id));
+                } catch (IOException e) {
+                    log.warn("failed to delete outbox segment {}.", id, e);
+                }
+            }
+        }
+    }
+
+    public long getCheckpoint() {
+        return checkpoint;
+    }
+
+    public long getPublished() {
+        return published;
+    }
+
+    @Override
+    public void close() throws IOException {
+        checkpointChannel.close();
+    }
+
+    public static long position(long segmentId, int offset) {
+        return segmentId << 32 | offset;
+    }
+
+    /**
+     * 读取 checkpoint，打开其后的所有段，并在最后一段上找到写入位置
+     */
+    private void recover() throws IOException {
+        if (checkpointChannel.size() >= Long.BYTES) {
+            checkpointBuffer.clear();
+            checkpointChannel.read(checkpointBuffer, 0);
+            checkpointBuffer.flip();
+            checkpoint = checkpointBuffer.getLong();
+        }
+
+        long first = checkpoint >>> 32;
+        long last = first;
+        try (DirectoryStream<Path> files = Files.newDirectoryStream(directory, SEGMENT_PREFIX + "*" + SEGMENT_SUFFIX)) {
+            for (Path file : files) {
+                String name = file.getFileName().toString();
+                long id = Long.parseLong(name.substring(SEGMENT_PREFIX.length(), name.length() - SEGMENT_SUFFIX.length()));
+                if (id < first) {
+                    Files.delete(file);
+                } else {
+                    segments.put(id, map(id));
+                    last = Math.max(last, id);
+                }
+            }
+        }
+
+        openWriteSegment(last);
+        int offset = last == first ? (int) checkpoint : 0;
+        while (offset + HEADER <= segmentSize) {
+            int length = writeSegment.getInt(offset);
+            if (length == 0 || length == END_OF_SEGMENT) {
+                break;
+            }
+            if (length < 0 || offset + HEADER + (long) length > segmentSize) {
+                log.warn("outbox segment {} has a corrupt record length {} at {}, truncating.", last, length, offset);
+                break;
+            }
+            offset += HEADER + length;
+        }
+        // 崩溃时写了一半的记录只留下 payload，之后更短的记录覆盖它时残留的字节会在下次恢复时被当成记录，
+        // 所以把写入位置之后清零
+        zero(writeSegment, offset);
+        writeOffset = offset;
+        published = position(last, offset);
+        log.info("outbox journal {} recovered, checkpoint {}, end {}.", directory, checkpoint, published);
+    }
+
+    /**
+     * 只写非零的部分，不弄脏本来就是空的页
+     */
+    private void zero(MappedByteBuffer segment, int from) {
+        int offset = from;
+        for (; offset + Long.BYTES <= segmentSize; offset += Long.BYTES) {
+            if (segment.getLong(offset) != 0) {
+                segment.putLong(offset, 0);
+            }
+        }
+        for (; offset < segmentSize; offset++) {
+            segment.put(offset, (byte) 0);
+        }
+    }
+
+    private void openWriteSegment(long id) {
+        MappedByteBuffer segment = segments.get(id);
+        if (segment == null) {
+            try {
+                segment = map(id);
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            segments.put(id, segment);
+        }
+        writeSegment = segment;
+        writeSegmentId = id;
+        writeOffset = 0;
+    }
+
+    private MappedByteBuffer map(long id) throws IOException {
+        try (FileChannel channel = FileChannel.open(segmentPath(id),
+                StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            // 映射在 channel 关闭后依然有效
+            return channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentSize);
+        }
+    }
+
+    private Path segmentPath(long id) {
+        return directory.resolve(String.format("%s%019d%s", SEGMENT_PREFIX, id, SEGMENT_SUFFIX));
+    }
+
+}
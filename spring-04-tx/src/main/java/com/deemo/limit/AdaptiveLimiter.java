@@ -0,0 +1,155 @@
+package com.deemo.limit;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * 无锁的自适应并发限流（AIMD）：
+ * <ul>
+ *     <li>加性增：耗时正常且调用时已用满一半以上的额度，上限加 1 / limit，即每一轮 limit 次调用加 1</li>
+ *     <li>乘性减：耗时超过阈值，上限乘以 {@link #BACKOFF_RATIO}</li>
+ * </ul>
+ * 并发数与上限（double 的位表示）都保存在原子变量中，通过 CAS 更新，调用路径上没有锁。
+ * 排队等待的调用按 {@link #WAIT_NANOS} 轮询，不维护等待队列。
+ */
+public class AdaptiveLimiter {
+    static final double BACKOFF_RATIO = 0.9;
+    private static final long WAIT_NANOS = TimeUnit.MICROSECONDS.toNanos(100);
+
+    private final String name;
+    private final int minLimit;
+    private final int maxLimit;
+    private final long latencyThresholdNanos;
+    private final long maxWaitNanos;
+
+    private final AtomicInteger inFlight = new AtomicInteger();
+    private final AtomicLong limit;
+
+    private final LongAdder accepted = new LongAdder();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder queued = new LongAdder();
+
+    public AdaptiveLimiter(String name, int initialLimit, int minLimit, int maxLimit,
+                           long latencyThresholdMillis, long maxWaitMillis) {
+        if (minLimit <= 0 || minLimit > initialLimit || initialLimit > maxLimit) {
+            throw new IllegalArgumentException("limits must satisfy 0 < min <= initial <= max!");
+        }
+        this.name = name;
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.latencyThresholdNanos = TimeUnit.MILLISECONDS.toNanos(latencyThresholdMillis);
+        this.maxWaitNanos = TimeUnit.MILLISECONDS.toNanos(maxWaitMillis);
+        this.limit = new AtomicLong(Double.doubleToLongBits(initialLimit));
+    }
+
+    public static AdaptiveLimiter of(String name, ConcurrencyLimit annotation) {
+        return new AdaptiveLimiter(name, annotation.initialLimit(), annotation.minLimit(), annotation.maxLimit(),
+                annotation.latencyThresholdMillis(), annotation.maxWaitMillis());
+    }
+
+    /**
+     * 占用一个额度，超出上限时按 maxWaitMillis 等待
+     *
+     * @return 调用开始时（含本次）的并发数
+     * @throws ConcurrencyLimitExceededException 等待超时或被中断
+     */
+    public int acquire() {
+        int current = tryAcquire();
+        if (current > 0) {
+            accepted.increment();
+            return current;
+        }
+        if (maxWaitNanos > 0) {
+            queued.increment();
+            long deadline = System.nanoTime() + maxWaitNanos;
+            while (!Thread.currentThread().isInterrupted()) {
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    break;
+                }
+                LockSupport.parkNanos(this, Math.min(remaining, WAIT_NANOS));
+                current = tryAcquire();
+                if (current > 0) {
+                    accepted.increment();
+                    return current;
+                }
+            }
+        }
+        rejected.increment();
+        throw new ConcurrencyLimitExceededException(name, getLimit());
+    }
+
+    /**
+     * 归还额度，并用本次耗时调整上限
+     *
+     * @param inFlightAtStart {@link #acquire()} 的返回值
+     */
+    public void release(long latencyNanos, int inFlightAtStart) {
+        inFlight.decrementAndGet();
+        while (true) {
+            long bits = limit.get();
+            double current = Double.longBitsToDouble(bits);
+            double next;
+            if (latencyNanos > latencyThresholdNanos) {
+                next = Math.max(minLimit, current * BACKOFF_RATIO);
+            } else if (inFlightAtStart * 2 >= current) {
+                // 额度没用到一半时耗时低不能说明能承受更高的并发
+                next = Math.min(maxLimit, current + 1 / current);
+            } else {
+                return;
+            }
+            if (next == current || limit.compareAndSet(bits, Double.doubleToLongBits(next))) {
+                return;
+            }
+        }
+    }
+
+    private int tryAcquire() {
+        while (true) {
+            int current = inFlight.get();
+            if (current >= getLimit()) {
+                return 0;
+            }
+            if (inFlight.compareAndSet(current, current + 1)) {
+                return current + 1;
+            }
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return (int) Double.longBitsToDouble(limit.get());
+    }
+
+    public int getInFlight() {
+        return inFlight.get();
+    }
+
+    public long getAccepted() {
+        return accepted.sum();
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    /**
+     * 超出上限后进入等待的次数（之后可能成功也可能被拒绝）
+     */
+    public long getQueued() {
+        return queued.sum();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s | limit=%d, inFlight=%d, accepted=%d, queued=%d, rejected=%d",
+                name, getLimit(), getInFlight(), getAccepted(), getQueued(), getRejected());
+    }
+
+}
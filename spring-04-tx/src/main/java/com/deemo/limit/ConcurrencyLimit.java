@@ -0,0 +1,36 @@
+package com.deemo.limit;
+
+import java.lang.annotation.Documented;
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * 限制方法的并发调用数，上限按观测到的耗时自适应调整（AIMD），见 {@link AdaptiveLimiter}。
+ * <p>
+ * 超出上限的调用抛出 {@link ConcurrencyLimitExceededException}；maxWaitMillis 大于 0 时先等待至多这么久。
+ * 每个方法一个限流器，重载方法各自独立。
+ */
+@Documented
+@Retention(RetentionPolicy.RUNTIME)
+@Target(ElementType.METHOD)
+public @interface ConcurrencyLimit {
+
+    int initialLimit() default 10;
+
+    int minLimit() default 1;
+
+    int maxLimit() default 200;
+
+    /**
+     * 单次调用的耗时超过该值即视为过载，上限乘以 0.9；否则每 limit 次调用上限加 1
+     */
+    long latencyThresholdMillis() default 100;
+
+    /**
+     * 超出上限时的最长等待时间，0 表示立即拒绝
+     */
+    long maxWaitMillis() default 0;
+
+}
@@ -0,0 +1,23 @@
+package com.deemo.limit;
+
+/**
+ * 调用被 {@link AdaptiveLimiter} 拒绝，调用方可以稍后重试
+ */
+public class ConcurrencyLimitExceededException extends RuntimeException {
+    private final String name;
+    private final int limit;
+
+    public ConcurrencyLimitExceededException(String name, int limit) {
+        super(name + " exceeds its concurrency limit of " + limit);
+        this.name = name;
+        this.limit = limit;
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getLimit() {
+        return limit;
+    }
+}
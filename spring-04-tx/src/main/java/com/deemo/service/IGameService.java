@@ -1,9 +1,31 @@
 package com.deemo.service;
 
+import com.deemo.entity.Game;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 public interface IGameService {
 
     boolean insert(String game, double price);
 
     boolean insert(String game, double price, boolean error);
 
+    /**
+     * 在同一个事务中批量插入，返回与入参顺序一致的每行结果
+     */
+    boolean[] insertBatch(Collection<Game> games);
+
+    /**
+     * 开启 game.write-behind.enabled 后异步写入，由后台批量提交；
+     * 队列已满或写入失败时 future 以异常结束
+     */
+    CompletableFuture<Boolean> insertAsync(String game, double price);
+
+    /**
+     * 只读查询，开启读写分离时走从库
+     */
+    List<Game> findByPriceBetween(double min, double max);
+
 }
@@ -1,30 +1,54 @@
 package com.deemo.service.impl;
 
 import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import com.deemo.event.GameCreatedEvent;
+import com.deemo.limit.ConcurrencyLimit;
+import com.deemo.metrics.Timed;
 import com.deemo.service.IGameService;
+import com.deemo.service.support.GameWriteBehindBuffer;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.context.ApplicationEventPublisher;
 import org.springframework.stereotype.Service;
 import org.springframework.transaction.annotation.Transactional;
 
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
 @Slf4j
+@Timed
 @Service
 public class GameService implements IGameService {
     private final GameDao gameDao;
+    private final GameWriteBehindBuffer writeBehindBuffer;
+    private final ApplicationEventPublisher eventPublisher;
 
-    public GameService(GameDao gameDao) {
+    public GameService(GameDao gameDao, GameWriteBehindBuffer writeBehindBuffer, ApplicationEventPublisher eventPublisher) {
         this.gameDao = gameDao;
+        this.writeBehindBuffer = writeBehindBuffer;
+        this.eventPublisher = eventPublisher;
     }
 
+    /**
+     * 过载时限制并发，避免调用全部堆在连接池上，见 {@link ConcurrencyLimit}
+     */
     @Override
     @Transactional
+    @ConcurrencyLimit
     public boolean insert(String game, double price) {
         return this.insert(game, price, false);
     }
 
     @Override
     @Transactional
+    @ConcurrencyLimit
     public boolean insert(String game, double price, boolean error) {
         boolean insert = this.gameDao.insert(game, price);
+        // upsert 更新已有行时返回 false，不发布新增事件
+        if (insert) {
+            this.eventPublisher.publishEvent(GameCreatedEvent.of(new Game(game, price)));
+        }
 
         if (error) {
             int x = 10 / 0;
@@ -33,4 +57,26 @@ public class GameService implements IGameService {
         return insert;
     }
 
+    @Override
+    @Transactional
+    public boolean[] insertBatch(Collection<Game> games) {
+        boolean[] results = this.gameDao.insertBatch(games);
+        log.info("insert batch size: {}.", results.length);
+        this.eventPublisher.publishEvent(GameCreatedEvent.of(games, results));
+        return results;
+    }
+
+    /**
+     * 不加 @Transactional：事务由 write-behind 缓冲在刷盘时开启
+     */
+    @Override
+    public CompletableFuture<Boolean> insertAsync(String game, double price) {
+        return this.writeBehindBuffer.submit(new Game(game, price));
+    }
+
+    @Override
+    @Transactional(readOnly = true)
+    public List<Game> findByPriceBetween(double min, double max) {
+        return this.gameDao.findByPriceBetween(min, max);
+    }
 }
@@ -0,0 +1,273 @@
+package com.deemo.service.support;
+
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataAccessResourceFailureException;
+import org.springframework.dao.NonTransientDataAccessException;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.RandomAccess;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 一次性迁移用的并行批量写入：把输入切成若干分区，每个分区在独立连接、独立事务中批量写入，
+ * 失败的分区单独重试，不影响其他分区。
+ * <p>
+ * 并发度与连接池大小挂钩（池大小减去给在线请求预留的连接数），任何时刻最多只有这么多分区占用连接。
+ * Java 24+ 上每个分区跑在一个虚拟线程上，否则使用同样大小的固定线程池：JDK 21-23 的虚拟线程在 synchronized 内阻塞时
+ * 会钉住载体线程（JEP 491 之前），而 c3p0 与 Connector/J 的 I/O 正是在 synchronized 内等待，
+ * 分区数一多载体线程就会被占满。并发度本来就受连接数限制，固定线程池并不损失吞吐。
+ */
+@Slf4j
+@Component
+public class GameBulkLoader {
+    private final GameDao gameDao;
+    private final TransactionTemplate transactionTemplate;
+    private final int parallelism;
+    private final int partitionSize;
+    private final int maxAttempts;
+    private final long retryBackoffMillis;
+
+    public GameBulkLoader(GameDao gameDao,
+                          PlatformTransactionManager transactionManager,
+                          @Value("${jdbc.pool.max-size:15}") int poolSize,
+                          @Value("${game.bulk-load.reserved-connections:2}") int reservedConnections,
+                          @Value("${game.bulk-load.partition-size:5000}") int partitionSize,
+                          @Value("${game.bulk-load.max-attempts:3}") int maxAttempts,
+                          @Value("${game.bulk-load.retry-backoff-ms:200}") long retryBackoffMillis) {
+        if (partitionSize <= 0 || maxAttempts <= 0) {
+            throw new IllegalArgumentException("partition size and max attempts must be positive!");
+        }
+        this.gameDao = gameDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.parallelism = Math.max(1, poolSize - reservedConnections);
+        this.partitionSize = partitionSize;
+        this.maxAttempts = maxAttempts;
+        this.retryBackoffMillis = retryBackoffMillis;
+    }
+
+    public int getParallelism() {
+        return parallelism;
+    }
+
+    public LoadResult load(Collection<Game> games) throws InterruptedException {
+        long start = System.nanoTime();
+        List<Game> rows = games instanceof List && games instanceof RandomAccess ? (List<Game>) games : new ArrayList<>(games);
+        int partitions = (rows.size() + partitionSize - 1) / partitionSize;
+
+        Statistics statistics = new Statistics();
+        // 虚拟线程本身不限数量，由信号量把同时占用连接的分区数限制在 parallelism 以内
+        Semaphore connections = new Semaphore(parallelism);
+        CountDownLatch done = new CountDownLatch(partitions);
+        ExecutorService executor = newExecutor();
+        try {
+            for (int partition = 0; partition < partitions; partition++) {
+                int from = partition * partitionSize;
+                List<Game> slice = rows.subList(from, Math.min(from + partitionSize, rows.size()));
+                int index = partition;
+                connections.acquire();
+                executor.execute(() -> {
+                    try {
+                        loadPartition(index, from, slice, statistics);
+                    } finally {
+                        connections.release();
+                        done.countDown();
+                    }
+                });
+            }
+            done.await();
+        } finally {
+            executor.shutdownNow();
+        }
+
+        LoadResult result = new LoadResult(rows.size(), statistics.rows.sum(), statistics.rejected.sum(), partitions,
+                statistics.retries.sum(), parallelism, System.nanoTime() - start, statistics.failures());
+        log.info("bulk loaded {}", result);
+        return result;
+    }
+
+    private void loadPartition(int partition, int offset, List<Game> slice, Statistics statistics) {
+        for (int attempt = 1; ; attempt++) {
+            try {
+                // 整个分区一个事务：失败回滚后重试不会留下半个分区
+                boolean[] results = transactionTemplate.execute(status -> gameDao.insertBatch(slice));
+                int inserted = 0;
+                for (boolean result : results) {
+                    if (result) {
+                        inserted++;
+                    }
+                }
+                statistics.rows.add(inserted);
+                statistics.rejected.add(slice.size() - inserted);
+                return;
+            } catch (RuntimeException e) {
+                if (attempt >= maxAttempts || !retryable(e)) {
+                    log.warn("bulk load partition {} (rows {} ~ {}) failed after {} attempt(s)!",
+                            partition, offset, offset + slice.size() - 1, attempt, e);
+                    statistics.failed(new PartitionFailure(partition, offset, slice.size(), attempt, e));
+                    return;
+                }
+                statistics.retries.increment();
+                log.info("bulk load partition {} failed on attempt {}, retrying: {}", partition, attempt, e.toString());
+                if (!backoff(attempt)) {
+                    statistics.failed(new PartitionFailure(partition, offset, slice.size(), attempt, e));
+                    return;
+                }
+            }
+        }
+    }
+
+    /**
+     * 约束冲突、SQL 语法等非瞬时错误重试也不会成功；拿不到连接属于资源类错误，值得重试
+     */
+    private static boolean retryable(RuntimeException e) {
+        return !(e instanceof NonTransientDataAccessException) || e instanceof DataAccessResourceFailureException;
+    }
+
+    /**
+     * 线性退避，被中断时放弃重试
+     */
+    private boolean backoff(int attempt) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(retryBackoffMillis * attempt);
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private ExecutorService newExecutor() {
+        ExecutorService virtual = javaVersion() >= 24 ? newVirtualThreadExecutor() : null;
+        if (virtual != null) {
+            return virtual;
+        }
+        AtomicInteger sequence = new AtomicInteger();
+        return Executors.newFixedThreadPool(parallelism, runnable -> {
+            Thread thread = new Thread(runnable, "game-bulk-load-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    /**
+     * java.specification.version 在 Java 8 上是 1.8，之后是 9、10、…
+     */
+    private static int javaVersion() {
+        String version = System.getProperty("java.specification.version", "1.8");
+        try {
+            return version.startsWith("1.") ? Integer.parseInt(version.substring(2)) : Integer.parseInt(version);
+        } catch (NumberFormatException e) {
+            return 8;
+        }
+    }
+
+    /**
+     * 项目按 Java 8 编译，通过反射调用 Executors#newVirtualThreadPerTaskExecutor，低版本返回 null
+     */
+    private static ExecutorService newVirtualThreadExecutor() {
+        try {
+            return (ExecutorService) MethodHandles.publicLookup()
+                    .findStatic(Executors.class, "newVirtualThreadPerTaskExecutor", MethodType.methodType(ExecutorService.class))
+                    .invoke();
+        } catch (NoSuchMethodException | IllegalAccessException e) {
+            return null;
+        } catch (Throwable e) {
+            log.warn("virtual threads are unavailable, falling back to a thread pool.", e);
+            return null;
+        }
+    }
+
+    private static final class Statistics {
+        private final LongAdder rows = new LongAdder();
+        private final LongAdder rejected = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final List<PartitionFailure> failures = new ArrayList<>();
+
+        private synchronized void failed(PartitionFailure failure) {
+            failures.add(failure);
+        }
+
+        private synchronized List<PartitionFailure> failures() {
+            List<PartitionFailure> sorted = new ArrayList<>(failures);
+            sorted.sort((a, b) -> Integer.compare(a.partition, b.partition));
+            return Collections.unmodifiableList(sorted);
+        }
+    }
+
+    @Getter
+    @ToString
+    public static final class PartitionFailure {
+        private final int partition;
+        /**
+         * 分区在输入中的起始下标，可据此截取出失败的行重新提交
+         */
+        private final int offset;
+        private final int rows;
+        private final int attempts;
+        private final RuntimeException failure;
+
+        private PartitionFailure(int partition, int offset, int rows, int attempts, RuntimeException failure) {
+            this.partition = partition;
+            this.offset = offset;
+            this.rows = rows;
+            this.attempts = attempts;
+            this.failure = failure;
+        }
+    }
+
+    @Getter
+    @ToString
+    public static final class LoadResult {
+        private final int total;
+        private final long rows;
+        /**
+         * 所在分区已提交、但该行本身没有新插入的行（影响行数为 0，或 upsert 时更新了已有行）
+         */
+        private final long rejected;
+        private final int partitions;
+        private final long retries;
+        private final int parallelism;
+        private final long elapsedNanos;
+        private final List<PartitionFailure> failures;
+
+        private LoadResult(int total, long rows, long rejected, int partitions, long retries, int parallelism,
+                           long elapsedNanos, List<PartitionFailure> failures) {
+            this.total = total;
+            this.rows = rows;
+            this.rejected = rejected;
+            this.partitions = partitions;
+            this.retries = retries;
+            this.parallelism = parallelism;
+            this.elapsedNanos = elapsedNanos;
+            this.failures = failures;
+        }
+
+        public boolean isSuccess() {
+            return failures.isEmpty();
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+    }
+
+}
@@ -0,0 +1,437 @@
+package com.deemo.service.support;
+
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import lombok.Getter;
+import lombok.ToString;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.TreeMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 批量导入 CSV：按窗口 mmap 输入文件，直接在字节上切分字段（每行只为 name 生成一个 String），
+ * 攒成批次后交给多个 worker 各自在独立连接、独立事务中写入。
+ * <p>
+ * 文件第一行若包含 name 列则视为表头，按表头定位 name 与 price 列，否则默认第 1、2 列。
+ * 失败时返回可续传的字节偏移 {@link ImportResult#getResumeOffset()}：此偏移之前的批次都已提交；
+ * 多个 worker 并发时，偏移之后也可能有已提交的批次，需要精确续传时把 workers 设为 1。
+ */
+@Slf4j
+@Component
+public class GameCsvImporter {
+    private final GameDao gameDao;
+    private final TransactionTemplate transactionTemplate;
+    private final int workers;
+    private final int batchSize;
+    private final long windowSize;
+    private final long progressIntervalNanos;
+
+    public GameCsvImporter(GameDao gameDao,
+                           PlatformTransactionManager transactionManager,
+                           @Value("${game.import.workers:4}") int workers,
+                           @Value("${game.import.batch-size:1000}") int batchSize,
+                           @Value("${game.import.window-size:67108864}") long windowSize,
+                           @Value("${game.import.progress-interval-ms:5000}") long progressIntervalMillis) {
+        this.gameDao = gameDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.workers = workers;
+        this.batchSize = batchSize;
+        this.windowSize = windowSize;
+        this.progressIntervalNanos = TimeUnit.MILLISECONDS.toNanos(progressIntervalMillis);
+    }
+
+    public ImportResult importFile(Path file) throws IOException, InterruptedException {
+        return importFile(file, 0);
+    }
+
+    /**
+     * @param startOffset 从该字节偏移（行首）开始导入，通常是上一次失败返回的 resumeOffset
+     */
+    public ImportResult importFile(Path file, long startOffset) throws IOException, InterruptedException {
+        long start = System.nanoTime();
+        AtomicInteger sequence = new AtomicInteger();
+        ExecutorService executor = Executors.newFixedThreadPool(workers, runnable -> {
+            Thread thread = new Thread(runnable, "game-import-" + sequence.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        });
+        // 限制在途批次，解析快于写入时让解析线程等待
+        Semaphore inFlight = new Semaphore(workers * 2);
+        Progress progress = new Progress(startOffset);
+
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            long size = channel.size();
+            LineParser parser = new LineParser();
+            long offset = Math.max(startOffset, readHeader(channel, size, parser));
+            progress.reset(offset);
+
+            List<Game> batch = new ArrayList<>(batchSize);
+            long lastReport = System.nanoTime();
+            while (offset < size && progress.failure.get() == null) {
+                long length = Math.min(windowSize, size - offset);
+                MappedByteBuffer window = channel.map(FileChannel.MapMode.READ_ONLY, offset, length);
+                boolean lastWindow = offset + length == size;
+
+                int position = 0;
+                int limit = (int) length;
+                while (position < limit && progress.failure.get() == null) {
+                    int eol = indexOf(window, (byte) '\n', position, limit);
+                    if (eol < 0) {
+                        if (!lastWindow) {
+                            if (position == 0) {
+                                throw new IOException("Line at offset " + offset + " is longer than the window size " + windowSize);
+                            }
+                            // 行跨越窗口边界，从行首重新映射
+                            break;
+                        }
+                        eol = limit;
+                    }
+
+                    if (parser.parse(window, position, eol)) {
+                        batch.add(new Game(parser.name, parser.price));
+                    } else if (eol > position) {
+                        progress.skipped.incrementAndGet();
+                    }
+                    position = eol + 1;
+
+                    if (batch.size() >= batchSize) {
+                        submit(executor, inFlight, progress, batch, offset + Math.min(position, limit));
+                        batch = new ArrayList<>(batchSize);
+                    }
+                    if (System.nanoTime() - lastReport >= progressIntervalNanos) {
+                        lastReport = System.nanoTime();
+                        log.info("importing {}: {}", file, progress.describe(size, start));
+                    }
+                }
+                offset += Math.min(position, limit);
+            }
+            if (!batch.isEmpty() && progress.failure.get() == null) {
+                submit(executor, inFlight, progress, batch, offset);
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            ImportResult result = new ImportResult(progress.rows.get(), progress.skipped.get(), progress.watermark(),
+                    size, System.nanoTime() - start, progress.failure.get());
+            log.info("imported {}: {}", file, result);
+            return result;
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void submit(ExecutorService executor, Semaphore inFlight, Progress progress, List<Game> batch, long endOffset)
+            throws InterruptedException {
+        inFlight.acquire();
+        long sequence = progress.issue(endOffset);
+        executor.execute(() -> {
+            try {
+                if (progress.failure.get() == null) {
+                    transactionTemplate.execute(status -> gameDao.insertBatch(batch));
+                    progress.committed(sequence, batch.size());
+                }
+            } catch (RuntimeException e) {
+                progress.failure.compareAndSet(null, e);
+                log.warn("import batch ending at offset {} failed!", endOffset, e);
+            } finally {
+                inFlight.release();
+            }
+        });
+    }
+
+    /**
+     * 解析表头并返回数据起始偏移；没有表头时返回 0
+     */
+    private long readHeader(FileChannel channel, long size, LineParser parser) throws IOException {
+        int length = (int) Math.min(size, 64 * 1024);
+        if (length == 0) {
+            return 0;
+        }
+        MappedByteBuffer head = channel.map(FileChannel.MapMode.READ_ONLY, 0, length);
+        int eol = indexOf(head, (byte) '\n', 0, length);
+        int end = eol < 0 ? length : eol;
+
+        byte[] bytes = new byte[end];
+        head.get(bytes);
+        String[] columns = new String(bytes, StandardCharsets.UTF_8).trim().split(",");
+        int nameColumn = -1;
+        int priceColumn = -1;
+        for (int i = 0; i < columns.length; i++) {
+            String column = columns[i].trim().replace("\"", "");
+            if ("name".equalsIgnoreCase(column)) {
+                nameColumn = i;
+            } else if ("price".equalsIgnoreCase(column)) {
+                priceColumn = i;
+            }
+        }
+        if (nameColumn < 0 || priceColumn < 0) {
+            return 0;
+        }
+        parser.nameColumn = nameColumn;
+        parser.priceColumn = priceColumn;
+        return eol < 0 ? size : eol + 1;
+    }
+
+    private static int indexOf(MappedByteBuffer buffer, byte target, int from, int to) {
+        for (int i = from; i < to; i++) {
+            if (buffer.get(i) == target) {
+                return i;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * 跟踪提交进度。批次可能乱序完成，只有连续完成的批次才推进可续传偏移（watermark）
+     */
+    private static final class Progress {
+        private final AtomicLong rows = new AtomicLong();
+        private final AtomicLong skipped = new AtomicLong();
+        private final AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        private final TreeMap<Long, Long> pending = new TreeMap<>();
+        private final TreeMap<Long, Long> done = new TreeMap<>();
+        private long nextSequence;
+        private long watermark;
+
+        private Progress(long offset) {
+            this.watermark = offset;
+        }
+
+        private synchronized void reset(long offset) {
+            this.watermark = offset;
+        }
+
+        private synchronized long issue(long endOffset) {
+            pending.put(nextSequence, endOffset);
+            return nextSequence++;
+        }
+
+        private synchronized void committed(long sequence, int batchRows) {
+            rows.addAndGet(batchRows);
+            done.put(sequence, pending.remove(sequence));
+            // 最小的未完成批次之前的所有批次都已提交
+            long firstPending = pending.isEmpty() ? Long.MAX_VALUE : pending.firstKey();
+            while (!done.isEmpty() && done.firstKey() < firstPending) {
+                watermark = done.pollFirstEntry().getValue();
+            }
+        }
+
+        private synchronized long watermark() {
+            return watermark;
+        }
+
+        private String describe(long size, long start) {
+            double seconds = (System.nanoTime() - start) / 1e9;
+            return String.format("%d rows, %.1f%% of %d bytes, %.0f rows/s",
+                    rows.get(), watermark() * 100.0 / size, size, rows.get() / seconds);
+        }
+    }
+
+    /**
+     * 直接在 mmap 的字节上切分一行，name 解码为 String，price 就地解析不经过 String
+     */
+    private static final class LineParser {
+        private static final double[] POW10 = new double[19];
+
+        static {
+            POW10[0] = 1;
+            for (int i = 1; i < POW10.length; i++) {
+                POW10[i] = POW10[i - 1] * 10;
+            }
+        }
+
+        private int nameColumn = 0;
+        private int priceColumn = 1;
+        private byte[] scratch = new byte[256];
+
+        private String name;
+        private double price;
+
+        /**
+         * @return 该行是否包含合法的 name 与 price
+         */
+        private boolean parse(MappedByteBuffer buffer, int start, int end) {
+            if (end > start && buffer.get(end - 1) == '\r') {
+                end--;
+            }
+            name = null;
+            boolean hasPrice = false;
+
+            int column = 0;
+            int position = start;
+            while (position <= end) {
+                int fieldEnd;
+                int length = 0;
+                boolean quoted = position < end && buffer.get(position) == '"';
+                if (quoted) {
+                    // 去掉引号并把 "" 还原为 "，写入 scratch
+                    int i = position + 1;
+                    while (i < end) {
+                        byte b = buffer.get(i);
+                        if (b == '"') {
+                            if (i + 1 < end && buffer.get(i + 1) == '"') {
+                                length = append(length, b);
+                                i += 2;
+                                continue;
+                            }
+                            break;
+                        }
+                        length = append(length, b);
+                        i++;
+                    }
+                    fieldEnd = indexOfComma(buffer, i, end);
+                } else {
+                    fieldEnd = indexOfComma(buffer, position, end);
+                    if (column == nameColumn) {
+                        for (int i = position; i < fieldEnd; i++) {
+                            length = append(length, buffer.get(i));
+                        }
+                    }
+                }
+
+                if (column == nameColumn) {
+                    name = new String(scratch, 0, length, StandardCharsets.UTF_8);
+                } else if (column == priceColumn) {
+                    if (quoted) {
+                        hasPrice = parsePrice(scratch, length);
+                    } else {
+                        int priceLength = 0;
+                        for (int i = position; i < fieldEnd; i++) {
+                            priceLength = append(priceLength, buffer.get(i));
+                        }
+                        hasPrice = parsePrice(scratch, priceLength);
+                    }
+                }
+                column++;
+                position = fieldEnd + 1;
+            }
+            return name != null && hasPrice;
+        }
+
+        private int append(int length, byte b) {
+            if (length == scratch.length) {
+                byte[] grown = new byte[scratch.length * 2];
+                System.arraycopy(scratch, 0, grown, 0, length);
+                scratch = grown;
+            }
+            scratch[length] = b;
+            return length + 1;
+        }
+
+        private static int indexOfComma(MappedByteBuffer buffer, int from, int end) {
+            for (int i = from; i < end; i++) {
+                if (buffer.get(i) == ',') {
+                    return i;
+                }
+            }
+            return end;
+        }
+
+        /**
+         * 只处理常见的 [-]digits[.digits]，其余格式（指数等）退回 Double.parseDouble
+         */
+        private boolean parsePrice(byte[] bytes, int length) {
+            int i = 0;
+            while (i < length && bytes[i] == ' ') {
+                i++;
+            }
+            while (length > i && bytes[length - 1] == ' ') {
+                length--;
+            }
+            if (i == length) {
+                return false;
+            }
+
+            boolean negative = bytes[i] == '-';
+            if (negative || bytes[i] == '+') {
+                i++;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int scale = -1;
+            for (; i < length; i++) {
+                byte b = bytes[i];
+                if (b >= '0' && b <= '9') {
+                    mantissa = mantissa * 10 + (b - '0');
+                    digits++;
+                    if (scale >= 0) {
+                        scale++;
+                    }
+                } else if (b == '.' && scale < 0) {
+                    scale = 0;
+                } else {
+                    return parseSlow(bytes, length);
+                }
+            }
+            if (digits == 0) {
+                return false;
+            }
+            if (digits > 15 || scale >= POW10.length) {
+                return parseSlow(bytes, length);
+            }
+            double value = scale > 0 ? mantissa / POW10[scale] : mantissa;
+            price = negative ? -value : value;
+            return true;
+        }
+
+        private boolean parseSlow(byte[] bytes, int length) {
+            try {
+                price = Double.parseDouble(new String(bytes, 0, length, StandardCharsets.US_ASCII).trim());
+                return true;
+            } catch (NumberFormatException e) {
+                return false;
+            }
+        }
+    }
+
+    @Getter
+    @ToString
+    public static final class ImportResult {
+        private final long rows;
+        private final long skipped;
+        /**
+         * 此偏移之前的数据均已提交，失败后从这里续传
+         */
+        private final long resumeOffset;
+        private final long fileSize;
+        private final long elapsedNanos;
+        private final Exception failure;
+
+        private ImportResult(long rows, long skipped, long resumeOffset, long fileSize, long elapsedNanos, Exception failure) {
+            this.rows = rows;
+            this.skipped = skipped;
+            this.resumeOffset = resumeOffset;
+            this.fileSize = fileSize;
+            this.elapsedNanos = elapsedNanos;
+            this.failure = failure;
+        }
+
+        public boolean isSuccess() {
+            return failure == null;
+        }
+
+        public double getRowsPerSecond() {
+            return elapsedNanos == 0 ? 0 : rows * 1e9 / elapsedNanos;
+        }
+    }
+
+}
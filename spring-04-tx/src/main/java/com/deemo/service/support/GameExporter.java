@@ -0,0 +1,206 @@
+package com.deemo.service.support;
+
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharsetEncoder;
+import java.nio.charset.CoderResult;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * 流式导出 game 表：按 fetchSize 逐批读取，经一块复用的直接内存缓冲写入 FileChannel，
+ * 堆内存占用与行数无关。
+ */
+@Slf4j
+@Component
+public class GameExporter {
+    private final GameDao gameDao;
+    private final TransactionTemplate transactionTemplate;
+    private final int fetchSize;
+    private final int bufferSize;
+
+    public GameExporter(GameDao gameDao,
+                        PlatformTransactionManager transactionManager,
+                        @Value("${game.export.fetch-size:1000}") int fetchSize,
+                        @Value("${game.export.buffer-size:65536}") int bufferSize) {
+        this.gameDao = gameDao;
+        // 只读事务：开启读写分离时走从库，部分驱动也只在非自动提交下使用游标
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.transactionTemplate.setReadOnly(true);
+        this.fetchSize = fetchSize;
+        this.bufferSize = bufferSize;
+    }
+
+    /**
+     * @return 导出的行数
+     */
+    public long export(Path target, Format format) throws IOException {
+        long start = System.nanoTime();
+        try (ChannelWriter writer = new ChannelWriter(target, bufferSize)) {
+            if (format == Format.CSV) {
+                writer.writeText("id,name,price,description\n");
+            }
+            Long rows;
+            try {
+                rows = transactionTemplate.execute(status -> gameDao.scan(fetchSize, game -> {
+                    if (format == Format.CSV) {
+                        writer.writeCsv(game);
+                    } else {
+                        writer.writeBinary(game);
+                    }
+                }));
+            } catch (UncheckedIOException e) {
+                throw e.getCause();
+            }
+            log.info("exported {} games to {} in {} ms.", rows, target, (System.nanoTime() - start) / 1_000_000);
+            return rows == null ? 0 : rows;
+        }
+    }
+
+    public enum Format {
+        /**
+         * 带表头的 UTF-8 CSV，name 与 description 加双引号
+         */
+        CSV,
+        /**
+         * 每行：id(long) price(double) name 与 description（int 字节长度 + UTF-8 字节，null 为 -1），大端序
+         */
+        BINARY
+    }
+
+    private static final class ChannelWriter implements AutoCloseable {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private final CharsetEncoder encoder = StandardCharsets.UTF_8.newEncoder();
+        private final StringBuilder line = new StringBuilder(256);
+        private final CharBuffer chars = CharBuffer.allocate(256);
+
+        private ChannelWriter(Path target, int bufferSize) throws IOException {
+            this.channel = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                    StandardOpenOption.TRUNCATE_EXISTING);
+            this.buffer = ByteBuffer.allocateDirect(bufferSize);
+        }
+
+        private void writeCsv(Game game) {
+            line.setLength(0);
+            line.append(game.getId()).append(',');
+            quote(game.getName());
+            line.append(',').append(game.getPrice()).append(',');
+            quote(game.getDescription());
+            line.append('\n');
+            writeText(line);
+        }
+
+        private void writeBinary(Game game) {
+            ensure(Long.BYTES + Double.BYTES);
+            buffer.putLong(game.getId()).putDouble(game.getPrice());
+            writeBytes(game.getName());
+            writeBytes(game.getDescription());
+        }
+
+        private void quote(String value) {
+            if (value == null) {
+                return;
+            }
+            line.append('"');
+            for (int i = 0; i < value.length(); i++) {
+                char c = value.charAt(i);
+                if (c == '"') {
+                    line.append('"');
+                }
+                line.append(c);
+            }
+            line.append('"');
+        }
+
+        private void writeBytes(String value) {
+            if (value == null) {
+                ensure(Integer.BYTES);
+                buffer.putInt(-1);
+                return;
+            }
+            byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+            ensure(Integer.BYTES);
+            buffer.putInt(bytes.length);
+            int offset = 0;
+            while (offset < bytes.length) {
+                ensure(1);
+                int length = Math.min(buffer.remaining(), bytes.length - offset);
+                buffer.put(bytes, offset, length);
+                offset += length;
+            }
+        }
+
+        /**
+         * 经复用的 CharBuffer 分段编码，不为每行生成 String
+         */
+        private void writeText(CharSequence text) {
+            int offset = 0;
+            while (offset < text.length()) {
+                int length = Math.min(chars.capacity(), text.length() - offset);
+                // 不把代理对拆到两段里
+                if (length > 1 && offset + length < text.length() && Character.isHighSurrogate(text.charAt(offset + length - 1))) {
+                    length--;
+                }
+                chars.clear();
+                for (int i = 0; i < length; i++) {
+                    chars.put(text.charAt(offset + i));
+                }
+                chars.flip();
+
+                CoderResult result;
+                while ((result = encoder.encode(chars, buffer, false)).isOverflow()) {
+                    drain();
+                }
+                if (result.isError()) {
+                    try {
+                        result.throwException();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                }
+                offset += length;
+            }
+        }
+
+        private void ensure(int bytes) {
+            if (buffer.remaining() < bytes) {
+                drain();
+            }
+        }
+
+        private void drain() {
+            buffer.flip();
+            try {
+                while (buffer.hasRemaining()) {
+                    channel.write(buffer);
+                }
+            } catch (IOException e) {
+                throw new UncheckedIOException(e);
+            }
+            buffer.clear();
+        }
+
+        @Override
+        public void close() throws IOException {
+            try {
+                drain();
+            } finally {
+                channel.close();
+            }
+        }
+    }
+
+}
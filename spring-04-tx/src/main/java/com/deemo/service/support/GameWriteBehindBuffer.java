@@ -0,0 +1,222 @@
+package com.deemo.service.support;
+
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import com.deemo.event.GameCreatedEvent;
+import lombok.extern.slf4j.Slf4j;
+import org.springframework.beans.factory.DisposableBean;
+import org.springframework.beans.factory.InitializingBean;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.context.ApplicationEventPublisher;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 异步写回（write-behind）缓冲：插入请求先进入有界队列，由后台线程攒够 maxBatch 行
+ * 或等满 flushInterval 后在一个事务里批量写入。
+ * <p>
+ * 队列满时等待 offerTimeout，仍放不进去则返回失败的 future（背压）；容器关闭时会把队列中剩余的数据刷完。
+ */
+@Slf4j
+@Component
+public class GameWriteBehindBuffer implements InitializingBean, DisposableBean {
+    /**
+     * 关闭时放入队列，唤醒正在等待攒批的后台线程
+     */
+    private static final Pending WAKE_UP = new Pending(null);
+
+    private final GameDao gameDao;
+    private final TransactionTemplate transactionTemplate;
+    private final ApplicationEventPublisher eventPublisher;
+    private final boolean enabled;
+    private final BlockingQueue<Pending> queue;
+    private final int maxBatch;
+    private final long flushIntervalNanos;
+    private final long offerTimeoutMillis;
+
+    private volatile boolean closed;
+    private Thread flusher;
+
+    public GameWriteBehindBuffer(GameDao gameDao,
+                                 PlatformTransactionManager transactionManager,
+                                 ApplicationEventPublisher eventPublisher,
+                                 @Value("${game.write-behind.enabled:false}") boolean enabled,
+                                 @Value("${game.write-behind.capacity:10000}") int capacity,
+                                 @Value("${game.write-behind.max-batch:500}") int maxBatch,
+                                 @Value("${game.write-behind.flush-interval-ms:50}") long flushIntervalMillis,
+                                 @Value("${game.write-behind.offer-timeout-ms:0}") long offerTimeoutMillis) {
+        this.gameDao = gameDao;
+        this.transactionTemplate = new TransactionTemplate(transactionManager);
+        this.eventPublisher = eventPublisher;
+        this.enabled = enabled;
+        this.queue = new ArrayBlockingQueue<>(capacity);
+        this.maxBatch = maxBatch;
+        this.flushIntervalNanos = TimeUnit.MILLISECONDS.toNanos(flushIntervalMillis);
+        this.offerTimeoutMillis = offerTimeoutMillis;
+    }
+
+    @Override
+    public void afterPropertiesSet() {
+        if (enabled) {
+            flusher = new Thread(this::runFlusher, "game-write-behind");
+            flusher.setDaemon(true);
+            flusher.start();
+        }
+    }
+
+    /**
+     * 未开启 write-behind 时同步写入，返回已完成的 future
+     */
+    public CompletableFuture<Boolean> submit(Game game) {
+        if (!enabled) {
+            try {
+                return CompletableFuture.completedFuture(transactionTemplate.execute(status -> {
+                    boolean inserted = gameDao.insert(game.getName(), game.getPrice());
+                    if (inserted) {
+                        eventPublisher.publishEvent(GameCreatedEvent.of(game));
+                    }
+                    return inserted;
+                }));
+            } catch (RuntimeException e) {
+                return failed(e);
+            }
+        }
+        if (closed) {
+            return failed(new RejectedExecutionException("write-behind buffer is closed"));
+        }
+
+        Pending pending = new Pending(game);
+        boolean offered;
+        try {
+            offered = offerTimeoutMillis > 0
+                    ? queue.offer(pending, offerTimeoutMillis, TimeUnit.MILLISECONDS)
+                    : queue.offer(pending);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            return failed(e);
+        }
+        if (!offered) {
+            return failed(new RejectedExecutionException("write-behind queue is full, capacity: " + capacity()));
+        }
+        // 与 destroy 竞争：关闭后放进来的元素若还能撤回，就直接拒绝
+        if (closed && queue.remove(pending)) {
+            return failed(new RejectedExecutionException("write-behind buffer is closed"));
+        }
+        return pending.future;
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    public int size() {
+        return queue.size();
+    }
+
+    public int capacity() {
+        return queue.size() + queue.remainingCapacity();
+    }
+
+    private void runFlusher() {
+        List<Pending> batch = new ArrayList<>(maxBatch);
+        while (!closed || !queue.isEmpty()) {
+            try {
+                Pending first = queue.poll(flushIntervalNanos, TimeUnit.NANOSECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + flushIntervalNanos;
+                while (batch.size() < maxBatch) {
+                    queue.drainTo(batch, maxBatch - batch.size());
+                    long remaining = deadline - System.nanoTime();
+                    if (batch.size() >= maxBatch || remaining <= 0 || closed) {
+                        break;
+                    }
+                    Pending next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                    if (next != null) {
+                        batch.add(next);
+                    }
+                }
+            } catch (InterruptedException e) {
+                // 只有 destroy 超时才会中断，把手里的批次刷完后退出
+                closed = true;
+            }
+            flush(batch);
+            batch.clear();
+        }
+    }
+
+    private void flush(List<Pending> batch) {
+        batch.removeIf(pending -> pending == WAKE_UP);
+        if (batch.isEmpty()) {
+            return;
+        }
+
+        List<Game> games = new ArrayList<>(batch.size());
+        for (Pending pending : batch) {
+            games.add(pending.game);
+        }
+        try {
+            boolean[] results = transactionTemplate.execute(status -> {
+                boolean[] inserted = gameDao.insertBatch(games);
+                eventPublisher.publishEvent(GameCreatedEvent.of(games, inserted));
+                return inserted;
+            });
+            for (int i = 0; i < batch.size(); i++) {
+                batch.get(i).future.complete(results[i]);
+            }
+        } catch (RuntimeException e) {
+            log.warn("write-behind flush of {} games failed!", batch.size(), e);
+            for (Pending pending : batch) {
+                pending.future.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * 停止接收新数据，等后台线程刷完队列；线程已退出则在当前线程兜底刷完
+     */
+    @Override
+    public void destroy() throws InterruptedException {
+        closed = true;
+        if (flusher != null) {
+            // 队列已满时后台线程本来就不会阻塞，放不进去也无妨
+            queue.offer(WAKE_UP);
+            flusher.join(TimeUnit.NANOSECONDS.toMillis(flushIntervalNanos) + 30_000);
+            if (flusher.isAlive()) {
+                flusher.interrupt();
+                flusher.join();
+            }
+        }
+
+        List<Pending> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        flush(rest);
+    }
+
+    private static <T> CompletableFuture<T> failed(Throwable e) {
+        CompletableFuture<T> future = new CompletableFuture<>();
+        future.completeExceptionally(e);
+        return future;
+    }
+
+    private static final class Pending {
+        private final Game game;
+        private final CompletableFuture<Boolean> future = new CompletableFuture<>();
+
+        private Pending(Game game) {
+            this.game = game;
+        }
+    }
+
+}
@@ -0,0 +1,145 @@
+package com.deemo;
+
+import com.deemo.aspect.AsyncLogSink;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AsyncLogSinkTest {
+
+    @Test
+    public void dropWhenFullTest() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        List<Object> written = Collections.synchronizedList(new ArrayList<>());
+        AsyncLogSink sink = new AsyncLogSink(4, AsyncLogSink.OverflowPolicy.DROP, (method, kind, timestamp, value) -> {
+            await(release);
+            written.add(value);
+        });
+        int id = sink.register("GameService#insert");
+
+        // 消费者卡在第一条上，之后最多再放下 4 条
+        Assertions.assertTrue(sink.publish(id, AsyncLogSink.Kind.RETURNING, 0));
+        awaitPending(sink, 0);
+        for (int i = 1; i <= 10; i++) {
+            sink.publish(id, AsyncLogSink.Kind.RETURNING, i);
+        }
+        Assertions.assertEquals(6, sink.getDropped());
+        Assertions.assertEquals(5, sink.getPublished());
+
+        release.countDown();
+        sink.close();
+        Assertions.assertEquals(Arrays.asList(0, 1, 2, 3, 4), written);
+    }
+
+    @Test
+    public void blockWhenFullTest() throws Exception {
+        List<Object> written = Collections.synchronizedList(new ArrayList<>());
+        AsyncLogSink sink = new AsyncLogSink(8, AsyncLogSink.OverflowPolicy.BLOCK, (method, kind, timestamp, value) -> {
+            sleep();
+            written.add(method + ":" + kind + ":" + value);
+        });
+        int insert = sink.register("GameService#insert");
+        int batch = sink.register("GameService#insertBatch");
+
+        int producers = 4;
+        int records = 50;
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++) {
+            int method = p % 2 == 0 ? insert : batch;
+            Thread thread = new Thread(() -> {
+                for (int i = 0; i < records; i++) {
+                    sink.publish(method, AsyncLogSink.Kind.BEFORE, i);
+                }
+            });
+            threads.add(thread);
+            thread.start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        sink.close();
+
+        // 满了就等待，一条都不丢
+        Assertions.assertEquals(0, sink.getDropped());
+        Assertions.assertTrue(sink.getBlocked() > 0);
+        Assertions.assertEquals(producers * records, written.size());
+        Assertions.assertEquals(0, sink.getPending());
+        Assertions.assertTrue(written.contains("GameService#insertBatch:BEFORE:49"));
+    }
+
+    @Test
+    public void rejectAfterCloseTest() throws Exception {
+        AsyncLogSink sink = new AsyncLogSink(16, AsyncLogSink.OverflowPolicy.BLOCK, (method, kind, timestamp, value) -> {});
+        sink.close();
+        Assertions.assertFalse(sink.publish(sink.register("GameService#insert"), AsyncLogSink.Kind.BEFORE, null));
+        Assertions.assertEquals(1, sink.getDropped());
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new AsyncLogSink(12, AsyncLogSink.OverflowPolicy.DROP, (method, kind, timestamp, value) -> {}));
+    }
+
+    /**
+     * 与 close 并发的写入要么被拒绝，要么最终被输出，不存在计入 published 却没有输出的记录
+     */
+    @Test
+    public void closeWhilePublishingTest() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            AtomicInteger written = new AtomicInteger();
+            AsyncLogSink sink = new AsyncLogSink(1024, AsyncLogSink.OverflowPolicy.BLOCK,
+                    (method, kind, timestamp, value) -> written.incrementAndGet());
+            int id = sink.register("GameService#insert");
+            CountDownLatch started = new CountDownLatch(4);
+            List<Thread> threads = new ArrayList<>();
+            for (int p = 0; p < 4; p++) {
+                Thread thread = new Thread(() -> {
+                    started.countDown();
+                    while (sink.publish(id, AsyncLogSink.Kind.BEFORE, null)) {
+                        // 一直写到被拒绝为止
+                    }
+                });
+                threads.add(thread);
+                thread.start();
+            }
+            started.await();
+            sink.close();
+            for (Thread thread : threads) {
+                thread.join();
+            }
+
+            Assertions.assertEquals(sink.getPublished(), written.get());
+            Assertions.assertEquals(0, sink.getPending());
+            Assertions.assertEquals(4, sink.getDropped());
+        }
+    }
+
+    private static void awaitPending(AsyncLogSink sink, long pending) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+        while (sink.getPending() != pending && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(1);
+        }
+        Assertions.assertEquals(pending, sink.getPending());
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private static void sleep() {
+        try {
+            TimeUnit.MICROSECONDS.sleep(200);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+}
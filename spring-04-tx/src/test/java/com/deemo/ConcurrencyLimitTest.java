@@ -0,0 +1,167 @@
+package com.deemo;
+
+import com.deemo.aspect.ConcurrencyLimitAspect;
+import com.deemo.config.WeavingModeConfig;
+import com.deemo.limit.AdaptiveLimiter;
+import com.deemo.limit.ConcurrencyLimit;
+import com.deemo.limit.ConcurrencyLimitExceededException;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 针对代理模式；织入模式下通知记在 AspectJ 创建的切面实例上，见 {@link LoadTimeWeavingTest}
+ */
+@DisabledIfSystemProperty(named = "spring.profiles.active", matches = WeavingModeConfig.PROFILE)
+public class ConcurrencyLimitTest {
+    private static final int LIMIT = 4;
+
+    @Test
+    public void aimdTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("aimd", 10, 2, 12, 10, 0);
+        int inFlight = limiter.acquire();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(50), inFlight);
+        // 乘性减
+        Assertions.assertEquals(9, limiter.getLimit());
+        for (int i = 0; i < 100; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(50), 0);
+        }
+        Assertions.assertEquals(2, limiter.getLimit());
+
+        // 加性增：额度用满时每轮 limit 次调用加 1，不超过 maxLimit
+        for (int i = 0; i < 1_000; i++) {
+            limiter.release(TimeUnit.MILLISECONDS.toNanos(1), limiter.getLimit());
+        }
+        Assertions.assertEquals(12, limiter.getLimit());
+        // 额度没用到一半时不增加
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(50), 0);
+        int limit = limiter.getLimit();
+        limiter.release(TimeUnit.MILLISECONDS.toNanos(1), 1);
+        Assertions.assertEquals(limit, limiter.getLimit());
+    }
+
+    @Test
+    public void queueTimeoutTest() {
+        AdaptiveLimiter limiter = new AdaptiveLimiter("queue", 1, 1, 1, 1_000, 20);
+        limiter.acquire();
+        long start = System.nanoTime();
+        Assertions.assertThrows(ConcurrencyLimitExceededException.class, limiter::acquire);
+        Assertions.assertTrue(System.nanoTime() - start >= TimeUnit.MILLISECONDS.toNanos(20));
+        Assertions.assertEquals(1, limiter.getQueued());
+        Assertions.assertEquals(1, limiter.getRejected());
+
+        // 等待期间有额度释放则成功
+        new Thread(() -> {
+            sleep(5);
+            limiter.release(0, 1);
+        }).start();
+        limiter.acquire();
+        Assertions.assertEquals(2, limiter.getAccepted());
+    }
+
+    /**
+     * 额度用满后多余的调用立即被拒绝，不进入目标方法；慢调用结束后额度乘性减。
+     * 负载下的延迟对比见 spring-06-benchmark 的 ConcurrencyLimitBenchmark
+     */
+    @Test
+    public void overloadTest() throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(LIMIT);
+        try (AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext(LimitConfig.class)) {
+            BlockingWork work = applicationContext.getBean(BlockingWork.class);
+            List<Future<?>> futures = new ArrayList<>();
+            for (int i = 0; i < LIMIT; i++) {
+                futures.add(executor.submit(work::execute));
+            }
+            Assertions.assertTrue(work.awaitEntered());
+            AdaptiveLimiter limiter = applicationContext.getBean(ConcurrencyLimitAspect.class).limiterFor("BlockingWork#execute");
+            Assertions.assertEquals(LIMIT, limiter.getInFlight());
+
+            // 额度已满：立即拒绝，不排队
+            Assertions.assertThrows(ConcurrencyLimitExceededException.class, work::execute);
+            Assertions.assertEquals(LIMIT, work.getCalls());
+            Assertions.assertEquals(1, limiter.getRejected());
+
+            // 持有时间超过 20ms 阈值，每个调用结束时额度乘以 0.9
+            sleep(30);
+            work.release();
+            for (Future<?> future : futures) {
+                future.get(10, TimeUnit.SECONDS);
+            }
+            Assertions.assertEquals(0, limiter.getInFlight());
+            Assertions.assertEquals(LIMIT, limiter.getAccepted());
+            Assertions.assertEquals((int) (LIMIT * Math.pow(0.9, LIMIT)), limiter.getLimit());
+
+            // 额度释放后可以再次调用
+            work.execute();
+            Assertions.assertEquals(LIMIT + 1, work.getCalls());
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            TimeUnit.MILLISECONDS.sleep(millis);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    /**
+     * 在 release 之前一直阻塞；状态通过方法访问，CGLIB 代理对象上的字段未初始化
+     */
+    public static class BlockingWork {
+        private final CountDownLatch entered = new CountDownLatch(LIMIT);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private final AtomicInteger calls = new AtomicInteger();
+
+        @ConcurrencyLimit(initialLimit = LIMIT, maxLimit = LIMIT, latencyThresholdMillis = 20)
+        public void execute() {
+            calls.incrementAndGet();
+            entered.countDown();
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+
+        public boolean awaitEntered() throws InterruptedException {
+            return entered.await(10, TimeUnit.SECONDS);
+        }
+
+        public void release() {
+            release.countDown();
+        }
+
+        public int getCalls() {
+            return calls.get();
+        }
+    }
+
+    @EnableAspectJAutoProxy
+    static class LimitConfig {
+        @Bean
+        public BlockingWork blockingWork() {
+            return new BlockingWork();
+        }
+
+        @Bean
+        public ConcurrencyLimitAspect concurrencyLimitAspect() {
+            return new ConcurrencyLimitAspect();
+        }
+    }
+
+}
@@ -0,0 +1,58 @@
+package com.deemo;
+
+import com.deemo.aspect.TransactionMetricsAspect;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.DriverManagerDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 用 H2（MySQL 模式）替代 {@link App} 中的 MySQL 数据源。
+ * <p>
+ * 故意不加 @Configuration，避免被 {@link App} 的 @ComponentScan("com.deemo") 扫描到。
+ */
+@EnableTransactionManagement(order = TransactionMetricsAspect.TRANSACTION_ADVISOR_ORDER)
+@ComponentScan({"com.deemo.dao", "com.deemo.service"})
+public class EmbeddedGameConfig {
+    private static final AtomicInteger SEQUENCE = new AtomicInteger();
+
+    /**
+     * 每次调用都创建一个独立的内存库，并建好 game 表
+     */
+    public static DataSource newDatabase(String name) {
+        DriverManagerDataSource dataSource = new DriverManagerDataSource(
+                "jdbc:h2:mem:" + name + "-" + SEQUENCE.incrementAndGet() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        dataSource.setDriverClassName("org.h2.Driver");
+        createSchema(dataSource);
+        return dataSource;
+    }
+
+    public static void createSchema(DataSource dataSource) {
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("game-schema.sql")), dataSource);
+    }
+
+    @Bean
+    public DataSource dataSource() {
+        return newDatabase("game");
+    }
+
+    @Bean
+    public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+        return new JdbcTemplate(dataSource);
+    }
+
+    @Bean
+    public PlatformTransactionManager platformTransactionManager(DataSource dataSource) {
+        return new DataSourceTransactionManager(dataSource);
+    }
+
+}
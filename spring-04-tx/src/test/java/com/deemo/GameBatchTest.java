@@ -0,0 +1,129 @@
+package com.deemo;
+
+import com.deemo.datasource.InstrumentedTransactionManager;
+import com.deemo.datasource.StatementMetrics;
+import com.deemo.datasource.TimingDataSource;
+import com.deemo.datasource.TransactionMetrics;
+import com.deemo.entity.Game;
+import com.deemo.service.IGameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+public class GameBatchTest {
+    private static final int ROWS = 5_000;
+    private static final String INSERT_SQL = "INSERT INTO `game` (`name`, `price`, `description`) VALUES (?, ?, ?)";
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(RoundTripConfig.class);
+    }
+
+    @Test
+    public void insertBatchTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        boolean[] results = gameService.insertBatch(games("batch", 1_234));
+
+        Assertions.assertEquals(1_234, results.length);
+        for (boolean result : results) {
+            Assertions.assertTrue(result);
+        }
+        Assertions.assertEquals(1_234, count());
+    }
+
+    /**
+     * 耗时对比见 spring-06-benchmark 的 InsertModeBenchmark，这里只验证往返次数与提交次数
+     */
+    @Test
+    public void roundTripTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        StatementMetrics statementMetrics = this.applicationContext.getBean(StatementMetrics.class);
+        TransactionMetrics transactionMetrics = this.applicationContext.getBean(TransactionMetrics.class);
+
+        // 逐行写入：每行一条语句、一次提交
+        for (Game game : games("row", ROWS)) {
+            gameService.insert(game.getName(), game.getPrice());
+        }
+        Assertions.assertEquals(ROWS, count(statementMetrics));
+        Assertions.assertEquals(ROWS, find(transactionMetrics, "com.deemo.service.impl.GameService.insert").getCommits());
+
+        // 批量写入：每 500 行一次 executeBatch，整批一次提交
+        statementMetrics.reset();
+        gameService.insertBatch(games("batch", ROWS));
+        Assertions.assertEquals(ROWS / 500, count(statementMetrics));
+        Assertions.assertEquals(1, find(transactionMetrics, "com.deemo.service.impl.GameService.insertBatch").getCommits());
+        Assertions.assertEquals(ROWS * 2, count());
+    }
+
+    private static long count(StatementMetrics metrics) {
+        return metrics.snapshot().stream().filter(snapshot -> snapshot.getSql().equals(INSERT_SQL))
+                .mapToLong(StatementMetrics.Snapshot::getCount).sum();
+    }
+
+    private static TransactionMetrics.Snapshot find(TransactionMetrics metrics, String name) {
+        return metrics.snapshot().stream().filter(snapshot -> snapshot.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("no statistics for " + name));
+    }
+
+    private int count() {
+        return this.applicationContext.getBean(JdbcTemplate.class).queryForObject("SELECT COUNT(*) FROM `game`", Integer.class);
+    }
+
+    static List<Game> games(String prefix, int size) {
+        List<Game> games = new ArrayList<>(size);
+        for (int i = 0; i < size; i++) {
+            games.add(new Game(prefix + "-" + i, i % 100 + 0.99));
+        }
+        return games;
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+    /**
+     * 语句与事务都经过计数
+     */
+    static class RoundTripConfig extends EmbeddedGameConfig {
+        /**
+         * 没有 @Configuration（lite 模式），@Bean 方法之间的调用不经过容器，因此用字段共享同一个实例
+         */
+        private final StatementMetrics statementMetrics = new StatementMetrics();
+        private final TransactionMetrics transactionMetrics = new TransactionMetrics();
+
+        @Bean
+        public StatementMetrics statementMetrics() {
+            return statementMetrics;
+        }
+
+        @Bean
+        public TransactionMetrics transactionMetrics() {
+            return transactionMetrics;
+        }
+
+        @Bean
+        @Override
+        public DataSource dataSource() {
+            return new TimingDataSource(super.dataSource(), statementMetrics);
+        }
+
+        @Bean
+        @Override
+        public PlatformTransactionManager platformTransactionManager(DataSource dataSource) {
+            return new InstrumentedTransactionManager(dataSource, transactionMetrics, 1000);
+        }
+    }
+
+}
@@ -0,0 +1,96 @@
+package com.deemo;
+
+import com.deemo.dao.GameDao;
+import com.deemo.dao.InsertMode;
+import com.deemo.entity.Game;
+import com.deemo.service.support.GameBulkLoader;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.dao.TransientDataAccessResourceException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.Collection;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+public class GameBulkLoadTest {
+    private static final int ROWS = 20_000;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void before() {
+        this.dataSource = EmbeddedGameConfig.newDatabase("bulk");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+    }
+
+    @Test
+    public void loadTest() throws Exception {
+        GameBulkLoader loader = loader(new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false));
+        GameBulkLoader.LoadResult result = loader.load(GameBatchTest.games("bulk", ROWS));
+
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertEquals(4, result.getParallelism());
+        Assertions.assertEquals(20, result.getPartitions());
+        Assertions.assertEquals(ROWS, result.getRows());
+        Assertions.assertEquals(0, result.getRetries());
+        Assertions.assertEquals(ROWS, count());
+    }
+
+    @Test
+    public void retryPartitionTest() throws Exception {
+        // 每个分区的第一次写入都在 batch 之后失败，事务回滚后重试成功
+        Set<String> failedOnce = ConcurrentHashMap.newKeySet();
+        GameDao flaky = new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false) {
+            @Override
+            public boolean[] insertBatch(Collection<Game> games) {
+                boolean[] results = super.insertBatch(games);
+                if (failedOnce.add(games.iterator().next().getName())) {
+                    throw new TransientDataAccessResourceException("connection reset");
+                }
+                return results;
+            }
+        };
+
+        GameBulkLoader.LoadResult result = loader(flaky).load(GameBatchTest.games("retry", ROWS));
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertEquals(20, result.getRetries());
+        Assertions.assertEquals(ROWS, result.getRows());
+        Assertions.assertEquals(ROWS, count());
+    }
+
+    @Test
+    public void failPartitionTest() throws Exception {
+        List<Game> games = GameBatchTest.games("fail", ROWS);
+        // name 超过列宽，约束错误不重试，只有所在分区失败
+        games.set(12_345, new Game(new String(new char[100]).replace('\0', 'x'), 1.0));
+
+        GameBulkLoader.LoadResult result = loader(new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false)).load(games);
+        Assertions.assertFalse(result.isSuccess());
+        Assertions.assertEquals(1, result.getFailures().size());
+        GameBulkLoader.PartitionFailure failure = result.getFailures().get(0);
+        Assertions.assertEquals(12, failure.getPartition());
+        Assertions.assertEquals(12_000, failure.getOffset());
+        Assertions.assertEquals(1, failure.getAttempts());
+        Assertions.assertEquals(0, result.getRetries());
+        Assertions.assertEquals(ROWS - 1_000, result.getRows());
+        Assertions.assertEquals(ROWS - 1_000, count());
+    }
+
+    /**
+     * 连接池 4 个连接、不预留，分区 1000 行
+     */
+    private GameBulkLoader loader(GameDao gameDao) {
+        return new GameBulkLoader(gameDao, new DataSourceTransactionManager(dataSource), 4, 0, 1_000, 3, 10);
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class);
+    }
+
+}
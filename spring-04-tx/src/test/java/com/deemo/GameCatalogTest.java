@@ -0,0 +1,112 @@
+package com.deemo;
+
+import com.deemo.catalog.GameCatalog;
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import com.deemo.service.IGameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+public class GameCatalogTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private GameCatalog gameCatalog;
+
+    @BeforeEach
+    public void before() {
+        System.setProperty("game.catalog.enabled", "true");
+        // 调小阈值，让增量段的合并也被覆盖到
+        System.setProperty("game.catalog.merge-threshold", "8");
+        this.applicationContext = new AnnotationConfigApplicationContext(EmbeddedGameConfig.class, GameCatalog.class);
+        this.gameCatalog = this.applicationContext.getBean(GameCatalog.class);
+    }
+
+    @Test
+    public void loadAndRangeTest() {
+        List<Game> games = new ArrayList<>();
+        for (int i = 0; i < 1_000; i++) {
+            // 只有 10 个不同的名称，价格倒序写入
+            games.add(new Game("game-" + (i % 10), 999 - i));
+        }
+        applicationContext.getBean(GameDao.class).insertBatch(games);
+        Assertions.assertEquals(0, gameCatalog.size());
+
+        gameCatalog.reload();
+        Assertions.assertEquals(1_000, gameCatalog.size());
+        Assertions.assertEquals(101, gameCatalog.countByPriceBetween(100, 200));
+        Assertions.assertEquals(0, gameCatalog.countByPriceBetween(2_000, 3_000));
+
+        double[] last = {Double.NEGATIVE_INFINITY};
+        int visited = gameCatalog.forEachByPriceBetween(100, 200, (row, price) -> {
+            Assertions.assertTrue(price >= last[0]);
+            Assertions.assertEquals(price, gameCatalog.price(row));
+            last[0] = price;
+        });
+        Assertions.assertEquals(101, visited);
+        Assertions.assertEquals(200, last[0]);
+    }
+
+    @Test
+    public void independentInstancesTest() {
+        GameDao gameDao = applicationContext.getBean(GameDao.class);
+        PlatformTransactionManager transactionManager = applicationContext.getBean(PlatformTransactionManager.class);
+        GameCatalog first = new GameCatalog(gameDao, transactionManager, false, 1_000, 8);
+        GameCatalog second = new GameCatalog(gameDao, transactionManager, false, 1_000, 8);
+
+        // 都还没有加载过，追加写入各自的空列
+        first.append(Arrays.asList(new Game("first", 1.0)));
+        second.append(Arrays.asList(new Game("second", 2.0)));
+        Assertions.assertEquals("first", first.name(0));
+        Assertions.assertEquals(1.0, first.price(0));
+        Assertions.assertEquals("second", second.name(0));
+        Assertions.assertEquals(2.0, second.price(0));
+    }
+
+    @Test
+    public void refreshOnCommitTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        Assertions.assertTrue(gameService.insert("single", 50.0));
+        gameService.insertBatch(Arrays.asList(new Game("a", 10.0), new Game("b", 30.0), new Game("c", 70.0)));
+        Assertions.assertEquals(4, gameCatalog.size());
+
+        List<String> names = new ArrayList<>();
+        gameCatalog.forEachByPriceBetween(20, 60, (row, price) -> names.add(gameCatalog.name(row)));
+        Assertions.assertEquals(Arrays.asList("b", "single"), names);
+
+        // 超过阈值后并入主段，顺序保持不变
+        gameService.insertBatch(GameBatchTest.games("merged", 20));
+        Assertions.assertEquals(24, gameCatalog.size());
+        Assertions.assertEquals(24, gameCatalog.countByPriceBetween(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY));
+        double[] last = {Double.NEGATIVE_INFINITY};
+        gameCatalog.forEachByPriceBetween(Double.NEGATIVE_INFINITY, Double.POSITIVE_INFINITY, (row, price) -> {
+            Assertions.assertTrue(price >= last[0]);
+            last[0] = price;
+        });
+    }
+
+    @Test
+    public void skipRollbackTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        Assertions.assertThrows(ArithmeticException.class, () -> gameService.insert("rollback", 1.0, true));
+        Assertions.assertEquals(0, gameCatalog.size());
+
+        Assertions.assertTrue(gameService.insert("commit", 1.0));
+        Assertions.assertEquals(1, gameCatalog.size());
+        Assertions.assertEquals("commit", gameCatalog.name(0));
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+        System.clearProperty("game.catalog.enabled");
+        System.clearProperty("game.catalog.merge-threshold");
+    }
+
+}
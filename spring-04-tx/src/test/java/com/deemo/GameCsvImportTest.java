@@ -0,0 +1,116 @@
+package com.deemo;
+
+import com.deemo.dao.GameDao;
+import com.deemo.dao.InsertMode;
+import com.deemo.service.support.GameCsvImporter;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.io.BufferedWriter;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+public class GameCsvImportTest {
+    private static final int ROWS = 20_000;
+
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private GameDao gameDao;
+
+    @BeforeEach
+    public void before() {
+        this.dataSource = EmbeddedGameConfig.newDatabase("import");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.gameDao = new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false);
+    }
+
+    @Test
+    public void importTest(@TempDir Path dir) throws Exception {
+        Path csv = write(dir.resolve("game.csv"), ROWS, -1);
+        // 窗口故意取得很小，覆盖行跨窗口重新映射的分支
+        GameCsvImporter.ImportResult result = importer(4, 4096).importFile(csv);
+
+        Assertions.assertTrue(result.isSuccess());
+        Assertions.assertNull(result.getFailure());
+        Assertions.assertEquals(ROWS, result.getRows());
+        Assertions.assertEquals(1, result.getSkipped());
+        Assertions.assertEquals(Files.size(csv), result.getResumeOffset());
+        Assertions.assertEquals(Files.size(csv), result.getFileSize());
+        Assertions.assertTrue(result.getRowsPerSecond() > 0);
+        Assertions.assertEquals(ROWS, count());
+        Assertions.assertEquals(12.5, jdbcTemplate.queryForObject(
+                "SELECT `price` FROM `game` WHERE `name` = ?", Double.class, "game \"7\", deluxe"));
+        Assertions.assertEquals(-3.25, jdbcTemplate.queryForObject(
+                "SELECT `price` FROM `game` WHERE `name` = ?", Double.class, "游戏-3"));
+    }
+
+    @Test
+    public void resumeTest(@TempDir Path dir) throws Exception {
+        // 第 15000 行的 name 超过列宽，写入失败
+        Path csv = write(dir.resolve("game.csv"), ROWS, 15_000);
+        GameCsvImporter importer = importer(1, 1024 * 1024);
+
+        GameCsvImporter.ImportResult failed = importer.importFile(csv);
+        Assertions.assertFalse(failed.isSuccess());
+        Assertions.assertEquals(15_000, failed.getRows());
+        Assertions.assertEquals(15_000, count());
+
+        // 坏行位于续传偏移之后，修复它不影响之前的偏移，然后从断点续传
+        byte[] bytes = Files.readAllBytes(csv);
+        String fixed = new String(bytes, StandardCharsets.UTF_8).replace(longName(), "fixed");
+        Files.write(csv, fixed.getBytes(StandardCharsets.UTF_8));
+
+        GameCsvImporter.ImportResult resumed = importer.importFile(csv, failed.getResumeOffset());
+        Assertions.assertTrue(resumed.isSuccess());
+        Assertions.assertEquals(ROWS - 15_000, resumed.getRows());
+        Assertions.assertEquals(ROWS, count());
+    }
+
+    private GameCsvImporter importer(int workers, long windowSize) {
+        return new GameCsvImporter(gameDao, new DataSourceTransactionManager(dataSource), workers, 1000, windowSize, 1000);
+    }
+
+    /**
+     * 与 GameExporter 导出的格式一致；另外混入引号、中文、负数与一行非法数据
+     */
+    private Path write(Path csv, int rows, int badRow) throws Exception {
+        try (BufferedWriter writer = Files.newBufferedWriter(csv, StandardCharsets.UTF_8)) {
+            writer.write("id,name,price,description\n");
+            for (int i = 0; i < rows; i++) {
+                String name;
+                String price = String.valueOf(i % 100 + 0.99);
+                if (i == badRow) {
+                    name = longName();
+                } else if (i == 7) {
+                    name = "\"game \"\"7\"\", deluxe\"";
+                    price = "12.5";
+                } else if (i == 3) {
+                    name = "游戏-3";
+                    price = "\"-3.25\"";
+                } else {
+                    name = "game-" + i;
+                }
+                writer.write(i + "," + name + "," + price + ",\"desc\"\r\n");
+                if (i == 10) {
+                    writer.write("broken,line,not-a-price,\n");
+                }
+            }
+        }
+        return csv;
+    }
+
+    private static String longName() {
+        return new String(new char[80]).replace('\0', 'x');
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class);
+    }
+
+}
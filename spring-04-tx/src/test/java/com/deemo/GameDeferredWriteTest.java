@@ -0,0 +1,113 @@
+package com.deemo;
+
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import com.deemo.service.IGameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.Collections;
+import java.util.List;
+
+public class GameDeferredWriteTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private JdbcTemplate jdbcTemplate;
+
+    @BeforeEach
+    public void before() {
+        System.setProperty("game.insert.deferred", "true");
+        this.applicationContext = new AnnotationConfigApplicationContext(EmbeddedGameConfig.class);
+        this.jdbcTemplate = this.applicationContext.getBean(JdbcTemplate.class);
+    }
+
+    @Test
+    public void deferUntilCommitTest() {
+        GameDao gameDao = this.applicationContext.getBean(GameDao.class);
+        Assertions.assertTrue(gameDao.isDeferred());
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.applicationContext.getBean(PlatformTransactionManager.class));
+
+        int inTransaction = transactionTemplate.execute(status -> {
+            for (Game game : GameBatchTest.games("deferred", 100)) {
+                Assertions.assertTrue(gameDao.insert(game.getName(), game.getPrice()));
+            }
+            // 同一连接内也看不到，说明还没有发送到数据库
+            return count();
+        });
+
+        Assertions.assertEquals(0, inTransaction);
+        Assertions.assertEquals(100, count());
+    }
+
+    @Test
+    public void keepOrderWithBatchTest() {
+        GameDao gameDao = this.applicationContext.getBean(GameDao.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.applicationContext.getBean(PlatformTransactionManager.class));
+
+        transactionTemplate.execute(status -> {
+            gameDao.insert("first", 1.0);
+            return gameDao.insertBatch(Collections.singletonList(new Game("second", 2.0)));
+        });
+
+        Assertions.assertEquals("first", jdbcTemplate.queryForObject(
+                "SELECT `name` FROM `game` ORDER BY `id` LIMIT 1", String.class));
+        Assertions.assertEquals(2, count());
+    }
+
+    @Test
+    public void readYourWritesTest() {
+        GameDao gameDao = this.applicationContext.getBean(GameDao.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(this.applicationContext.getBean(PlatformTransactionManager.class));
+
+        transactionTemplate.execute(status -> {
+            gameDao.insert("cheap", 1.0);
+            gameDao.insert("expensive", 100.0);
+            // 查询前先发送缓冲的写入，同一事务内能读到
+            List<Game> found = gameDao.findByPriceBetween(0, 10);
+            Assertions.assertEquals(1, found.size());
+            Assertions.assertEquals("cheap", found.get(0).getName());
+
+            gameDao.insert("middle", 50.0);
+            Assertions.assertEquals(3, gameDao.scan(10, game -> {
+            }));
+            return null;
+        });
+
+        // 已发送的行提交时不会重复写入
+        Assertions.assertEquals(3, count());
+    }
+
+    @Test
+    public void discardOnRollbackTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        Assertions.assertThrows(ArithmeticException.class, () -> gameService.insert("rollback", 1.0, true));
+        Assertions.assertEquals(0, count());
+
+        Assertions.assertTrue(gameService.insert("commit", 1.0));
+        Assertions.assertEquals(1, count());
+    }
+
+    @Test
+    public void failOnCommitTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        // 非空约束在提交前的 batch 中触发，事务整体回滚
+        Assertions.assertThrows(RuntimeException.class, () -> gameService.insert(null, 1.0));
+        Assertions.assertEquals(0, count());
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class);
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+        System.clearProperty("game.insert.deferred");
+    }
+
+}
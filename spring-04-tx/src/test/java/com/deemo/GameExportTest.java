@@ -0,0 +1,101 @@
+package com.deemo;
+
+import com.deemo.dao.GameDao;
+import com.deemo.entity.Game;
+import com.deemo.service.IGameService;
+import com.deemo.service.support.GameExporter;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.transaction.PlatformTransactionManager;
+
+import java.io.BufferedReader;
+import java.io.DataInputStream;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class GameExportTest {
+    private static final int ROWS = 50_000;
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(EmbeddedGameConfig.class);
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        gameService.insertBatch(GameBatchTest.games("export \"quoted\"", ROWS));
+    }
+
+    @Test
+    public void scanTest() {
+        GameDao gameDao = this.applicationContext.getBean(GameDao.class);
+        AtomicLong lastId = new AtomicLong();
+        AtomicReference<Game> first = new AtomicReference<>();
+        long rows = gameDao.scan(100, game -> {
+            // 按 id 顺序逐行回调，每行复用同一个对象，不随行数分配
+            Assertions.assertTrue(game.getId() > lastId.get());
+            lastId.set(game.getId());
+            first.compareAndSet(null, game);
+            Assertions.assertSame(first.get(), game);
+        });
+        Assertions.assertEquals(ROWS, rows);
+    }
+
+    @Test
+    public void csvTest(@TempDir Path dir) throws Exception {
+        GameExporter exporter = this.applicationContext.getBean(GameExporter.class);
+        Path csv = dir.resolve("game.csv");
+
+        Assertions.assertEquals(ROWS, exporter.export(csv, GameExporter.Format.CSV));
+
+        try (BufferedReader reader = Files.newBufferedReader(csv)) {
+            Assertions.assertEquals("id,name,price,description", reader.readLine());
+            Assertions.assertEquals("1,\"export \"\"quoted\"\"-0\",0.99,\"export \"\"quoted\"\"-0 ￥0.99\"", reader.readLine());
+            Assertions.assertEquals(ROWS - 1, reader.lines().count());
+        }
+    }
+
+    @Test
+    public void binaryTest(@TempDir Path dir) throws Exception {
+        GameExporter exporter = this.applicationContext.getBean(GameExporter.class);
+        Path bin = dir.resolve("game.bin");
+        Assertions.assertEquals(ROWS, exporter.export(bin, GameExporter.Format.BINARY));
+
+        try (InputStream in = Files.newInputStream(bin); DataInputStream data = new DataInputStream(in)) {
+            Assertions.assertEquals(1L, data.readLong());
+            Assertions.assertEquals(0.99, data.readDouble());
+            byte[] name = new byte[data.readInt()];
+            data.readFully(name);
+            Assertions.assertEquals("export \"quoted\"-0", new String(name, "UTF-8"));
+        }
+    }
+
+    /**
+     * 缓冲区远小于一行时分段写出，结果与默认缓冲区逐字节相同
+     */
+    @Test
+    public void smallBufferTest(@TempDir Path dir) throws Exception {
+        GameExporter exporter = this.applicationContext.getBean(GameExporter.class);
+        GameExporter small = new GameExporter(this.applicationContext.getBean(GameDao.class),
+                this.applicationContext.getBean(PlatformTransactionManager.class), 7, 16);
+        for (GameExporter.Format format : GameExporter.Format.values()) {
+            Path expected = dir.resolve(format + ".expected");
+            Path actual = dir.resolve(format + ".actual");
+            Assertions.assertEquals(ROWS, exporter.export(expected, format));
+            Assertions.assertEquals(ROWS, small.export(actual, format));
+            Assertions.assertArrayEquals(Files.readAllBytes(expected), Files.readAllBytes(actual), format.name());
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+}
@@ -0,0 +1,76 @@
+package com.deemo;
+
+import com.deemo.dao.GameDao;
+import com.deemo.dao.InsertMode;
+import com.deemo.datasource.StatementMetrics;
+import com.deemo.datasource.TimingDataSource;
+import com.deemo.entity.Game;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.List;
+
+public class GameInsertModeTest {
+    private static final int ROWS = 5_000;
+    private static final String INSERT_SQL = "INSERT INTO `game` (`name`, `price`, `description`) VALUES (?, ?, ?)";
+
+    @Test
+    public void multiValuesTest() {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(EmbeddedGameConfig.newDatabase("multi"));
+        // 行数上限 7，字节上限足够小，使语句在两种上限之间切换
+        GameDao gameDao = new GameDao(jdbcTemplate, 500, InsertMode.MULTI_VALUES, 7, 300, false, false);
+
+        boolean[] results = gameDao.insertBatch(GameBatchTest.games("multi", 100));
+        Assertions.assertEquals(100, results.length);
+        for (boolean result : results) {
+            Assertions.assertTrue(result);
+        }
+        Assertions.assertEquals(100, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class));
+        Assertions.assertEquals("multi-42 ￥42.99", jdbcTemplate.queryForObject(
+                "SELECT `description` FROM `game` WHERE `name` = ?", String.class, "multi-42"));
+    }
+
+    @Test
+    public void statementCountTest() {
+        List<Game> games = GameBatchTest.games("count", ROWS);
+        // 5000 行：逐行 5000 条，每批 500 行 10 次 executeBatch，每条 1000 行 5 条多行语句
+        Assertions.assertEquals(ROWS, count(run(InsertMode.ROW, games), INSERT_SQL));
+        Assertions.assertEquals(ROWS / 500, count(run(InsertMode.BATCH, games), INSERT_SQL));
+        StatementMetrics multiValues = run(InsertMode.MULTI_VALUES, games);
+        Assertions.assertEquals(ROWS / 1000, count(multiValues, INSERT_SQL + ",(?, ?, ?)"));
+        Assertions.assertEquals(0, count(multiValues, INSERT_SQL));
+    }
+
+    private static long count(StatementMetrics metrics, String sql) {
+        String key = metrics.normalize(sql);
+        return metrics.snapshot().stream().filter(snapshot -> snapshot.getSql().equals(key))
+                .mapToLong(StatementMetrics.Snapshot::getCount).sum();
+    }
+
+    /**
+     * 每种模式都在单个事务、单个连接内执行，只比较语句形态的差异；耗时对比见 spring-06-benchmark 的 InsertModeBenchmark
+     */
+    private StatementMetrics run(InsertMode mode, List<Game> games) {
+        SingleConnectionDataSource dataSource = new SingleConnectionDataSource();
+        dataSource.setSuppressClose(true);
+        dataSource.setUrl("jdbc:h2:mem:count-" + mode + "-" + System.nanoTime() + ";MODE=MySQL");
+        EmbeddedGameConfig.createSchema(dataSource);
+        StatementMetrics metrics = new StatementMetrics();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new TimingDataSource(dataSource, metrics));
+        GameDao gameDao = new GameDao(jdbcTemplate, 500, mode, 1000, 1024 * 1024, false, false);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(jdbcTemplate.getDataSource()));
+
+        try {
+            transactionTemplate.execute(status -> gameDao.insertBatch(games));
+            Assertions.assertEquals(ROWS, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class));
+            return metrics;
+        } finally {
+            dataSource.destroy();
+        }
+    }
+
+}
@@ -0,0 +1,192 @@
+package com.deemo;
+
+import com.deemo.entity.Game;
+import com.deemo.event.GameCreatedEvent;
+import com.deemo.event.outbox.GameOutbox;
+import com.deemo.event.outbox.GameOutboxListener;
+import com.deemo.event.outbox.OutboxJournal;
+import com.deemo.service.IGameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+
+public class GameOutboxTest {
+    private AnnotationConfigApplicationContext applicationContext;
+
+    @Test
+    public void deliverAfterCommitTest(@TempDir Path dir) throws Exception {
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        start(dir, events -> events.forEach(event -> event.getGames().forEach(game -> received.add(game.getName()))));
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+
+        Assertions.assertTrue(gameService.insert("first", 1.0));
+        Assertions.assertThrows(ArithmeticException.class, () -> gameService.insert("rollback", 2.0, true));
+        gameService.insertBatch(Arrays.asList(new Game("second", 3.0), new Game("third", 4.0)));
+        awaitDrained();
+
+        // 回滚的写入不会进入发件箱
+        Assertions.assertEquals(Arrays.asList("first", "second", "third"), received);
+        GameOutbox outbox = this.applicationContext.getBean(GameOutbox.class);
+        Assertions.assertEquals(2, outbox.getAppended());
+        Assertions.assertEquals(2, outbox.getDelivered());
+    }
+
+    @Test
+    public void redeliverOnFailureTest(@TempDir Path dir) throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<GameCreatedEvent> received = Collections.synchronizedList(new ArrayList<>());
+        start(dir, events -> {
+            if (attempts.incrementAndGet() <= 2) {
+                throw new IllegalStateException("listener is down");
+            }
+            received.addAll(events);
+        });
+
+        this.applicationContext.getBean(IGameService.class).insert("retried", 1.0);
+        awaitDrained();
+
+        Assertions.assertEquals(3, attempts.get());
+        Assertions.assertEquals(1, received.size());
+        Assertions.assertEquals("retried", received.get(0).getGames().get(0).getName());
+        Assertions.assertEquals(2, this.applicationContext.getBean(GameOutbox.class).getFailedDeliveries());
+    }
+
+    @Test
+    public void listenerErrorTest(@TempDir Path dir) throws Exception {
+        AtomicInteger attempts = new AtomicInteger();
+        List<GameCreatedEvent> received = Collections.synchronizedList(new ArrayList<>());
+        start(dir, events -> {
+            // Error 也不能让 relay 线程退出
+            if (attempts.incrementAndGet() == 1) {
+                throw new AssertionError("listener is broken");
+            }
+            received.addAll(events);
+        });
+
+        this.applicationContext.getBean(IGameService.class).insert("survived", 1.0);
+        awaitDrained();
+
+        Assertions.assertEquals(2, attempts.get());
+        Assertions.assertEquals(1, received.size());
+        GameOutbox outbox = this.applicationContext.getBean(GameOutbox.class);
+        Assertions.assertEquals(1, outbox.getFailedDeliveries());
+        Assertions.assertEquals(0, outbox.getFailedReads());
+    }
+
+    @Test
+    public void journalRecoveryTest(@TempDir Path dir) throws Exception {
+        // 每段只能放下 3 条 20 字节的记录，覆盖分段与删除旧段
+        int segmentSize = 80;
+        OutboxJournal journal = OutboxJournal.open(dir, segmentSize);
+        for (int i = 0; i < 10; i++) {
+            journal.append(record(i));
+        }
+        List<String> firstRead = new ArrayList<>();
+        long position = journal.read(journal.getCheckpoint(), 4, payload -> firstRead.add(text(payload)));
+        Assertions.assertEquals(Arrays.asList("record-0000000000000", "record-0000000000001",
+                "record-0000000000002", "record-0000000000003"), firstRead);
+        journal.checkpoint(position);
+        journal.close();
+        Assertions.assertEquals(3, segments(dir));
+
+        // 重启：从 checkpoint 继续读，并接着原来的末尾写
+        OutboxJournal reopened = OutboxJournal.open(dir, segmentSize);
+        reopened.append(record(10));
+        List<String> secondRead = new ArrayList<>();
+        long end = reopened.read(reopened.getCheckpoint(), 100, payload -> secondRead.add(text(payload)));
+        Assertions.assertEquals(7, secondRead.size());
+        Assertions.assertEquals("record-0000000000004", secondRead.get(0));
+        Assertions.assertEquals("record-0000000000010", secondRead.get(6));
+        Assertions.assertEquals(reopened.getPublished(), end);
+        reopened.close();
+    }
+
+    @Test
+    public void tornRecordTest(@TempDir Path dir) throws Exception {
+        int segmentSize = 200;
+        OutboxJournal journal = OutboxJournal.open(dir, segmentSize);
+        journal.append(record(0));
+        journal.close();
+        // 模拟一条 40 字节的记录只写了 payload 就崩溃：length 仍为 0，payload 中间的字节看起来像一个合法的 length
+        try (FileChannel channel = FileChannel.open(dir.resolve(String.format("journal-%019d.seg", 0)), StandardOpenOption.WRITE)) {
+            ByteBuffer torn = ByteBuffer.allocate(40);
+            torn.putInt(20, 8);
+            channel.write(torn, 24 + 4);
+        }
+
+        // 重启后写入一条更短的记录，再次重启不能把残留的字节读成记录
+        OutboxJournal reopened = OutboxJournal.open(dir, segmentSize);
+        reopened.append(record(1));
+        reopened.close();
+        OutboxJournal recovered = OutboxJournal.open(dir, segmentSize);
+        List<String> read = new ArrayList<>();
+        recovered.read(recovered.getCheckpoint(), 100, payload -> read.add(text(payload)));
+        Assertions.assertEquals(Arrays.asList("record-0000000000000", "record-0000000000001"), read);
+        Assertions.assertEquals(OutboxJournal.position(0, 48), recovered.getPublished());
+        recovered.close();
+    }
+
+    private void start(Path dir, GameOutboxListener listener) {
+        System.setProperty("game.outbox.enabled", "true");
+        System.setProperty("game.outbox.directory", dir.toString());
+        System.setProperty("game.outbox.poll-interval-ms", "5");
+        System.setProperty("game.outbox.retry-backoff-ms", "10");
+        this.applicationContext = new AnnotationConfigApplicationContext();
+        this.applicationContext.register(EmbeddedGameConfig.class, GameOutbox.class);
+        this.applicationContext.registerBean(GameOutboxListener.class, () -> listener);
+        this.applicationContext.refresh();
+    }
+
+    private void awaitDrained() throws InterruptedException {
+        GameOutbox outbox = this.applicationContext.getBean(GameOutbox.class);
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (!outbox.isDrained() && System.nanoTime() < deadline) {
+            TimeUnit.MILLISECONDS.sleep(5);
+        }
+        Assertions.assertTrue(outbox.isDrained());
+    }
+
+    private static byte[] record(int i) {
+        return String.format("record-%013d", i).getBytes(StandardCharsets.UTF_8);
+    }
+
+    private static String text(ByteBuffer payload) {
+        byte[] bytes = new byte[payload.remaining()];
+        payload.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static long segments(Path dir) throws Exception {
+        try (Stream<Path> files = Files.list(dir)) {
+            return files.filter(file -> file.getFileName().toString().endsWith(".seg")).count();
+        }
+    }
+
+    @AfterEach
+    public void after() {
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+        System.clearProperty("game.outbox.enabled");
+        System.clearProperty("game.outbox.directory");
+        System.clearProperty("game.outbox.poll-interval-ms");
+        System.clearProperty("game.outbox.retry-backoff-ms");
+    }
+
+}
@@ -0,0 +1,197 @@
+package com.deemo;
+
+import com.deemo.catalog.GameCatalog;
+import com.deemo.dao.GameDao;
+import com.deemo.dao.InsertMode;
+import com.deemo.entity.Game;
+import com.deemo.event.outbox.GameOutbox;
+import com.deemo.event.outbox.GameOutboxListener;
+import com.deemo.service.IGameService;
+import com.mysql.cj.conf.PropertyKey;
+import com.mysql.cj.conf.RuntimeProperty;
+import com.mysql.cj.jdbc.JdbcConnection;
+import com.mysql.cj.jdbc.JdbcPropertySet;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.nio.file.Path;
+import java.sql.Connection;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+public class GameUpsertTest {
+
+    @Test
+    public void retryInsertTest() {
+        JdbcTemplate jdbcTemplate = upsertTable("retry");
+        GameDao gameDao = new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, true);
+
+        Assertions.assertTrue(gameDao.insert("retry", 10.0));
+        // 超时重试：值完全相同，不算新插入
+        Assertions.assertFalse(gameDao.insert("retry", 10.0));
+        // 同名新价格：覆盖
+        Assertions.assertFalse(gameDao.insert("retry", 12.5));
+
+        Assertions.assertEquals(1, count(jdbcTemplate));
+        Assertions.assertEquals(12.5, jdbcTemplate.queryForObject("SELECT `price` FROM `game` WHERE `name` = ?", Double.class, "retry"));
+        Assertions.assertEquals("retry ￥12.5", jdbcTemplate.queryForObject("SELECT `description` FROM `game` WHERE `name` = ?", String.class, "retry"));
+    }
+
+    @Test
+    public void retryBatchTest() {
+        for (InsertMode mode : InsertMode.values()) {
+            JdbcTemplate jdbcTemplate = upsertTable("batch-" + mode);
+            GameDao gameDao = new GameDao(jdbcTemplate, 50, mode, 7, 1024 * 1024, false, true);
+
+            List<Game> games = GameBatchTest.games("upsert", 100);
+            assertAll(true, gameDao.insertBatch(games), mode);
+            // 整批重试，其中一半改价：没有新插入的行
+            List<Game> retried = new ArrayList<>(games);
+            for (int i = 0; i < 50; i++) {
+                retried.set(i, new Game(games.get(i).getName(), 500.0));
+            }
+            assertAll(false, gameDao.insertBatch(retried), mode);
+
+            Assertions.assertEquals(100, count(jdbcTemplate), mode.name());
+            Assertions.assertEquals(50, jdbcTemplate.queryForObject(
+                    "SELECT COUNT(*) FROM `game` WHERE `price` = 500.0", Integer.class), mode.name());
+        }
+    }
+
+    @Test
+    public void duplicateWithoutUpsertTest() {
+        JdbcTemplate jdbcTemplate = upsertTable("plain");
+        GameDao gameDao = new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false);
+
+        Assertions.assertTrue(gameDao.insert("plain", 1.0));
+        Assertions.assertThrows(RuntimeException.class, () -> gameDao.insert("plain", 1.0));
+    }
+
+    @Test
+    public void deferredUpsertTest() {
+        JdbcTemplate jdbcTemplate = upsertTable("deferred");
+        Assertions.assertThrows(IllegalArgumentException.class,
+                () -> new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, true, true));
+    }
+
+    /**
+     * Connector/J 默认的 found rows 语义下，值未变化的重试也返回 1，与新插入无法区分，必须在启动时拒绝
+     */
+    @Test
+    public void foundRowsTest() {
+        JdbcTemplate foundRows = new JdbcTemplate(new SingleConnectionDataSource(mysqlConnection(false), true));
+        IllegalStateException e = Assertions.assertThrows(IllegalStateException.class,
+                () -> new GameDao(foundRows, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, true));
+        Assertions.assertTrue(e.getMessage().contains("useAffectedRows=true"));
+        // 不开启 upsert 时不检查
+        new GameDao(foundRows, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false);
+
+        JdbcTemplate affectedRows = new JdbcTemplate(new SingleConnectionDataSource(mysqlConnection(true), true));
+        Assertions.assertTrue(new GameDao(affectedRows, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, true).isUpsert());
+    }
+
+    /**
+     * 更新已有行不发布新增事件：目录中不会出现重复的行，发件箱也只转发新插入的行
+     */
+    @Test
+    public void upsertEventTest(@TempDir Path dir) throws Exception {
+        System.setProperty("game.insert.upsert", "true");
+        System.setProperty("game.catalog.enabled", "true");
+        System.setProperty("game.outbox.enabled", "true");
+        System.setProperty("game.outbox.directory", dir.toString());
+        System.setProperty("game.outbox.poll-interval-ms", "5");
+        List<String> received = Collections.synchronizedList(new ArrayList<>());
+        try (AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext()) {
+            applicationContext.register(EmbeddedGameConfig.class, GameCatalog.class, GameOutbox.class);
+            applicationContext.registerBean(GameOutboxListener.class,
+                    () -> events -> events.forEach(event -> event.getGames().forEach(game -> received.add(game.getName()))));
+            applicationContext.refresh();
+            addUniqueName(applicationContext.getBean(JdbcTemplate.class));
+            IGameService gameService = applicationContext.getBean(IGameService.class);
+
+            Assertions.assertTrue(gameService.insert("upsert", 1.0));
+            Assertions.assertFalse(gameService.insert("upsert", 2.0));
+            Assertions.assertArrayEquals(new boolean[]{false, true},
+                    gameService.insertBatch(Arrays.asList(new Game("upsert", 3.0), new Game("new", 4.0))));
+
+            GameCatalog gameCatalog = applicationContext.getBean(GameCatalog.class);
+            Assertions.assertEquals(2, gameCatalog.size());
+            GameOutbox outbox = applicationContext.getBean(GameOutbox.class);
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+            while (!outbox.isDrained() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(5);
+            }
+            Assertions.assertEquals(2, outbox.getAppended());
+            Assertions.assertEquals(Arrays.asList("upsert", "new"), received);
+        } finally {
+            System.clearProperty("game.insert.upsert");
+            System.clearProperty("game.catalog.enabled");
+            System.clearProperty("game.outbox.enabled");
+            System.clearProperty("game.outbox.directory");
+            System.clearProperty("game.outbox.poll-interval-ms");
+        }
+    }
+
+    /**
+     * upsert 依赖 name 上的唯一索引
+     */
+    private static JdbcTemplate upsertTable(String name) {
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(EmbeddedGameConfig.newDatabase(name));
+        addUniqueName(jdbcTemplate);
+        return jdbcTemplate;
+    }
+
+    private static void addUniqueName(JdbcTemplate jdbcTemplate) {
+        jdbcTemplate.execute("ALTER TABLE `game` ADD CONSTRAINT `uk_game_name` UNIQUE (`name`)");
+    }
+
+    /**
+     * 只实现检查 useAffectedRows 用到的方法的 MySQL 连接
+     */
+    private static Connection mysqlConnection(boolean useAffectedRows) {
+        ClassLoader classLoader = GameUpsertTest.class.getClassLoader();
+        RuntimeProperty<?> property = (RuntimeProperty<?>) Proxy.newProxyInstance(classLoader, new Class<?>[]{RuntimeProperty.class},
+                (proxy, method, args) -> method.getName().equals("getValue") ? useAffectedRows : unsupported(method));
+        JdbcPropertySet propertySet = (JdbcPropertySet) Proxy.newProxyInstance(classLoader, new Class<?>[]{JdbcPropertySet.class},
+                (proxy, method, args) -> method.getName().equals("getBooleanProperty") && args[0] == PropertyKey.useAffectedRows
+                        ? property : unsupported(method));
+        return (Connection) Proxy.newProxyInstance(classLoader, new Class<?>[]{JdbcConnection.class}, (proxy, method, args) -> {
+            switch (method.getName()) {
+                case "isWrapperFor":
+                    return ((Class<?>) args[0]).isInstance(proxy);
+                case "unwrap":
+                    return proxy;
+                case "getPropertySet":
+                    return propertySet;
+                case "close":
+                    return null;
+                default:
+                    return unsupported(method);
+            }
+        });
+    }
+
+    private static Object unsupported(Method method) {
+        throw new UnsupportedOperationException(method.getName());
+    }
+
+    private static void assertAll(boolean expected, boolean[] results, InsertMode mode) {
+        for (boolean result : results) {
+            Assertions.assertEquals(expected, result, mode.name());
+        }
+    }
+
+    private static int count(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class);
+    }
+
+}
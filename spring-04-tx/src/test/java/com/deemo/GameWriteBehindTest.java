@@ -0,0 +1,103 @@
+package com.deemo;
+
+import com.deemo.dao.GameDao;
+import com.deemo.dao.InsertMode;
+import com.deemo.entity.Game;
+import com.deemo.service.support.GameWriteBehindBuffer;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.RejectedExecutionException;
+
+public class GameWriteBehindTest {
+    private DataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private GameDao gameDao;
+
+    @BeforeEach
+    public void before() {
+        this.dataSource = EmbeddedGameConfig.newDatabase("write-behind");
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.gameDao = new GameDao(jdbcTemplate, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false);
+    }
+
+    @Test
+    public void flushTest() throws Exception {
+        GameWriteBehindBuffer buffer = buffer(10_000, 200, 20);
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (Game game : GameBatchTest.games("async", 1_000)) {
+            futures.add(buffer.submit(game));
+        }
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture[0])).get();
+        for (CompletableFuture<Boolean> future : futures) {
+            Assertions.assertTrue(future.get());
+        }
+        Assertions.assertEquals(1_000, count());
+        buffer.destroy();
+    }
+
+    @Test
+    public void backpressureAndCloseTest() throws Exception {
+        // 攒批时间足够长，保证数据停留在队列里
+        GameWriteBehindBuffer buffer = buffer(2, 1_000, 60_000);
+
+        List<CompletableFuture<Boolean>> futures = new ArrayList<>();
+        for (Game game : GameBatchTest.games("full", 10)) {
+            futures.add(buffer.submit(game));
+        }
+        // 后台线程手里最多一条，队列两条，其余都应被拒绝
+        int rejected = 0;
+        for (CompletableFuture<Boolean> future : futures) {
+            if (future.isCompletedExceptionally()) {
+                rejected++;
+                ExecutionException e = Assertions.assertThrows(ExecutionException.class, future::get);
+                Assertions.assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        }
+        Assertions.assertTrue(rejected >= 7, "rejected: " + rejected);
+
+        // 关闭时刷完剩余数据
+        buffer.destroy();
+        for (CompletableFuture<Boolean> future : futures) {
+            if (!future.isCompletedExceptionally()) {
+                Assertions.assertTrue(future.get());
+            }
+        }
+        Assertions.assertEquals(10 - rejected, count());
+        Assertions.assertTrue(buffer.submit(new Game("late", 1.0)).isCompletedExceptionally());
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        GameWriteBehindBuffer buffer = buffer(100, 100, 20);
+        CompletableFuture<Boolean> ok = buffer.submit(new Game("ok", 1.0));
+        // name 非空约束，整批回滚
+        CompletableFuture<Boolean> bad = buffer.submit(new Game(null, 1.0));
+        buffer.destroy();
+
+        Assertions.assertThrows(ExecutionException.class, bad::get);
+        Assertions.assertTrue(ok.isDone());
+        Assertions.assertEquals(ok.isCompletedExceptionally() ? 0 : 1, count());
+    }
+
+    private GameWriteBehindBuffer buffer(int capacity, int maxBatch, long flushIntervalMillis) {
+        GameWriteBehindBuffer buffer = new GameWriteBehindBuffer(gameDao, new DataSourceTransactionManager(dataSource),
+                event -> { }, true, capacity, maxBatch, flushIntervalMillis, 0);
+        buffer.afterPropertiesSet();
+        return buffer;
+    }
+
+    private int count() {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class);
+    }
+
+}
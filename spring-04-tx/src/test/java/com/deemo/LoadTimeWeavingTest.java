@@ -0,0 +1,168 @@
+package com.deemo;
+
+import com.deemo.aspect.ConcurrencyLimitAspect;
+import com.deemo.aspect.LogAspect;
+import com.deemo.aspect.TimedAspect;
+import com.deemo.config.WeavingModeConfig;
+import com.deemo.datasource.TransactionMetrics;
+import com.deemo.limit.AdaptiveLimiter;
+import com.deemo.limit.ConcurrencyLimit;
+import com.deemo.metrics.MethodMetrics;
+import com.deemo.metrics.Timed;
+import com.deemo.service.IGameService;
+import org.aspectj.lang.Aspects;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.aop.support.AopUtils;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionSynchronizationManager;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 启动 {@link App} 本身，数据源通过系统属性换成 H2。需要 -javaagent，用 mvn test -P ltw 运行
+ */
+@EnabledIfSystemProperty(named = "spring.profiles.active", matches = WeavingModeConfig.PROFILE)
+public class LoadTimeWeavingTest {
+    private static final String INSERT = "GameService#insert(String,double)";
+    private static final String INSERT_WITH_ERROR = "GameService#insert(String,double,boolean)";
+
+    private AnnotationConfigApplicationContext applicationContext;
+
+    @BeforeEach
+    public void before() {
+        // 系统属性优先于 jdbc.properties
+        System.setProperty("jdbc.driver-class", "org.h2.Driver");
+        System.setProperty("jdbc.url", "jdbc:h2:mem:ltw-" + System.nanoTime() + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+        System.setProperty("jdbc.username", "sa");
+        System.setProperty("jdbc.password", "");
+        System.setProperty("jdbc.pool.type", "HIKARI");
+        System.setProperty("jdbc.pool.min-size", "1");
+        System.setProperty("jdbc.pool.max-size", "2");
+        this.applicationContext = new AnnotationConfigApplicationContext();
+        this.applicationContext.register(App.class);
+        this.applicationContext.registerBean(SelfInvocation.class);
+        this.applicationContext.refresh();
+        EmbeddedGameConfig.createSchema(this.applicationContext.getBean(DataSource.class));
+        // 织入的切面是 JVM 内的单例，清掉前面的测试留下的统计
+        this.applicationContext.getBean(MethodMetrics.class).reset();
+        this.applicationContext.getBean(ConcurrencyLimitAspect.class).reset();
+    }
+
+    @Test
+    public void wovenWithoutProxyTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        JdbcTemplate jdbcTemplate = this.applicationContext.getBean(JdbcTemplate.class);
+        Assertions.assertFalse(AopUtils.isAopProxy(gameService));
+        Assertions.assertSame(Aspects.aspectOf(TimedAspect.class), this.applicationContext.getBean(TimedAspect.class));
+        Assertions.assertSame(Aspects.aspectOf(ConcurrencyLimitAspect.class), this.applicationContext.getBean(ConcurrencyLimitAspect.class));
+        Assertions.assertSame(Aspects.aspectOf(LogAspect.class), this.applicationContext.getBean(LogAspect.class));
+
+        Assertions.assertTrue(gameService.insert("woven", 1.0));
+        // 没有代理，事务仍然生效
+        Assertions.assertThrows(ArithmeticException.class, () -> gameService.insert("rollback", 2.0, true));
+        Assertions.assertEquals(1, jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class).intValue());
+
+        // TransactionMetricsAspect 织入在事务内层，回滚前已记下异常类型（顺序见 aop.xml）
+        TransactionMetrics.Snapshot insert = this.applicationContext.getBean(TransactionMetrics.class).snapshot().stream()
+                .filter(snapshot -> snapshot.getName().equals("com.deemo.service.impl.GameService.insert")).findFirst()
+                .orElseThrow(() -> new AssertionError("no statistics for insert"));
+        Assertions.assertEquals(1, insert.getCommits());
+        Assertions.assertEquals(1L, insert.getRollbacks().get(ArithmeticException.class.getName()));
+
+        // @Timed、@ConcurrencyLimit 同样织入；自调用的 insert(game, price, false) 也被计时，共 3 次
+        MethodMetrics.Snapshot timed = this.applicationContext.getBean(MethodMetrics.class).snapshot().stream()
+                .filter(snapshot -> snapshot.getName().equals("GameService#insert")).findFirst()
+                .orElseThrow(() -> new AssertionError("no timing for insert"));
+        Assertions.assertEquals(3, timed.getCalls());
+        Assertions.assertEquals(1, timed.getErrors());
+        // 两个重载各一个限流器，自调用的内层只获取一次内层的额度
+        ConcurrencyLimitAspect limitAspect = this.applicationContext.getBean(ConcurrencyLimitAspect.class);
+        Assertions.assertEquals(1, limitAspect.limiterFor(INSERT).getAccepted());
+        Assertions.assertEquals(2, limitAspect.limiterFor(INSERT_WITH_ERROR).getAccepted());
+    }
+
+    /**
+     * 额度退到 1 时，insert(game, price) 自调用 insert(game, price, false) 仍然能通过
+     */
+    @Test
+    public void selfInvocationLimitTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        Assertions.assertTrue(gameService.insert("first", 1.0));
+        ConcurrencyLimitAspect limitAspect = this.applicationContext.getBean(ConcurrencyLimitAspect.class);
+        for (String name : new String[]{INSERT, INSERT_WITH_ERROR}) {
+            AdaptiveLimiter limiter = limitAspect.limiterFor(name);
+            while (limiter.getLimit() > 1) {
+                limiter.release(TimeUnit.SECONDS.toNanos(10), limiter.acquire());
+            }
+        }
+
+        Assertions.assertTrue(gameService.insert("limited", 2.0));
+        Assertions.assertEquals(0, limitAspect.limiterFor(INSERT).getRejected());
+        Assertions.assertEquals(0, limitAspect.limiterFor(INSERT_WITH_ERROR).getRejected());
+    }
+
+    /**
+     * 织入模式下静态方法也会被拦截，此时没有 target
+     */
+    @Test
+    public void staticMethodTest() {
+        Assertions.assertEquals(4, StaticMethods.twice(2));
+        MethodMetrics.Snapshot twice = this.applicationContext.getBean(MethodMetrics.class).snapshot().stream()
+                .filter(snapshot -> snapshot.getName().equals("StaticMethods#twice")).findFirst()
+                .orElseThrow(() -> new AssertionError("no timing for twice"));
+        Assertions.assertEquals(1, twice.getCalls());
+
+        Assertions.assertEquals(3, StaticMethods.limited(3));
+        Assertions.assertEquals(1, this.applicationContext.getBean(ConcurrencyLimitAspect.class)
+                .limiterFor("StaticMethods#limited").getAccepted());
+    }
+
+    @Test
+    public void selfInvocationTest() {
+        // 代理模式下自调用绕过事务，返回 false
+        Assertions.assertTrue(this.applicationContext.getBean(SelfInvocation.class).outer());
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+        System.clearProperty("jdbc.driver-class");
+        System.clearProperty("jdbc.url");
+        System.clearProperty("jdbc.username");
+        System.clearProperty("jdbc.password");
+        System.clearProperty("jdbc.pool.type");
+        System.clearProperty("jdbc.pool.min-size");
+        System.clearProperty("jdbc.pool.max-size");
+    }
+
+    static class StaticMethods {
+        @Timed
+        public static int twice(int value) {
+            return value * 2;
+        }
+
+        @ConcurrencyLimit
+        public static int limited(int value) {
+            return value;
+        }
+    }
+
+    static class SelfInvocation {
+        public boolean outer() {
+            return this.inner();
+        }
+
+        @Transactional
+        public boolean inner() {
+            return TransactionSynchronizationManager.isActualTransactionActive();
+        }
+    }
+
+}
@@ -0,0 +1,124 @@
+package com.deemo;
+
+import com.deemo.datasource.InstrumentedDataSource;
+import com.deemo.datasource.PoolProperties;
+import com.deemo.datasource.PoolType;
+import com.deemo.metrics.LatencyHistogram;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+public class PoolLoadTest {
+    private static final int ITERATIONS = 100;
+
+    /**
+     * 每次获取都计入等待时间直方图，归还后没有泄漏；耗时分布见 spring-06-benchmark 的 PoolAcquireBenchmark
+     */
+    @Test
+    public void acquireMetricsTest() throws Exception {
+        for (PoolType type : PoolType.values()) {
+            for (int poolSize : new int[]{2, 8}) {
+                for (int threads : new int[]{2, 8, 32}) {
+                    try (InstrumentedDataSource dataSource = InstrumentedDataSource.create(properties(type, poolSize, 30_000))) {
+                        run(dataSource, threads);
+                        LatencyHistogram.Snapshot acquire = dataSource.getMetrics().getAcquireTime();
+                        Assertions.assertEquals(threads * ITERATIONS, acquire.getCount());
+                        Assertions.assertEquals(threads * ITERATIONS, dataSource.getMetrics().getLeaseTime().getCount());
+                        Assertions.assertEquals(0, dataSource.getMetrics().getActive());
+                        Assertions.assertEquals(0, dataSource.getMetrics().getTimeouts());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void timeoutTest() throws Exception {
+        for (PoolType type : PoolType.values()) {
+            try (InstrumentedDataSource dataSource = InstrumentedDataSource.create(properties(type, 1, 1_000));
+                 Connection held = dataSource.getConnection()) {
+                Assertions.assertEquals(1, dataSource.getMetrics().getActive());
+                Assertions.assertThrows(SQLException.class, dataSource::getConnection);
+                Assertions.assertEquals(1, dataSource.getMetrics().getTimeouts(), type.name());
+            }
+        }
+    }
+
+    /**
+     * 存活时长记录的是物理连接：借出归还不计入，连接池关闭后每个物理连接都有一条记录
+     */
+    @Test
+    public void lifetimeTest() throws Exception {
+        for (PoolType type : PoolType.values()) {
+            InstrumentedDataSource dataSource = InstrumentedDataSource.create(properties(type, 2, 30_000));
+            for (int i = 0; i < 10; i++) {
+                try (Connection connection = dataSource.getConnection();
+                     Statement statement = connection.createStatement()) {
+                    statement.execute("SELECT 1");
+                }
+            }
+            long opened = dataSource.getMetrics().getOpened();
+            Assertions.assertTrue(opened >= 1 && opened <= 2, type.name());
+            Assertions.assertEquals(10, dataSource.getMetrics().getLeaseTime().getCount(), type.name());
+            Assertions.assertEquals(0, dataSource.getMetrics().getLifetime().getCount(), type.name());
+
+            dataSource.close();
+            // c3p0 在后台线程上销毁连接
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            while (dataSource.getMetrics().getLifetime().getCount() < dataSource.getMetrics().getOpened() && System.nanoTime() < deadline) {
+                TimeUnit.MILLISECONDS.sleep(10);
+            }
+            Assertions.assertEquals(dataSource.getMetrics().getOpened(), dataSource.getMetrics().getLifetime().getCount(), type.name());
+        }
+    }
+
+    /**
+     * 每个线程循环：获取连接 -> 执行一条查询并持有约 1ms -> 归还
+     */
+    private void run(InstrumentedDataSource dataSource, int threads) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> futures = new ArrayList<>();
+            for (int t = 0; t < threads; t++) {
+                futures.add(executor.submit(() -> {
+                    for (int i = 0; i < ITERATIONS; i++) {
+                        try (Connection connection = dataSource.getConnection();
+                             Statement statement = connection.createStatement()) {
+                            statement.execute("SELECT 1");
+                            TimeUnit.MILLISECONDS.sleep(1);
+                        }
+                    }
+                    return null;
+                }));
+            }
+            for (Future<?> future : futures) {
+                future.get();
+            }
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    private PoolProperties properties(PoolType type, int poolSize, long acquireTimeoutMillis) {
+        PoolProperties properties = new PoolProperties();
+        properties.setType(type);
+        properties.setDriverClass("org.h2.Driver");
+        properties.setUrl("jdbc:h2:mem:pool-" + type + "-" + System.nanoTime() + ";DB_CLOSE_DELAY=-1");
+        properties.setUsername("sa");
+        properties.setPassword("");
+        properties.setMinSize(poolSize);
+        properties.setMaxSize(poolSize);
+        properties.setAcquireTimeoutMillis(acquireTimeoutMillis);
+        return properties;
+    }
+
+}
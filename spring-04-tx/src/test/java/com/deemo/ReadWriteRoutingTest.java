@@ -0,0 +1,65 @@
+package com.deemo;
+
+import com.deemo.datasource.ReadWriteRoutingDataSource;
+import com.deemo.entity.Game;
+import com.deemo.service.IGameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.List;
+
+public class ReadWriteRoutingTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private ReadWriteRoutingDataSource dataSource;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(ReadWriteConfig.class);
+        this.dataSource = this.applicationContext.getBean(ReadWriteRoutingDataSource.class);
+    }
+
+    @Test
+    public void routingTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        JdbcTemplate primary = new JdbcTemplate(dataSource.getPrimary());
+        JdbcTemplate replica = new JdbcTemplate(dataSource.getReplica());
+
+        // 写事务只落到主库
+        Assertions.assertTrue(gameService.insert("primary-only", 10.0));
+        Assertions.assertEquals(1, count(primary));
+        Assertions.assertEquals(0, count(replica));
+
+        // 只读事务查询从库：主库的数据不可见，从库的数据可见
+        replica.update("INSERT INTO `game` (`name`, `price`, `description`) VALUES (?, ?, ?)", "replica-only", 20.0, "replica");
+        List<Game> games = gameService.findByPriceBetween(0, 100);
+        Assertions.assertEquals(1, games.size());
+        Assertions.assertEquals("replica-only", games.get(0).getName());
+    }
+
+    private int count(JdbcTemplate jdbcTemplate) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM `game`", Integer.class);
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+    /**
+     * 两个独立的 H2 内存库分别作为主库与从库
+     */
+    static class ReadWriteConfig extends EmbeddedGameConfig {
+        @Bean
+        @Override
+        public DataSource dataSource() {
+            return new ReadWriteRoutingDataSource(newDatabase("primary"), newDatabase("replica"));
+        }
+    }
+
+}
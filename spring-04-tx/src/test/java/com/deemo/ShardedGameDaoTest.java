@@ -0,0 +1,135 @@
+package com.deemo;
+
+import com.deemo.dao.InsertMode;
+import com.deemo.dao.ShardedGameDao;
+import com.deemo.datasource.StatementMetrics;
+import com.deemo.datasource.TimingDataSource;
+import com.deemo.entity.Game;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+
+public class ShardedGameDaoTest {
+    @Test
+    public void shardingTest() throws Exception {
+        try (ShardedGameDao gameDao = new ShardedGameDao(shards(4), 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false)) {
+            List<Game> games = GameBatchTest.games("shard", 1_000);
+            ShardedGameDao.BatchResult batch = gameDao.insertBatch(games);
+            Assertions.assertTrue(batch.isSuccess());
+            for (boolean result : batch.getResults()) {
+                Assertions.assertTrue(result);
+            }
+
+            // 每一行都只落在哈希对应的分片上
+            int total = 0;
+            for (int i = 0; i < gameDao.getShardCount(); i++) {
+                JdbcTemplate jdbcTemplate = new JdbcTemplate(gameDao.getShardDataSource(i));
+                List<String> names = jdbcTemplate.queryForList("SELECT `name` FROM `game`", String.class);
+                Assertions.assertFalse(names.isEmpty(), "shard " + i + " is empty");
+                for (String name : names) {
+                    Assertions.assertEquals(i, gameDao.shardOf(name));
+                }
+                total += names.size();
+            }
+            Assertions.assertEquals(1_000, total);
+
+            Assertions.assertTrue(gameDao.insert("single", 5.5));
+            Assertions.assertEquals(1, new JdbcTemplate(gameDao.getShardDataSource(gameDao.shardOf("single")))
+                    .queryForObject("SELECT COUNT(*) FROM `game` WHERE `name` = 'single'", Integer.class));
+
+            // 跨分片查询合并后仍按 price 有序
+            List<Game> found = gameDao.findByPriceBetween(10, 20);
+            Assertions.assertEquals(100, found.size());
+            for (int i = 1; i < found.size(); i++) {
+                Assertions.assertTrue(found.get(i - 1).getPrice() <= found.get(i).getPrice());
+            }
+        }
+    }
+
+    /**
+     * price 相同的行按分片下标、再按分片内的 id 排列，多次查询结果一致
+     */
+    @Test
+    public void tieOrderTest() throws Exception {
+        try (ShardedGameDao gameDao = new ShardedGameDao(shards(4), 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false)) {
+            for (int i = 0; i < 40; i++) {
+                Assertions.assertTrue(gameDao.insert("tie-" + i, 9.99));
+            }
+            List<Game> found = gameDao.findByPriceBetween(9.99, 9.99);
+            Assertions.assertEquals(40, found.size());
+            for (int i = 1; i < found.size(); i++) {
+                Game previous = found.get(i - 1);
+                Game current = found.get(i);
+                int previousShard = gameDao.shardOf(previous.getName());
+                int currentShard = gameDao.shardOf(current.getName());
+                Assertions.assertTrue(previousShard < currentShard
+                        || previousShard == currentShard && previous.getId() < current.getId());
+            }
+            Assertions.assertEquals(found, gameDao.findByPriceBetween(9.99, 9.99));
+        }
+    }
+
+    @Test
+    public void multiValuesLimitTest() throws Exception {
+        StatementMetrics metrics = new StatementMetrics();
+        List<DataSource> shards = new ArrayList<>();
+        for (DataSource shard : shards(4)) {
+            shards.add(new TimingDataSource(shard, metrics));
+        }
+        try (ShardedGameDao gameDao = new ShardedGameDao(shards, 500, InsertMode.MULTI_VALUES, 7, 1024 * 1024, false, false)) {
+            List<Game> games = GameBatchTest.games("limit", 100);
+            Assertions.assertTrue(gameDao.insertBatch(games).isSuccess());
+
+            // 每个分片按配置的每条 7 行拆分语句
+            int[] rows = new int[gameDao.getShardCount()];
+            for (Game game : games) {
+                rows[gameDao.shardOf(game.getName())]++;
+            }
+            long expected = 0;
+            for (int shardRows : rows) {
+                expected += (shardRows + 6) / 7;
+            }
+            long statements = 0;
+            for (StatementMetrics.Snapshot snapshot : metrics.snapshot()) {
+                if (snapshot.getSql().startsWith("INSERT")) {
+                    statements += snapshot.getCount();
+                }
+            }
+            Assertions.assertEquals(expected, statements);
+        }
+    }
+
+    @Test
+    public void failedShardTest() throws Exception {
+        try (ShardedGameDao gameDao = new ShardedGameDao(shards(4), 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false)) {
+            new JdbcTemplate(gameDao.getShardDataSource(2)).execute("DROP TABLE `game`");
+            List<Game> games = GameBatchTest.games("broken", 200);
+            ShardedGameDao.BatchResult batch = gameDao.insertBatch(games);
+
+            // 失败的分片连同它的行一起返回，其他分片正常提交
+            Assertions.assertFalse(batch.isSuccess());
+            Assertions.assertEquals(1, batch.getFailures().size());
+            ShardedGameDao.ShardFailure failure = batch.getFailures().get(0);
+            Assertions.assertEquals(2, failure.getShard());
+            Assertions.assertNotNull(failure.getFailure());
+            for (int i = 0; i < games.size(); i++) {
+                boolean failed = gameDao.shardOf(games.get(i).getName()) == 2;
+                Assertions.assertEquals(failed, failure.getPositions().contains(i));
+                Assertions.assertEquals(!failed, batch.getResults()[i]);
+            }
+        }
+    }
+
+    private List<DataSource> shards(int count) {
+        List<DataSource> shards = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            shards.add(EmbeddedGameConfig.newDatabase("shard-" + i));
+        }
+        return shards;
+    }
+
+}
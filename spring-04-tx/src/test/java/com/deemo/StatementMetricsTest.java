@@ -0,0 +1,107 @@
+package com.deemo;
+
+import com.deemo.dao.GameDao;
+import com.deemo.dao.InsertMode;
+import com.deemo.datasource.StatementMetrics;
+import com.deemo.datasource.TimingDataSource;
+import org.h2.jdbc.JdbcPreparedStatement;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.Test;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.Statement;
+import java.util.List;
+
+public class StatementMetricsTest {
+    private static final String INSERT_KEY = "INSERT INTO `game` (`name`, `price`, `description`) VALUES (?, ?, ?)";
+
+    @Test
+    public void normalizeTest() {
+        StatementMetrics metrics = new StatementMetrics();
+        Assertions.assertEquals("SELECT * FROM `game2` WHERE `name` = ? AND `price` > ?",
+                metrics.normalize("SELECT  *\n FROM `game2`   WHERE `name` = 'it''s' AND `price` > 12.5 "));
+        Assertions.assertEquals(INSERT_KEY + ", ...",
+                metrics.normalize("INSERT INTO `game` (`name`, `price`, `description`) VALUES (?, ?, ?),(?, ?, ?),(?, ?, ?)"));
+        // 上千行的多行语句同样折叠，且不会栈溢出
+        StringBuilder rows = new StringBuilder(INSERT_KEY);
+        for (int i = 1; i < 1000; i++) {
+            rows.append(", (?, ?, ?)");
+        }
+        Assertions.assertEquals(INSERT_KEY + ", ... ON DUPLICATE KEY UPDATE `price` = VALUES(`price`)",
+                metrics.normalize(rows + " ON DUPLICATE KEY UPDATE `price` = VALUES(`price`)"));
+        Assertions.assertEquals("SELECT * FROM `game` WHERE `id` IN (?, ?) AND (`price` > ?)",
+                metrics.normalize("SELECT * FROM `game` WHERE `id` IN (1, 2) AND (`price` > 3)"));
+    }
+
+    @Test
+    public void timingTest() {
+        StatementMetrics metrics = new StatementMetrics();
+        JdbcTemplate jdbcTemplate = new JdbcTemplate(new TimingDataSource(EmbeddedGameConfig.newDatabase("timing"), metrics));
+        GameDao gameDao = new GameDao(jdbcTemplate, 100, InsertMode.MULTI_VALUES, 7, 1024 * 1024, false, false);
+
+        for (int i = 0; i < 10; i++) {
+            gameDao.insert("timing-" + i, i);
+        }
+        // 20 行按每条 7 行拆成 7/7/6 三条语句，归为同一个 key
+        gameDao.insertBatch(GameBatchTest.games("multi", 20));
+        gameDao.findByPriceBetween(0, 5);
+        Assertions.assertThrows(RuntimeException.class, () -> gameDao.insert(null, 1.0));
+
+        List<StatementMetrics.Snapshot> snapshots = metrics.snapshot();
+        StatementMetrics.Snapshot insert = find(snapshots, INSERT_KEY);
+        Assertions.assertEquals(11, insert.getCount());
+        Assertions.assertEquals(1, insert.getErrors());
+        Assertions.assertEquals(3, find(snapshots, INSERT_KEY + ", ...").getCount());
+        Assertions.assertEquals(3, metrics.getStatements().length);
+    }
+
+    /**
+     * reset 之后，已经 prepare 的语句记到新的计数器上，而不是被丢弃的旧计数器
+     */
+    @Test
+    public void resetTest() throws Exception {
+        StatementMetrics metrics = new StatementMetrics();
+        TimingDataSource dataSource = new TimingDataSource(EmbeddedGameConfig.newDatabase("timing-reset"), metrics);
+        String sql = "SELECT COUNT(*) FROM `game` WHERE `price` > ?";
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setDouble(1, 1.0);
+            statement.executeQuery().close();
+            Assertions.assertEquals(1, find(metrics.snapshot(), sql).getCount());
+
+            metrics.reset();
+            Assertions.assertTrue(metrics.snapshot().isEmpty());
+            statement.executeQuery().close();
+            statement.executeQuery().close();
+            Assertions.assertEquals(2, find(metrics.snapshot(), sql).getCount());
+        }
+    }
+
+    @Test
+    public void wrapperTest() throws Exception {
+        TimingDataSource dataSource = new TimingDataSource(EmbeddedGameConfig.newDatabase("timing-wrapper"), new StatementMetrics());
+        try (Connection connection = dataSource.getConnection();
+             PreparedStatement prepared = connection.prepareStatement("SELECT 1");
+             Statement statement = connection.createStatement()) {
+            Assertions.assertEquals(connection, connection);
+            Assertions.assertNotEquals(prepared, statement);
+            Assertions.assertEquals(System.identityHashCode(prepared), prepared.hashCode());
+            Assertions.assertTrue(prepared.isWrapperFor(PreparedStatement.class));
+            Assertions.assertSame(prepared, prepared.unwrap(PreparedStatement.class));
+            // 代理之外的接口交给被包装的语句
+            Assertions.assertTrue(prepared.isWrapperFor(JdbcPreparedStatement.class));
+            Assertions.assertNotNull(prepared.unwrap(JdbcPreparedStatement.class));
+            // 从语句拿到的连接仍然是计时的连接
+            Assertions.assertSame(connection, prepared.getConnection());
+            Assertions.assertSame(connection, statement.getConnection());
+        }
+    }
+
+    private static StatementMetrics.Snapshot find(List<StatementMetrics.Snapshot> snapshots, String sql) {
+        return snapshots.stream().filter(snapshot -> snapshot.getSql().equals(sql)).findFirst()
+                .orElseThrow(() -> new AssertionError("no statistics for " + sql));
+    }
+
+}
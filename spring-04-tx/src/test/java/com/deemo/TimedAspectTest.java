@@ -0,0 +1,91 @@
+package com.deemo;
+
+import com.deemo.aspect.TimedAspect;
+import com.deemo.config.WeavingModeConfig;
+import com.deemo.entity.Game;
+import com.deemo.metrics.MethodMetrics;
+import com.deemo.service.IGameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.DisabledIfSystemProperty;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import java.util.Arrays;
+import java.util.stream.Collectors;
+
+/**
+ * 针对代理模式；织入模式下通知记在 AspectJ 创建的切面实例上，见 {@link LoadTimeWeavingTest}
+ */
+@DisabledIfSystemProperty(named = "spring.profiles.active", matches = WeavingModeConfig.PROFILE)
+public class TimedAspectTest {
+    private AnnotationConfigApplicationContext applicationContext;
+    private MethodMetrics metrics;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(TimedConfig.class);
+        this.metrics = this.applicationContext.getBean(MethodMetrics.class);
+    }
+
+    @Test
+    public void recordCallsAndErrorsTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        Assertions.assertTrue(gameService.insert("timed", 1.0));
+        Assertions.assertThrows(ArithmeticException.class, () -> gameService.insert("failed", 2.0, true));
+        gameService.insertBatch(Arrays.asList(new Game("batch-1", 3.0), new Game("batch-2", 4.0)));
+        gameService.findByPriceBetween(0, 10);
+
+        // 重载方法共用一个统计名
+        MethodMetrics.Snapshot insert = find("GameService#insert");
+        Assertions.assertEquals(2, insert.getCalls());
+        Assertions.assertEquals(1, insert.getErrors());
+        Assertions.assertEquals(2, insert.getLatency().getCount());
+        Assertions.assertTrue(insert.getLatency().getPercentile(99) > 0);
+        Assertions.assertEquals(1, find("GameService#insertBatch").getCalls());
+        Assertions.assertEquals(1, find("GameService#findByPriceBetween").getCalls());
+
+        // 只有 @Timed 的类被统计，GameDao 等不在其中
+        Assertions.assertEquals(Arrays.asList("GameService#findByPriceBetween", "GameService#insert", "GameService#insertBatch"),
+                metrics.snapshot().stream().map(MethodMetrics.Snapshot::getName).collect(Collectors.toList()));
+        String[] lines = metrics.getMethods();
+        Assertions.assertEquals(3, lines.length);
+        Assertions.assertTrue(lines[1].startsWith("GameService#insert | calls=2, errors=1 | "));
+
+        metrics.reset();
+        gameService.insert("after-reset", 5.0);
+        Assertions.assertEquals(1, find("GameService#insert").getCalls());
+    }
+
+    private MethodMetrics.Snapshot find(String name) {
+        return metrics.snapshot().stream().filter(snapshot -> snapshot.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("no statistics for " + name));
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+    @EnableAspectJAutoProxy
+    static class TimedConfig extends EmbeddedGameConfig {
+        /**
+         * 没有 @Configuration（lite 模式），用字段共享同一个实例
+         */
+        private final MethodMetrics methodMetrics = new MethodMetrics();
+
+        @Bean
+        public MethodMetrics methodMetrics() {
+            return methodMetrics;
+        }
+
+        @Bean
+        public TimedAspect timedAspect() {
+            return new TimedAspect(methodMetrics);
+        }
+    }
+
+}
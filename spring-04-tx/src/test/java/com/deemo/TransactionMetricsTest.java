@@ -0,0 +1,108 @@
+package com.deemo;
+
+import com.deemo.aspect.TransactionMetricsAspect;
+import com.deemo.datasource.InstrumentedTransactionManager;
+import com.deemo.datasource.TransactionMetrics;
+import com.deemo.service.IGameService;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Assertions;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.TransactionDefinition;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.sql.DataSource;
+import java.util.Arrays;
+
+public class TransactionMetricsTest {
+    private static final String INSERT = "com.deemo.service.impl.GameService.insert";
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private TransactionMetrics metrics;
+
+    @BeforeEach
+    public void before() {
+        this.applicationContext = new AnnotationConfigApplicationContext(MetricsConfig.class);
+        this.metrics = this.applicationContext.getBean(TransactionMetrics.class);
+    }
+
+    @Test
+    public void commitAndRollbackTest() {
+        IGameService gameService = this.applicationContext.getBean(IGameService.class);
+        Assertions.assertTrue(gameService.insert("commit", 1.0));
+        Assertions.assertTrue(gameService.insert("commit-2", 2.0));
+        Assertions.assertThrows(ArithmeticException.class, () -> gameService.insert("rollback", 3.0, true));
+
+        TransactionMetrics.Snapshot insert = find(INSERT);
+        Assertions.assertEquals(2, insert.getCommits());
+        Assertions.assertEquals(1L, insert.getRollbacks().get(ArithmeticException.class.getName()));
+        Assertions.assertEquals(3, insert.getDuration().getCount());
+        Assertions.assertEquals(3, insert.getConnectionHold().getCount());
+        // 阈值为 0，每个事务都算慢事务
+        Assertions.assertEquals(3, insert.getSlow());
+    }
+
+    @Test
+    public void rollbackOnlyAndRequiresNewTest() {
+        PlatformTransactionManager transactionManager = this.applicationContext.getBean(PlatformTransactionManager.class);
+        TransactionTemplate outer = new TransactionTemplate(transactionManager);
+        outer.setName("outer");
+        TransactionTemplate inner = new TransactionTemplate(transactionManager);
+        inner.setName("inner");
+        inner.setPropagationBehavior(TransactionDefinition.PROPAGATION_REQUIRES_NEW);
+
+        outer.execute(status -> {
+            inner.execute(innerStatus -> null);
+            status.setRollbackOnly();
+            return null;
+        });
+
+        Assertions.assertEquals(1, find("inner").getCommits());
+        Assertions.assertEquals(1L, find("outer").getRollbacks().get(TransactionMetrics.ROLLBACK_ONLY));
+        // 外层事务包含内层事务的耗时
+        Assertions.assertTrue(find("outer").getDuration().getMax() >= find("inner").getDuration().getMax());
+        String[] lines = metrics.getTransactions();
+        Assertions.assertEquals(2, lines.length);
+        Assertions.assertTrue(Arrays.stream(lines).anyMatch(line -> line.startsWith("inner | commits=1, ")));
+        Assertions.assertTrue(Arrays.stream(lines).anyMatch(line -> line.startsWith("outer | commits=0, rollbacks={" + TransactionMetrics.ROLLBACK_ONLY + "=1}")));
+    }
+
+    private TransactionMetrics.Snapshot find(String name) {
+        return metrics.snapshot().stream().filter(snapshot -> snapshot.getName().equals(name)).findFirst()
+                .orElseThrow(() -> new AssertionError("no statistics for " + name));
+    }
+
+    @AfterEach
+    public void after() {
+        applicationContext.close();
+    }
+
+    @EnableAspectJAutoProxy
+    static class MetricsConfig extends EmbeddedGameConfig {
+        /**
+         * 没有 @Configuration（lite 模式），@Bean 方法之间的调用不经过容器，因此用字段共享同一个实例
+         */
+        private final TransactionMetrics transactionMetrics = new TransactionMetrics();
+
+        @Bean
+        public TransactionMetrics transactionMetrics() {
+            return transactionMetrics;
+        }
+
+        @Bean
+        public TransactionMetricsAspect transactionMetricsAspect() {
+            return new TransactionMetricsAspect();
+        }
+
+        @Bean
+        @Override
+        public PlatformTransactionManager platformTransactionManager(DataSource dataSource) {
+            return new InstrumentedTransactionManager(dataSource, transactionMetrics, 0);
+        }
+    }
+
+}
@@ -0,0 +1,6 @@
+CREATE TABLE IF NOT EXISTS `game` (
+    `id`          BIGINT AUTO_INCREMENT PRIMARY KEY,
+    `name`        VARCHAR(64)  NOT NULL,
+    `price`       DOUBLE       NOT NULL,
+    `description` VARCHAR(128)
+);
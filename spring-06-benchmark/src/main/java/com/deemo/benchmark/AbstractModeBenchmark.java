@@ -0,0 +1,53 @@
+package com.deemo.benchmark;
+
+import com.deemo.aspect.CalculatorAspect;
+import com.deemo.config.ProxyModeConfig;
+import com.deemo.config.WeavingModeConfig;
+import com.deemo.service.IGameService;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 代理模式（{@link ProxyModeBenchmark}）与加载期织入模式（{@link WeavingModeBenchmark}）共用的基准：
+ * <ul>
+ *     <li>div：经过 {@link CalculatorAspect}</li>
+ *     <li>insert：经过 TimedAspect、ConcurrencyLimitAspect、事务与 LogAspect，代理模式下 insert(game, price) 对 insert(game, price, false) 的自调用不经过切面</li>
+ *     <li>startup：新 JVM 中创建 GameService 的容器并完成第一次 insert，包含类加载（织入模式下还有织入）的耗时</li>
+ * </ul>
+ * 两种模式下使用与 spring-04-tx 相同的切面配置，由 spring.profiles.active 选择 {@link ProxyModeConfig} 或 {@link WeavingModeConfig}。
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public abstract class AbstractModeBenchmark {
+
+    @Benchmark
+    public double div(ModeStates.CalculatorState state) {
+        return state.calculator.div(state.a, state.b);
+    }
+
+    @Benchmark
+    public boolean insert(ModeStates.GameState state) {
+        return state.gameService.insert("benchmark", 9.99);
+    }
+
+    /**
+     * 由子类以 SingleShotTime 调用，每个 fork 只测一次；JMH 不允许覆盖 @Benchmark 方法，因此不在这里声明
+     */
+    protected boolean startupOnce() {
+        try (AnnotationConfigApplicationContext applicationContext = new AnnotationConfigApplicationContext(ModeStates.GameConfig.class)) {
+            return applicationContext.getBean(IGameService.class).insert("startup", 9.99);
+        }
+    }
+
+}
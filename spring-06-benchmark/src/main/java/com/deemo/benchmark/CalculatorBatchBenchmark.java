@@ -0,0 +1,76 @@
+package com.deemo.benchmark;
+
+import com.deemo.aspect.CalculatorAspect;
+import com.deemo.calculator.DeemoCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 经过 {@link CalculatorAspect} 代理时，逐个调用 div(int, int) 与一次调用 div(int[], int[], double[]) 的对比，
+ * 结果为处理完 size 个元素的耗时。size 大于 {@link DeemoCalculator#PARALLEL_THRESHOLD} 时批量接口分段并行。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBatchBenchmark {
+    @Param({"64", "4096", "1048576"})
+    private int size;
+
+    private int[] a;
+    private int[] b;
+    private double[] out;
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private DeemoCalculator calculator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.applicationContext = new AnnotationConfigApplicationContext(CalculatorBenchmark.AspectConfig.class);
+        this.calculator = this.applicationContext.getBean(DeemoCalculator.class);
+        this.a = new int[size];
+        this.b = new int[size];
+        this.out = new double[size];
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < size; i++) {
+            a[i] = random.nextInt();
+            b[i] = random.nextInt(1, Integer.MAX_VALUE);
+        }
+    }
+
+    @Benchmark
+    public double[] perElement() {
+        for (int i = 0; i < size; i++) {
+            out[i] = calculator.div(a[i], b[i]);
+        }
+        return out;
+    }
+
+    @Benchmark
+    public double[] batch() {
+        return calculator.div(a, b, out);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+}
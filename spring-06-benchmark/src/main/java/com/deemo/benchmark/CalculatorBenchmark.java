@@ -0,0 +1,85 @@
+package com.deemo.benchmark;
+
+import com.deemo.aspect.CalculatorAspect;
+import com.deemo.calculator.DeemoCalculator;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * DeemoCalculator#div 直接调用与经过 {@link CalculatorAspect} 代理调用的对比
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CalculatorBenchmark {
+
+    @Param({"RAW", "ASPECT"})
+    private String variant;
+
+    /**
+     * 放在字段里，避免被 JIT 当作常量折叠
+     */
+    private int a = 84;
+    private int b = 2;
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private DeemoCalculator calculator;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        if ("ASPECT".equals(variant)) {
+            this.applicationContext = new AnnotationConfigApplicationContext(AspectConfig.class);
+            this.calculator = this.applicationContext.getBean(DeemoCalculator.class);
+        } else {
+            this.calculator = new DeemoCalculator();
+        }
+    }
+
+    @Benchmark
+    public double div() {
+        return calculator.div(a, b);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+    }
+
+    /**
+     * 与 spring-03-aop 的 App 相同
+     */
+    @EnableAspectJAutoProxy
+    static class AspectConfig {
+        @Bean
+        public DeemoCalculator deemoCalculator() {
+            return new DeemoCalculator();
+        }
+
+        @Bean
+        public CalculatorAspect calculatorAspect() {
+            return new CalculatorAspect();
+        }
+    }
+
+}
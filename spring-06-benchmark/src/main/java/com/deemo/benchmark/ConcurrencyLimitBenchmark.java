@@ -0,0 +1,130 @@
+package com.deemo.benchmark;
+
+import com.deemo.aspect.ConcurrencyLimitAspect;
+import com.deemo.datasource.InstrumentedDataSource;
+import com.deemo.datasource.PoolProperties;
+import com.deemo.datasource.PoolType;
+import com.deemo.limit.ConcurrencyLimit;
+import com.deemo.limit.ConcurrencyLimitExceededException;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+
+import javax.sql.DataSource;
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 32 个线程争抢 4 个连接，每次调用持有连接约 2ms，比较不限流与经过 {@link ConcurrencyLimitAspect} 限流的耗时分布。
+ * <p>
+ * 不限流时耗时主要是排队等连接；限流时超出额度的调用立即以 {@link ConcurrencyLimitExceededException} 返回，
+ * 这些快速失败也计入样本，结果里的高分位对应被接受的调用。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(32)
+@Fork(1)
+public class ConcurrencyLimitBenchmark {
+    private static final int POOL_SIZE = 4;
+
+    @Param({"UNLIMITED", "LIMITED"})
+    private String variant;
+
+    private InstrumentedDataSource dataSource;
+    private AnnotationConfigApplicationContext applicationContext;
+    private PoolWork work;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PoolProperties properties = new PoolProperties();
+        properties.setType(PoolType.HIKARI);
+        properties.setDriverClass("org.h2.Driver");
+        properties.setUrl("jdbc:h2:mem:limit;DB_CLOSE_DELAY=-1");
+        properties.setUsername("sa");
+        properties.setPassword("");
+        properties.setMinSize(POOL_SIZE);
+        properties.setMaxSize(POOL_SIZE);
+        properties.setAcquireTimeoutMillis(30_000);
+        this.dataSource = InstrumentedDataSource.create(properties);
+        if ("LIMITED".equals(variant)) {
+            this.applicationContext = new AnnotationConfigApplicationContext();
+            this.applicationContext.registerBean(DataSource.class, () -> dataSource);
+            this.applicationContext.register(LimitConfig.class);
+            this.applicationContext.refresh();
+            this.work = this.applicationContext.getBean(PoolWork.class);
+        } else {
+            this.work = new PoolWork(dataSource);
+        }
+    }
+
+    @Benchmark
+    public boolean query() throws Exception {
+        try {
+            return work.query();
+        } catch (ConcurrencyLimitExceededException e) {
+            return false;
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        if (applicationContext != null) {
+            applicationContext.close();
+        }
+        dataSource.close();
+    }
+
+    /**
+     * 获取连接、执行一条查询，再持有连接 2ms 模拟慢查询
+     */
+    public static class PoolWork {
+        private final DataSource dataSource;
+
+        public PoolWork(DataSource dataSource) {
+            this.dataSource = dataSource;
+        }
+
+        @ConcurrencyLimit(initialLimit = POOL_SIZE, maxLimit = POOL_SIZE, latencyThresholdMillis = 20)
+        public boolean query() throws SQLException, InterruptedException {
+            try (Connection connection = dataSource.getConnection();
+                 Statement statement = connection.createStatement()) {
+                boolean result = statement.execute("SELECT 1");
+                Thread.sleep(2);
+                return result;
+            }
+        }
+    }
+
+    @EnableAspectJAutoProxy
+    static class LimitConfig {
+        @Bean
+        public PoolWork poolWork(DataSource dataSource) {
+            return new PoolWork(dataSource);
+        }
+
+        @Bean
+        public ConcurrencyLimitAspect concurrencyLimitAspect() {
+            return new ConcurrencyLimitAspect();
+        }
+    }
+
+}
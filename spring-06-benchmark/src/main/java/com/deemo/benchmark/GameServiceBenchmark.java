@@ -0,0 +1,134 @@
+package com.deemo.benchmark;
+
+import com.deemo.aspect.LogAspect;
+import com.deemo.service.IGameService;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.ComponentScan;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.EnableTransactionManagement;
+
+import javax.sql.DataSource;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameService#insert 在不同代理组合下的耗时，数据库为 H2 内存库（MySQL 模式）+ HikariCP。
+ * <ul>
+ *     <li>RAW：没有任何代理，@Transactional 不生效，每条语句自动提交</li>
+ *     <li>LOG：只织入 {@link LogAspect}</li>
+ *     <li>TX：只开启 @EnableTransactionManagement</li>
+ *     <li>LOG_TX：两者都有</li>
+ * </ul>
+ * 与 RAW 的差值即代理与事务的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class GameServiceBenchmark {
+
+    @Param({"RAW", "LOG", "TX", "LOG_TX"})
+    private Variant variant;
+
+    private AnnotationConfigApplicationContext applicationContext;
+    private JdbcTemplate jdbcTemplate;
+    private IGameService gameService;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.applicationContext = new AnnotationConfigApplicationContext(variant.configs);
+        this.jdbcTemplate = this.applicationContext.getBean(JdbcTemplate.class);
+        this.gameService = this.applicationContext.getBean(IGameService.class);
+    }
+
+    /**
+     * 每轮清空表，避免表越来越大影响后面的轮次
+     */
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE `game`");
+    }
+
+    @Benchmark
+    public boolean insert() {
+        return gameService.insert("benchmark", 9.99);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        applicationContext.close();
+    }
+
+    public enum Variant {
+        RAW(GameConfig.class),
+        LOG(GameConfig.class, LogConfig.class),
+        TX(GameConfig.class, TxConfig.class),
+        LOG_TX(GameConfig.class, LogConfig.class, TxConfig.class);
+
+        private final Class<?>[] configs;
+
+        Variant(Class<?>... configs) {
+            this.configs = configs;
+        }
+    }
+
+    /**
+     * 与 spring-04-tx 的 App 相同的 DAO / Service，数据源换成 H2
+     */
+    @ComponentScan({"com.deemo.dao", "com.deemo.service"})
+    static class GameConfig {
+        @Bean(destroyMethod = "close")
+        public HikariDataSource dataSource() {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:benchmark;MODE=MySQL;DB_CLOSE_DELAY=-1");
+            dataSource.setMaximumPoolSize(4);
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("game-schema.sql")), dataSource);
+            return dataSource;
+        }
+
+        @Bean
+        public JdbcTemplate jdbcTemplate(DataSource dataSource) {
+            return new JdbcTemplate(dataSource);
+        }
+
+        @Bean
+        public PlatformTransactionManager platformTransactionManager(DataSource dataSource) {
+            return new DataSourceTransactionManager(dataSource);
+        }
+    }
+
+    @EnableAspectJAutoProxy
+    static class LogConfig {
+        @Bean
+        public LogAspect logAspect() {
+            return new LogAspect();
+        }
+    }
+
+    @EnableTransactionManagement
+    static class TxConfig {
+    }
+
+}
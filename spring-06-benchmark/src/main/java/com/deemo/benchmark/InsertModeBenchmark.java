@@ -0,0 +1,87 @@
+package com.deemo.benchmark;
+
+import com.deemo.dao.GameDao;
+import com.deemo.dao.InsertMode;
+import com.deemo.entity.Game;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.DataSourceTransactionManager;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * GameDao#insertBatch 在三种 {@link InsertMode} 下写入 rows 行的耗时。
+ * <p>
+ * 每种模式都在单个事务、单个连接内执行，只比较语句形态的差异：逐行 INSERT、JDBC batch、多行 VALUES。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class InsertModeBenchmark {
+
+    @Param({"ROW", "BATCH", "MULTI_VALUES"})
+    private InsertMode mode;
+
+    @Param({"5000"})
+    private int rows;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private GameDao gameDao;
+    private TransactionTemplate transactionTemplate;
+    private List<Game> games;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.dataSource = new SingleConnectionDataSource("jdbc:h2:mem:insert-mode;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("game-schema.sql")), dataSource);
+        this.jdbcTemplate = new JdbcTemplate(dataSource);
+        this.gameDao = new GameDao(jdbcTemplate, 500, mode, 1000, 1024 * 1024, false, false);
+        this.transactionTemplate = new TransactionTemplate(new DataSourceTransactionManager(dataSource));
+        this.games = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            games.add(new Game("bench-" + i, i % 100 + 0.99));
+        }
+    }
+
+    /**
+     * 每轮清空表，避免表越来越大影响后面的轮次
+     */
+    @Setup(Level.Iteration)
+    public void truncate() {
+        jdbcTemplate.execute("TRUNCATE TABLE `game`");
+    }
+
+    @Benchmark
+    public boolean[] insertBatch() {
+        return transactionTemplate.execute(status -> gameDao.insertBatch(games));
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+}
@@ -0,0 +1,102 @@
+package com.deemo.benchmark;
+
+import com.deemo.aspect.CalculatorAspect;
+import com.deemo.calculator.DeemoCalculator;
+import com.deemo.config.ProxyModeConfig;
+import com.deemo.config.WeavingModeConfig;
+import com.deemo.service.IGameService;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.springframework.context.annotation.AnnotationConfigApplicationContext;
+import org.springframework.context.annotation.Bean;
+import org.springframework.context.annotation.EnableAspectJAutoProxy;
+import org.springframework.context.annotation.Import;
+import org.springframework.context.annotation.Profile;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+/**
+ * {@link AbstractModeBenchmark} 的状态与配置；放在单独的类中，JMH 为子类生成代码时才能按规范名引用
+ */
+public final class ModeStates {
+
+    private ModeStates() {
+    }
+
+    @State(Scope.Benchmark)
+    public static class CalculatorState {
+        /**
+         * 放在字段里，避免被 JIT 当作常量折叠
+         */
+        int a = 84;
+        int b = 2;
+
+        private AnnotationConfigApplicationContext applicationContext;
+        DeemoCalculator calculator;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.applicationContext = new AnnotationConfigApplicationContext(CalculatorConfig.class);
+            this.calculator = this.applicationContext.getBean(DeemoCalculator.class);
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            applicationContext.close();
+        }
+    }
+
+    @State(Scope.Benchmark)
+    public static class GameState {
+        private AnnotationConfigApplicationContext applicationContext;
+        private JdbcTemplate jdbcTemplate;
+        IGameService gameService;
+
+        @Setup(Level.Trial)
+        public void setup() {
+            this.applicationContext = new AnnotationConfigApplicationContext(GameConfig.class);
+            this.jdbcTemplate = this.applicationContext.getBean(JdbcTemplate.class);
+            this.gameService = this.applicationContext.getBean(IGameService.class);
+        }
+
+        /**
+         * 每轮清空表，避免表越来越大影响后面的轮次
+         */
+        @Setup(Level.Iteration)
+        public void truncate() {
+            jdbcTemplate.execute("TRUNCATE TABLE `game`");
+        }
+
+        @TearDown(Level.Trial)
+        public void tearDown() {
+            applicationContext.close();
+        }
+    }
+
+    /**
+     * 织入模式下 DeemoCalculator 的字节码已包含通知，不需要切面 bean；spring-03-aop 的织入 profile 与 spring-04-tx 同名
+     */
+    @EnableAspectJAutoProxy
+    static class CalculatorConfig {
+        @Bean
+        public DeemoCalculator deemoCalculator() {
+            return new DeemoCalculator();
+        }
+
+        @Bean
+        @Profile("!" + WeavingModeConfig.PROFILE)
+        public CalculatorAspect calculatorAspect() {
+            return new CalculatorAspect();
+        }
+    }
+
+    /**
+     * 与 spring-04-tx 的 App 相同的切面与事务配置，数据源换成 H2
+     */
+    @Import({GameServiceBenchmark.GameConfig.class, ProxyModeConfig.class, WeavingModeConfig.class})
+    static class GameConfig {
+    }
+
+}
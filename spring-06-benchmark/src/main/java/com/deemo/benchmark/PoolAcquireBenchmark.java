@@ -0,0 +1,74 @@
+package com.deemo.benchmark;
+
+import com.deemo.datasource.InstrumentedDataSource;
+import com.deemo.datasource.PoolProperties;
+import com.deemo.datasource.PoolType;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.sql.Connection;
+import java.sql.SQLException;
+import java.sql.Statement;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多个线程同时 获取连接 -> 执行一条查询 -> 归还 的耗时分布，比较不同连接池实现与池大小。
+ * 线程数默认 8，可用 -t 调整；池小于线程数时耗时主要是等待连接。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Threads(8)
+@Fork(1)
+public class PoolAcquireBenchmark {
+
+    @Param({"C3P0", "HIKARI"})
+    private PoolType type;
+
+    @Param({"2", "8"})
+    private int poolSize;
+
+    private InstrumentedDataSource dataSource;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        PoolProperties properties = new PoolProperties();
+        properties.setType(type);
+        properties.setDriverClass("org.h2.Driver");
+        properties.setUrl("jdbc:h2:mem:pool-" + type + ";DB_CLOSE_DELAY=-1");
+        properties.setUsername("sa");
+        properties.setPassword("");
+        properties.setMinSize(poolSize);
+        properties.setMaxSize(poolSize);
+        properties.setAcquireTimeoutMillis(30_000);
+        this.dataSource = InstrumentedDataSource.create(properties);
+    }
+
+    @Benchmark
+    public boolean acquire() throws SQLException {
+        try (Connection connection = dataSource.getConnection();
+             Statement statement = connection.createStatement()) {
+            return statement.execute("SELECT 1");
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        dataSource.close();
+    }
+
+}
@@ -0,0 +1,87 @@
+package com.deemo.benchmark;
+
+import com.deemo.dao.InsertMode;
+import com.deemo.dao.ShardedGameDao;
+import com.deemo.entity.Game;
+import com.zaxxer.hikari.HikariDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import javax.sql.DataSource;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ShardedGameDao#insertBatch 写入 rows 行的耗时随分片数的变化，每个分片是一个独立的 H2 内存库 + HikariCP。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class ShardedInsertBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    private int shards;
+
+    @Param({"20000"})
+    private int rows;
+
+    private ShardedGameDao gameDao;
+    private List<Game> games;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        List<DataSource> dataSources = new ArrayList<>(shards);
+        for (int i = 0; i < shards; i++) {
+            HikariDataSource dataSource = new HikariDataSource();
+            dataSource.setJdbcUrl("jdbc:h2:mem:shard-" + i + ";MODE=MySQL;DB_CLOSE_DELAY=-1");
+            dataSource.setMaximumPoolSize(2);
+            DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("game-schema.sql")), dataSource);
+            dataSources.add(dataSource);
+        }
+        this.gameDao = new ShardedGameDao(dataSources, 500, InsertMode.BATCH, 1000, 1024 * 1024, false, false);
+        this.games = new ArrayList<>(rows);
+        for (int i = 0; i < rows; i++) {
+            games.add(new Game("bench-" + i, i % 100 + 0.99));
+        }
+    }
+
+    /**
+     * 每轮清空各分片，避免表越来越大影响后面的轮次
+     */
+    @Setup(Level.Iteration)
+    public void truncate() {
+        for (int i = 0; i < gameDao.getShardCount(); i++) {
+            new JdbcTemplate(gameDao.getShardDataSource(i)).execute("TRUNCATE TABLE `game`");
+        }
+    }
+
+    @Benchmark
+    public ShardedGameDao.BatchResult insertBatch() {
+        return gameDao.insertBatch(games);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() throws Exception {
+        gameDao.close();
+    }
+
+}
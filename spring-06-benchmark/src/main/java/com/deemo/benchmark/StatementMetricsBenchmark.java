@@ -0,0 +1,66 @@
+package com.deemo.benchmark;
+
+import com.deemo.datasource.StatementMetrics;
+import com.deemo.datasource.TimingDataSource;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.springframework.core.io.ClassPathResource;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.datasource.SingleConnectionDataSource;
+import org.springframework.jdbc.datasource.init.DatabasePopulatorUtils;
+import org.springframework.jdbc.datasource.init.ResourceDatabasePopulator;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 一条 UPDATE 直接执行与经过 {@link TimingDataSource} 执行的耗时，差值即语句计时的开销。
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class StatementMetricsBenchmark {
+
+    @Param({"RAW", "TIMED"})
+    private Variant variant;
+
+    private SingleConnectionDataSource dataSource;
+    private JdbcTemplate jdbcTemplate;
+    private int id;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        this.dataSource = new SingleConnectionDataSource("jdbc:h2:mem:statement-metrics;MODE=MySQL;DB_CLOSE_DELAY=-1", true);
+        DatabasePopulatorUtils.execute(new ResourceDatabasePopulator(new ClassPathResource("game-schema.sql")), dataSource);
+        this.jdbcTemplate = new JdbcTemplate(variant == Variant.TIMED ? new TimingDataSource(dataSource, new StatementMetrics()) : dataSource);
+    }
+
+    @Benchmark
+    public int update() {
+        return jdbcTemplate.update("UPDATE `game` SET `price` = ? WHERE `id` = ?", 9.99, id++);
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        dataSource.destroy();
+    }
+
+    public enum Variant {
+        RAW,
+        TIMED
+    }
+
+}
@@ -0,0 +1,42 @@
+package com.deemo.benchmark;
+
+import com.deemo.config.WeavingModeConfig;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 与 {@link ProxyModeBenchmark} 相同的基准，forked JVM 以 benchmarks.jar 作为 javaagent（其中包含 aspectjweaver）
+ * 并激活 ltw profile，切面与事务在类加载时织入。
+ * <p>
+ * 需要在 spring-06-benchmark 目录下运行；--add-opens 只适用于 Java 9+，Java 8 上用 -jvmArgsAppend 覆盖。
+ */
+@Fork(value = 1, jvmArgsAppend = {WeavingModeBenchmark.AGENT, WeavingModeBenchmark.ADD_OPENS, WeavingModeBenchmark.PROFILE})
+public class WeavingModeBenchmark extends AbstractModeBenchmark {
+    static final String AGENT = "-javaagent:target/benchmarks.jar";
+    /**
+     * 织入器在 Java 11+ 上通过反射定义生成的类（around 闭包、aop.xml 中的 concrete-aspect）
+     */
+    static final String ADD_OPENS = "--add-opens=java.base/java.lang=ALL-UNNAMED";
+    static final String PROFILE = "-Dspring.profiles.active=" + WeavingModeConfig.PROFILE;
+
+    /**
+     * 方法上的 @Fork 会整个覆盖类上的，因此重新声明 jvmArgsAppend
+     */
+    @Benchmark
+    @BenchmarkMode(Mode.SingleShotTime)
+    @OutputTimeUnit(TimeUnit.MILLISECONDS)
+    @Warmup(iterations = 0)
+    @Measurement(iterations = 1)
+    @Fork(value = 10, jvmArgsAppend = {AGENT, ADD_OPENS, PROFILE})
+    public boolean startup() {
+        return startupOnce();
+    }
+
+}